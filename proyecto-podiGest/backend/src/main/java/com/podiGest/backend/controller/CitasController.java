@@ -1,6 +1,9 @@
 package com.podiGest.backend.controller;
 
 import com.podiGest.backend.model.Cita;
+import com.podiGest.backend.model.ConsultaCitas;
+import com.podiGest.backend.model.DisponibilidadDia;
+import com.podiGest.backend.model.PaginaCitas;
 import com.podiGest.backend.service.CitasService;
 import com.podiGest.backend.model.Usuario;
 import com.podiGest.backend.service.PerfilService;
@@ -9,6 +12,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,6 +22,8 @@ import java.util.Optional;
 @RequestMapping("/api/citas")
 public class CitasController {
 
+    private static final int MAX_DIAS_DISPONIBILIDAD = 366;
+
     private final CitasService citasService;
     private final PerfilService perfilService; // agrego viki
 
@@ -24,16 +32,70 @@ public class CitasController {
         this.perfilService = perfilService;// agrego viki
     }
 
+    /**
+     * Acepta los filtros opcionales de {@link ConsultaCitas} (estado, desde, hasta, orden, cursor, limite).
+     * Con {@code limite} responde una {@link PaginaCitas}; sin él, la lista completa como antes.
+     */
     @GetMapping
-    public ResponseEntity<List<Cita>> obtenerCitas() {
+    public ResponseEntity<?> obtenerCitas(ConsultaCitas consulta) {
         try {
-            List<Cita> citas = citasService.obtenerCitas();
-            return ResponseEntity.ok(citas);
+            if (consulta.estaVacia()) {
+                List<Cita> citas = citasService.obtenerCitas();
+                return ResponseEntity.ok(citas);
+            }
+            return responderConsulta(citasService.consultarCitas(consulta), consulta);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (IOException e) {
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    /**
+     * Registro de cambios de todas las citas posteriores a la secuencia {@code desde}.
+     * Para sincronizar: empezar con desde=0 y repetir con la {@code secuencia} de cada respuesta.
+     * Ejemplo: GET /api/citas/cambios?desde=120&limite=50
+     */
+    @GetMapping("/cambios")
+    public ResponseEntity<?> obtenerCambios(@RequestParam(defaultValue = "0") long desde,
+                                            @RequestParam(required = false) Integer limite) {
+        try {
+            return ResponseEntity.ok(citasService.obtenerCambiosCitas(desde, limite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Bloques de una hora libres de un especialista en un rango de fechas.
+     * Ejemplo: GET /api/citas/disponibilidad?especialista=Ana Perez&cedula=127861&desde=2026-01-01&hasta=2026-01-31
+     */
+    @GetMapping("/disponibilidad")
+    public ResponseEntity<?> obtenerDisponibilidad(@RequestParam String especialista,
+                                                   @RequestParam(required = false) String cedula,
+                                                   @RequestParam String desde,
+                                                   @RequestParam(required = false) String hasta) {
+        LocalDate inicio;
+        LocalDate fin;
+        try {
+            inicio = LocalDate.parse(desde);
+            fin = hasta == null || hasta.isBlank() ? inicio : LocalDate.parse(hasta);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("Las fechas deben tener el formato yyyy-MM-dd.");
+        }
+
+        if (fin.isBefore(inicio)) {
+            return ResponseEntity.badRequest().body("La fecha 'hasta' no puede ser anterior a 'desde'.");
+        }
+        if (ChronoUnit.DAYS.between(inicio, fin) >= MAX_DIAS_DISPONIBILIDAD) {
+            return ResponseEntity.badRequest().body("El rango no puede superar " + MAX_DIAS_DISPONIBILIDAD + " días.");
+        }
+
+        List<DisponibilidadDia> disponibilidad = citasService.obtenerDisponibilidad(
+                cedula == null || cedula.isBlank() ? null : cedula, especialista, inicio, fin);
+        return ResponseEntity.ok(disponibilidad);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Cita> obtenerCitaPorId(@PathVariable String id) {
         try {
@@ -56,12 +118,15 @@ public class CitasController {
                 return ResponseEntity.badRequest().body("El correo del paciente es requerido.");
             }
 
-            if (nuevaCita.getFecha() == null || nuevaCita.getFecha().isEmpty()) {
+            if (nuevaCita.getFecha() == null) {
                 return ResponseEntity.badRequest().body("La fecha de la cita es requerida.");
             }
 
             Cita citaGuardada = citasService.guardarCita(nuevaCita);
             return ResponseEntity.status(HttpStatus.CREATED).body(citaGuardada);
+        } catch (IllegalStateException e) {
+            // Ya existe una cita con ese ID: no se sobrescribe
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (IOException e) {
             System.err.println("Error al guardar cita: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -117,17 +182,22 @@ public class CitasController {
     }
 
     @GetMapping("/paciente/{correoElectronico}")
-    public ResponseEntity<List<Cita>> obtenerCitasPorPaciente(@PathVariable String correoElectronico) {
+    public ResponseEntity<?> obtenerCitasPorPaciente(@PathVariable String correoElectronico, ConsultaCitas consulta) {
         try {
-            List<Cita> citas = citasService.obtenerCitasPorPaciente(correoElectronico);
-            return ResponseEntity.ok(citas);
+            if (consulta.estaVacia()) {
+                List<Cita> citas = citasService.obtenerCitasPorPaciente(correoElectronico);
+                return ResponseEntity.ok(citas);
+            }
+            return responderConsulta(citasService.consultarCitasPorPaciente(correoElectronico, consulta), consulta);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (IOException e) {
             return ResponseEntity.internalServerError().build();
         }
     }
 
     @GetMapping("/paciente/propias")
-    public ResponseEntity<?> obtenerCitasPacientePropias() {
+    public ResponseEntity<?> obtenerCitasPacientePropias(ConsultaCitas consulta) {
         try {
             Optional<Usuario> usuarioSesion = perfilService.obtenerPerfilActivo();
 
@@ -136,8 +206,13 @@ public class CitasController {
             }
 
             Usuario usuario = usuarioSesion.get();
+            if (!consulta.estaVacia()) {
+                return responderConsulta(citasService.consultarCitasPorPaciente(usuario.getCorreoElectronico(), consulta), consulta);
+            }
             List<Cita> citas = citasService.obtenerCitasPorPaciente(usuario.getCorreoElectronico());
             return ResponseEntity.ok(citas);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (IOException e) {
             return ResponseEntity.internalServerError().body("Error al obtener las citas del paciente.");
         }
@@ -227,7 +302,7 @@ public class CitasController {
 
 
     @GetMapping("/propias")
-    public ResponseEntity<?> obtenerCitasPropias() {
+    public ResponseEntity<?> obtenerCitasPropias(ConsultaCitas consulta) {
         try {
             Optional<Usuario> usuarioSesion = perfilService.obtenerPerfilActivo();
 
@@ -243,6 +318,11 @@ public class CitasController {
             
             System.out.println("INFO: Obteniendo historial de citas para especialista: " + usuario.getNombre() + " " + usuario.getApellido() + " (Cédula: " + usuario.getCedula() + ")");
 
+            if (!consulta.estaVacia()) {
+                return responderConsulta(citasService.consultarCitasDelEspecialista(
+                        usuario.getNombre() + " " + usuario.getApellido(), usuario.getCedula(), consulta), consulta);
+            }
+
             List<Cita> citasFiltradas = citasService.obtenerCitasDelEspecialista(
                 usuario.getNombre() + " " + usuario.getApellido(),
                 usuario.getCedula()
@@ -251,13 +331,45 @@ public class CitasController {
             System.out.println("INFO: Se encontraron " + citasFiltradas.size() + " citas para el especialista");
             return ResponseEntity.ok(citasFiltradas);
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (IOException e) {
             System.err.println("Error al obtener citas del especialista: " + e.getMessage());
             return ResponseEntity.internalServerError().body("Error al obtener citas del especialista.");
         }
     }
 
+    /**
+     * Registro de cambios de las citas del especialista en sesión, para refrescar su agenda sin recargarla completa.
+     */
+    @GetMapping("/propias/cambios")
+    public ResponseEntity<?> obtenerCambiosPropios(@RequestParam(defaultValue = "0") long desde,
+                                                   @RequestParam(required = false) Integer limite) {
+        try {
+            Optional<Usuario> usuarioSesion = perfilService.obtenerPerfilActivo();
+            if (usuarioSesion.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Debe iniciar sesión para ver sus citas.");
+            }
+            Usuario usuario = usuarioSesion.get();
+            if (usuario.getRol() == null || !usuario.getRol().equalsIgnoreCase("especialista")) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Solo los especialistas pueden ver su historial de citas.");
+            }
+            return ResponseEntity.ok(citasService.obtenerCambiosCitasDelEspecialista(
+                    usuario.getNombre() + " " + usuario.getApellido(), usuario.getCedula(), desde, limite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().body("Error al obtener citas del especialista.");
+        }
+    }
 
-
+    /**
+     * Sin {@code limite} se conserva el formato de lista; con él se devuelve la página y su cursor.
+     */
+    private ResponseEntity<?> responderConsulta(PaginaCitas pagina, ConsultaCitas consulta) {
+        if (consulta.getLimite() == null) {
+            return ResponseEntity.ok(pagina.getCitas());
+        }
+        return ResponseEntity.ok(pagina);
+    }
 }
-
@@ -1,14 +1,21 @@
 package com.podiGest.backend.controller;
 
+import com.podiGest.backend.model.CambiosNotificaciones;
+import com.podiGest.backend.model.FechasFlexibles;
 import com.podiGest.backend.model.Notificacion;
 import com.podiGest.backend.model.Usuario;
 import com.podiGest.backend.service.NotificacionService;
 import com.podiGest.backend.service.PerfilService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -25,8 +32,12 @@ public class NotificacionController {
         this.perfilService = perfilService;
     }
 
+    /**
+     * Con {@code since} responde solo los cambios posteriores a ese cursor ({@link CambiosNotificaciones});
+     * un {@code since} vacío devuelve la bandeja completa junto con el primer cursor.
+     */
     @GetMapping
-    public ResponseEntity<?> obtenerNotificaciones() {
+    public ResponseEntity<?> obtenerNotificaciones(@RequestParam(required = false) String since) {
         try {
             // Obtener el usuario activo de la sesión
             Optional<Usuario> usuarioActivo = perfilService.obtenerPerfilActivo();
@@ -40,12 +51,17 @@ public class NotificacionController {
             
             // Obtener solo las notificaciones del usuario activo
             String correoUsuario = usuarioActivo.get().getCorreoElectronico();
+            if (since != null) {
+                return ResponseEntity.ok(notificacionService.obtenerCambiosNotificaciones(correoUsuario, since));
+            }
             System.out.println("INFO: Obteniendo notificaciones para el usuario: " + correoUsuario);
             
             List<Notificacion> notificaciones = notificacionService.obtenerNotificacionesPorUsuario(correoUsuario);
             System.out.println("INFO: Se encontraron " + notificaciones.size() + " notificaciones para el usuario");
             
             return ResponseEntity.ok(notificaciones);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (IOException e) {
             System.err.println("Error al obtener notificaciones: " + e.getMessage());
             e.printStackTrace();
@@ -173,6 +189,25 @@ public class NotificacionController {
         }
     }
 
+    /**
+     * Flujo Server-Sent Events del usuario activo: eventos "notificacion" (notificaciones nuevas y
+     * recordatorios disparados) y "conteo" (notificaciones no silenciadas), sin necesidad de consultar periódicamente.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> suscribirse() {
+        try {
+            // EventSource no envía cabeceras: solo aquí se acepta el token en la URL
+            Optional<Usuario> usuarioActivo = perfilService.obtenerPerfilActivoDeFlujo();
+            if (usuarioActivo.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            }
+            return ResponseEntity.ok(notificacionService.suscribir(usuarioActivo.get().getCorreoElectronico()));
+        } catch (IOException e) {
+            System.err.println("Error al abrir el flujo de notificaciones: " + e.getMessage());
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @GetMapping("/count")
     public ResponseEntity<?> contarNotificacionesNoSilenciadas() {
         try {
@@ -186,10 +221,9 @@ public class NotificacionController {
             }
             
             String correoUsuario = usuarioActivo.get().getCorreoElectronico();
+            // Lectura del contador materializado; este endpoint se consulta periódicamente, así que no se registra en el log
             long count = notificacionService.contarNotificacionesNoSilenciadas(correoUsuario);
             
-            System.out.println("INFO: Usuario " + correoUsuario + " tiene " + count + " notificaciones no silenciadas");
-            
             return ResponseEntity.ok(count);
         } catch (IOException e) {
             System.err.println("Error al contar notificaciones: " + e.getMessage());
@@ -252,8 +286,8 @@ public class NotificacionController {
             }
             
             // Obtener la fecha del recordatorio del request
-            String fechaRecordatorio = request.get("fechaRecordatorio");
-            if (fechaRecordatorio == null || fechaRecordatorio.isBlank()) {
+            LocalDateTime fechaRecordatorio = leerFechaRecordatorio(request.get("fechaRecordatorio"));
+            if (fechaRecordatorio == null) {
                 return ResponseEntity
                         .badRequest()
                         .body("La fecha del recordatorio es requerida (formato: yyyy-MM-dd HH:mm:ss)");
@@ -302,8 +336,8 @@ public class NotificacionController {
             }
             
             // Obtener la nueva fecha del recordatorio del request
-            String nuevaFechaRecordatorio = request.get("fechaRecordatorio");
-            if (nuevaFechaRecordatorio == null || nuevaFechaRecordatorio.isBlank()) {
+            LocalDateTime nuevaFechaRecordatorio = leerFechaRecordatorio(request.get("fechaRecordatorio"));
+            if (nuevaFechaRecordatorio == null) {
                 return ResponseEntity
                         .badRequest()
                         .body("La nueva fecha del recordatorio es requerida (formato: yyyy-MM-dd HH:mm:ss)");
@@ -408,4 +442,18 @@ public class NotificacionController {
             return ResponseEntity.internalServerError().body("Error: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * @return La fecha del recordatorio, con precisión de minutos, o null si falta o no tiene un formato válido
+     */
+    private static LocalDateTime leerFechaRecordatorio(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        try {
+            return FechasFlexibles.parsearFechaHora(valor).truncatedTo(ChronoUnit.MINUTES);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
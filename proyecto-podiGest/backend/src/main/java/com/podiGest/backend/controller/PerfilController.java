@@ -2,15 +2,19 @@ package com.podiGest.backend.controller;
 
 import com.podiGest.backend.model.Usuario;
 import com.podiGest.backend.model.LoginRequest;
+import com.podiGest.backend.service.CatalogoEspecialistas;
 import com.podiGest.backend.service.PerfilService;
+import com.podiGest.backend.service.SesionesUsuario;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
 import java.util.Optional;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/usuarios")
@@ -73,8 +77,10 @@ public class PerfilController {
         if (usuarioEncontrado.isPresent()) {
 
             Usuario usuario = usuarioEncontrado.get();
-            usuarioService.guardarUsuarioSesion(usuario);
-            return ResponseEntity.ok(usuario);
+            String token = usuarioService.guardarUsuarioSesion(usuario);
+            return ResponseEntity.ok()
+                    .header(SesionesUsuario.CABECERA_TOKEN, token)
+                    .body(usuario);
 
         } else {
 
@@ -84,15 +90,37 @@ public class PerfilController {
         }
     }
 
+    /**
+     * Cierra la sesión identificada por el token de la petición.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<?> cerrarSesion() {
+        if (usuarioService.cerrarSesion()) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity
+                .status(HttpStatus.UNAUTHORIZED)
+                .body("No hay una sesión activa.");
+    }
+
+    /**
+     * Catálogo público de especialistas, servido desde el JSON ya serializado.
+     * Con If-None-Match igual al ETag actual responde 304 sin cuerpo.
+     */
     @GetMapping("/especialistas")
-    public ResponseEntity<List<Usuario>> obtenerEspecialistas() {
-        try {
-            List<Usuario> especialistas = usuarioService.obtenerEspecialistas();
-            return ResponseEntity.ok(especialistas);
-        } catch (Exception e) {
-            System.err.println("Error al obtener especialistas: " + e.getMessage());
-            return ResponseEntity.internalServerError().build();
+    public ResponseEntity<byte[]> obtenerEspecialistas(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        CatalogoEspecialistas catalogo = usuarioService.obtenerCatalogoEspecialistas();
+        if (catalogo.coincide(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(catalogo.getEtag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
         }
+        return ResponseEntity.ok()
+                .eTag(catalogo.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(catalogo.getJson());
     }
 
     @GetMapping
@@ -0,0 +1,50 @@
+package com.podiGest.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Locale;
+
+/**
+ * Notificaciones pendientes de un cambio de cita (bandeja de salida). Se guarda en el mismo registro
+ * del journal que la cita, así que ninguna de las dos cosas puede quedar persistida sin la otra.
+ *
+ * Los IDs de las notificaciones se derivan del ID del aviso, por lo que entregarlo dos veces
+ * (ej: tras un reinicio) no las duplica.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AvisoCita {
+
+    public enum Tipo {
+        AGENDADA, MODIFICADA, CANCELADA
+    }
+
+    private static final String PREFIJO_CITA = "CITA-";
+
+    private String id;
+    private Tipo tipo;
+    // Copia de la cita tal como quedó con el cambio
+    private Cita cita;
+    // Solo en MODIFICADA: fecha y hora antes de la reprogramación
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private LocalDate fechaAnterior;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "HH:mm")
+    @JsonDeserialize(using = FechasFlexibles.HoraDeserializer.class)
+    private LocalTime horaAnterior;
+
+    public AvisoCita() {
+    }
+
+    public AvisoCita(Tipo tipo, Cita cita) {
+        // El prefijo "CITA-" de los IDs generados se omite; los IDs con otro formato se usan completos
+        String citaId = cita.getId().startsWith(PREFIJO_CITA) ? cita.getId().substring(PREFIJO_CITA.length()) : cita.getId();
+        this.id = System.currentTimeMillis() + "-" + citaId + "-" + tipo.name().toLowerCase(Locale.ROOT);
+        this.tipo = tipo;
+        this.cita = new Cita(cita);
+    }
+}
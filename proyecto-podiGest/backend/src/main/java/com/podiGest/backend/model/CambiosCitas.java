@@ -0,0 +1,27 @@
+package com.podiGest.backend.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Respuesta de GET /api/citas/cambios: las citas cambiadas después de una secuencia, en orden de cambio.
+ */
+@Data
+public class CambiosCitas {
+
+    private List<Cita> citas;
+    // Valor de "desde" para la siguiente consulta
+    private long secuencia;
+    // true si se alcanzó el límite y quedan más cambios por leer
+    private boolean hayMas;
+
+    public CambiosCitas() {
+    }
+
+    public CambiosCitas(List<Cita> citas, long secuencia, boolean hayMas) {
+        this.citas = citas;
+        this.secuencia = secuencia;
+        this.hayMas = hayMas;
+    }
+}
@@ -0,0 +1,28 @@
+package com.podiGest.backend.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Respuesta de GET /api/notificaciones?since=cursor: las notificaciones creadas o modificadas después
+ * del cursor y el cursor para la siguiente consulta.
+ */
+@Data
+public class CambiosNotificaciones {
+
+    private List<Notificacion> notificaciones;
+    private String cursor;
+    // true cuando la lista es la bandeja completa y reemplaza a la guardada por el cliente
+    // (hubo eliminaciones después del cursor, o el cursor es de antes de un reinicio)
+    private boolean completa;
+
+    public CambiosNotificaciones() {
+    }
+
+    public CambiosNotificaciones(List<Notificacion> notificaciones, String cursor, boolean completa) {
+        this.notificaciones = notificaciones;
+        this.cursor = cursor;
+        this.completa = completa;
+    }
+}
@@ -1,7 +1,14 @@
 package com.podiGest.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import lombok.Data;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
 @Data
 public class Cita {
     private String id;
@@ -11,18 +18,26 @@ public class Cita {
     private String especialista;
     private String cedulaEspecialista;
     private String especialidadBuscada;
-    private String fecha;
-    private String hora;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    private LocalDate fecha;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "HH:mm")
+    @JsonDeserialize(using = FechasFlexibles.HoraDeserializer.class)
+    private LocalTime hora;
     private String razonConsulta;
     private String estado;
-    private String fechaCreacion;
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    @JsonDeserialize(using = FechasFlexibles.InstanteDeserializer.class)
+    private Instant fechaCreacion;
+    // Número de secuencia del último cambio (ver GET /api/citas/cambios); lo asigna el repositorio al guardar
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private long secuencia;
 
     public Cita() {
     }
 
     public Cita(String id, String pacienteNombre, String pacienteCorreo, String pacienteTelefono,
-                String especialista, String cedulaEspecialista, String especialidadBuscada, String fecha, String hora,
-                String razonConsulta, String estado, String fechaCreacion) {
+                String especialista, String cedulaEspecialista, String especialidadBuscada, LocalDate fecha, LocalTime hora,
+                String razonConsulta, String estado, Instant fechaCreacion) {
         this.id = id;
         this.pacienteNombre = pacienteNombre;
         this.pacienteCorreo = pacienteCorreo;
@@ -36,5 +51,12 @@ public class Cita {
         this.estado = estado;
         this.fechaCreacion = fechaCreacion;
     }
+
+    public Cita(Cita otra) {
+        this(otra.id, otra.pacienteNombre, otra.pacienteCorreo, otra.pacienteTelefono,
+                otra.especialista, otra.cedulaEspecialista, otra.especialidadBuscada, otra.fecha, otra.hora,
+                otra.razonConsulta, otra.estado, otra.fechaCreacion);
+        this.secuencia = otra.secuencia;
+    }
 }
 
@@ -0,0 +1,26 @@
+package com.podiGest.backend.model;
+
+import lombok.Data;
+
+/**
+ * Parámetros opcionales de consulta de citas (ej: ?estado=pendiente&desde=2026-01-01&orden=desc&limite=20).
+ * Si no se indica {@code limite} se devuelven todas las citas que cumplen los filtros.
+ */
+@Data
+public class ConsultaCitas {
+
+    private String estado;
+    private String desde;
+    private String hasta;
+    private String orden;
+    private String cursor;
+    private Integer limite;
+
+    public boolean estaVacia() {
+        return estado == null && desde == null && hasta == null && orden == null && cursor == null && limite == null;
+    }
+
+    public boolean esDescendente() {
+        return "desc".equalsIgnoreCase(orden);
+    }
+}
@@ -0,0 +1,20 @@
+package com.podiGest.backend.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class DisponibilidadDia {
+
+    private String fecha;
+    private List<String> horasLibres;
+
+    public DisponibilidadDia() {
+    }
+
+    public DisponibilidadDia(String fecha, List<String> horasLibres) {
+        this.fecha = fecha;
+        this.horasLibres = horasLibres;
+    }
+}
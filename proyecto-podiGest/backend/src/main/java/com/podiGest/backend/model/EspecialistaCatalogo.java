@@ -0,0 +1,25 @@
+package com.podiGest.backend.model;
+
+import lombok.Data;
+
+/**
+ * Datos públicos de un especialista para GET /api/usuarios/especialistas (sin contraseña ni fecha de nacimiento).
+ */
+@Data
+public class EspecialistaCatalogo {
+
+    private String cedula;
+    private String nombre;
+    private String apellido;
+    private String correoElectronico;
+
+    public EspecialistaCatalogo() {
+    }
+
+    public EspecialistaCatalogo(Usuario usuario) {
+        this.cedula = usuario.getCedula();
+        this.nombre = usuario.getNombre();
+        this.apellido = usuario.getApellido();
+        this.correoElectronico = usuario.getCorreoElectronico();
+    }
+}
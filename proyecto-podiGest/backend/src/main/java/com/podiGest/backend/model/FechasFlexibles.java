@@ -0,0 +1,104 @@
+package com.podiGest.backend.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.util.regex.Pattern;
+
+/**
+ * Lectura tolerante de las fechas guardadas antes de tipar los modelos, que conviven en varios formatos
+ * (ej: "2025-11-11T13:19:08", "2025-11-11 13:19:08", "2026-01-13T03:06"). Cada formato se resuelve
+ * con un único formateador de secciones opcionales, sin intentos encadenados.
+ *
+ * Los valores siempre se escriben en el formato normalizado de cada campo (ver {@link Cita} y {@link Notificacion}).
+ */
+public final class FechasFlexibles {
+
+    private static final DateTimeFormatter FECHA_HORA = new DateTimeFormatterBuilder()
+            .appendPattern("uuuu-MM-dd[' ']['T']HH:mm[:ss]")
+            .optionalStart().appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true).optionalEnd()
+            .toFormatter();
+    private static final Pattern CON_ZONA = Pattern.compile(".*(Z|[+-]\\d{2}:?\\d{2})$");
+    private static final DateTimeFormatter HORA = DateTimeFormatter.ofPattern("H:mm[:ss]");
+
+    private FechasFlexibles() {
+    }
+
+    /**
+     * @throws DateTimeParseException Si el texto no corresponde a ninguno de los formatos aceptados
+     */
+    public static LocalDateTime parsearFechaHora(String texto) {
+        return LocalDateTime.parse(texto.trim(), FECHA_HORA);
+    }
+
+    public static LocalTime parsearHora(String texto) {
+        return LocalTime.parse(texto.trim(), HORA);
+    }
+
+    /**
+     * Acepta un instante ISO-8601 (ej: "2025-11-11T02:33:52.775Z") o una fecha y hora local,
+     * que se interpreta en la zona horaria del servidor.
+     */
+    public static Instant parsearInstante(String texto) {
+        String limpio = texto.trim();
+        if (CON_ZONA.matcher(limpio).matches()) {
+            return DateTimeFormatter.ISO_OFFSET_DATE_TIME.parse(limpio, Instant::from);
+        }
+        return parsearFechaHora(limpio).atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    public static class FechaHoraDeserializer extends JsonDeserializer<LocalDateTime> {
+        @Override
+        public LocalDateTime deserialize(JsonParser parser, DeserializationContext contexto) throws IOException {
+            String texto = parser.getValueAsString();
+            if (texto == null || texto.isBlank()) {
+                return null;
+            }
+            try {
+                return parsearFechaHora(texto);
+            } catch (DateTimeParseException e) {
+                return (LocalDateTime) contexto.handleWeirdStringValue(LocalDateTime.class, texto, e.getMessage());
+            }
+        }
+    }
+
+    public static class HoraDeserializer extends JsonDeserializer<LocalTime> {
+        @Override
+        public LocalTime deserialize(JsonParser parser, DeserializationContext contexto) throws IOException {
+            String texto = parser.getValueAsString();
+            if (texto == null || texto.isBlank()) {
+                return null;
+            }
+            try {
+                return parsearHora(texto);
+            } catch (DateTimeParseException e) {
+                return (LocalTime) contexto.handleWeirdStringValue(LocalTime.class, texto, e.getMessage());
+            }
+        }
+    }
+
+    public static class InstanteDeserializer extends JsonDeserializer<Instant> {
+        @Override
+        public Instant deserialize(JsonParser parser, DeserializationContext contexto) throws IOException {
+            String texto = parser.getValueAsString();
+            if (texto == null || texto.isBlank()) {
+                return null;
+            }
+            try {
+                return parsearInstante(texto);
+            } catch (DateTimeParseException e) {
+                return (Instant) contexto.handleWeirdStringValue(Instant.class, texto, e.getMessage());
+            }
+        }
+    }
+}
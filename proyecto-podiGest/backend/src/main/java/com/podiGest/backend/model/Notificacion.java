@@ -1,20 +1,41 @@
 package com.podiGest.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import lombok.Data;
 
+import java.time.LocalDateTime;
+import java.util.Map;
+
 @Data
 public class Notificacion {
 
     private String id;
-    private String fechaEnvio;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @JsonDeserialize(using = FechasFlexibles.FechaHoraDeserializer.class)
+    private LocalDateTime fechaEnvio;
+    // Nulos cuando la notificación se guarda como plantilla: se generan al consultarla
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String asunto;
     private String remitente;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String mensaje;
     private String correoDestinatario;
     private boolean silenciada;
     private boolean tieneRecordatorio;
-    private String fechaRecordatorio;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm")
+    @JsonDeserialize(using = FechasFlexibles.FechaHoraDeserializer.class)
+    private LocalDateTime fechaRecordatorio;
     private boolean recordatorioActivo;
+    // ID de la plantilla y valores de sus campos (ver PlantillasNotificacion), en lugar del texto completo
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String plantilla;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, String> parametros;
+    // Número de secuencia del último cambio (creación, silenciado o recordatorio); lo asigna el repositorio
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private long secuencia;
 
     public Notificacion() {
         this.silenciada = false;
@@ -22,7 +43,7 @@ public class Notificacion {
         this.recordatorioActivo = false;
     }
 
-    public Notificacion(String id, String fechaEnvio, String asunto, String remitente, String mensaje, String correoDestinatario) {
+    public Notificacion(String id, LocalDateTime fechaEnvio, String asunto, String remitente, String mensaje, String correoDestinatario) {
         this.id = id;
         this.fechaEnvio = fechaEnvio;
         this.asunto = asunto;
@@ -33,4 +54,15 @@ public class Notificacion {
         this.tieneRecordatorio = false;
         this.recordatorioActivo = false;
     }
+
+    public Notificacion(Notificacion otra) {
+        this(otra.id, otra.fechaEnvio, otra.asunto, otra.remitente, otra.mensaje, otra.correoDestinatario);
+        this.silenciada = otra.silenciada;
+        this.tieneRecordatorio = otra.tieneRecordatorio;
+        this.fechaRecordatorio = otra.fechaRecordatorio;
+        this.recordatorioActivo = otra.recordatorioActivo;
+        this.plantilla = otra.plantilla;
+        this.parametros = otra.parametros;
+        this.secuencia = otra.secuencia;
+    }
 }
\ No newline at end of file
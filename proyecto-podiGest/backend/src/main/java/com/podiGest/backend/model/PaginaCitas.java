@@ -0,0 +1,21 @@
+package com.podiGest.backend.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class PaginaCitas {
+
+    private List<Cita> citas;
+    // Null cuando no hay más resultados
+    private String siguienteCursor;
+
+    public PaginaCitas() {
+    }
+
+    public PaginaCitas(List<Cita> citas, String siguienteCursor) {
+        this.citas = citas;
+        this.siguienteCursor = siguienteCursor;
+    }
+}
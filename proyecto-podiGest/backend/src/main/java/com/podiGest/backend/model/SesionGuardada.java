@@ -0,0 +1,18 @@
+package com.podiGest.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+/**
+ * Sesión vigente guardada al detener la aplicación, para recuperarla al arrancar.
+ * Solo guarda la cédula: el usuario (con su contraseña) no se copia fuera de los usuarios registrados.
+ */
+@Data
+// Los archivos de versiones anteriores incluían el usuario completo
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SesionGuardada {
+
+    private String token;
+    private String cedula;
+    private long vence;
+}
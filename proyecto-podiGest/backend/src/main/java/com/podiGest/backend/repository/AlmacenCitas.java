@@ -0,0 +1,87 @@
+package com.podiGest.backend.repository;
+
+import com.podiGest.backend.model.Cita;
+import com.podiGest.backend.repository.CitasRepository.RegistroCitas;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Motor de almacenamiento de las citas, particionado por el mes de la cita ("2026-01"; las citas sin fecha
+ * van en {@value #SIN_FECHA}). El repositorio lee cada partición cuando la necesita, así que el historial
+ * antiguo no se carga mientras ninguna consulta llegue a él.
+ *
+ * {@link #cargar()} devuelve una instantánea vacía y solo los registros pendientes de reproducir;
+ * las citas guardadas se leen con {@link #leerParticion(String)}. Para no leer todo el historial en las búsquedas
+ * por ID, paciente o especialista, el almacén indica en qué meses están esas citas.
+ */
+public interface AlmacenCitas extends AlmacenRegistros<Cita, RegistroCitas> {
+
+    String SIN_FECHA = "sin-fecha";
+
+    /**
+     * @return Resumen de cada partición guardada, por mes, sin leer sus citas
+     */
+    Map<String, ResumenParticion> particiones() throws IOException;
+
+    /**
+     * @return Citas guardadas en la partición (vacía si no existe)
+     */
+    List<Cita> leerParticion(String mes) throws IOException;
+
+    /**
+     * @return Meses de las particiones guardadas que contienen la cita (más de uno solo si una compactación
+     *         interrumpida dejó la versión anterior en otro mes), sin leer sus citas
+     */
+    Set<String> particionesDeCita(String id) throws IOException;
+
+    /**
+     * @return Meses de las particiones guardadas con citas del paciente (correo exacto)
+     */
+    Set<String> particionesDePaciente(String pacienteCorreo) throws IOException;
+
+    /**
+     * @param cedulaEspecialista Cédula exacta (puede ser null)
+     * @param especialista       Nombre en minúsculas (puede ser null)
+     * @return Meses de las particiones guardadas con citas del especialista, por cédula o por nombre
+     */
+    Set<String> particionesDeEspecialista(String cedulaEspecialista, String especialista) throws IOException;
+
+    /**
+     * Reemplaza por completo cada partición indicada con sus citas; una lista vacía la elimina.
+     * Es la segunda fase de la compactación: solo se reescriben los meses que cambiaron.
+     */
+    void volcarParticiones(Map<String, List<Cita>> particiones) throws IOException;
+
+    static String particion(Cita cita) {
+        return particion(cita.getFecha());
+    }
+
+    static String particion(LocalDate fecha) {
+        return fecha == null ? SIN_FECHA : YearMonth.from(fecha).toString();
+    }
+
+    /**
+     * Cantidad de citas, cuántas siguen pendientes (el repositorio carga siempre esas particiones, porque
+     * el completado automático las necesita) y la mayor secuencia guardada.
+     */
+    record ResumenParticion(int citas, int pendientes, long secuenciaMaxima) {
+
+        static ResumenParticion de(Collection<Cita> citas) {
+            int pendientes = 0;
+            long secuenciaMaxima = 0;
+            for (Cita cita : citas) {
+                if ("pendiente".equalsIgnoreCase(cita.getEstado())) {
+                    pendientes++;
+                }
+                secuenciaMaxima = Math.max(secuenciaMaxima, cita.getSecuencia());
+            }
+            return new ResumenParticion(citas.size(), pendientes, secuenciaMaxima);
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.podiGest.backend.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.podiGest.backend.model.AvisoCita;
+import com.podiGest.backend.model.Cita;
+import com.podiGest.backend.repository.CitasRepository.RegistroCitas;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Motor H2 de las citas: tabla citas (una fila por cita, con índices por paciente, especialista, estado,
+ * fecha y secuencia) y tabla avisos_cita con la bandeja de salida. Cada registro se escribe en una
+ * transacción, así que una cita y su aviso quedan guardados juntos o no se guarda ninguno.
+ *
+ * Las particiones mensuales son rangos del índice por fecha: leer un mes es una consulta por rango y
+ * el resumen de todos los meses sale de un único GROUP BY.
+ *
+ * La primera vez que arranca puede importar las particiones + citas.journal desde el motor JSON.
+ */
+public class AlmacenCitasH2 implements AlmacenCitas {
+
+    private static final String COLECCION = "citas";
+    private static final String COLUMNAS = "id, paciente_nombre, paciente_correo, paciente_telefono, especialista, "
+            + "cedula_especialista, especialidad_buscada, fecha, hora, razon_consulta, estado, fecha_creacion, secuencia";
+    private static final String MERGE_CITA = "MERGE INTO citas (" + COLUMNAS + ") KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_CITA = "INSERT INTO citas (" + COLUMNAS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String MES = "FORMATDATETIME(fecha, 'yyyy-MM')";
+
+    private final Connection conexion;
+    private final ObjectMapper mapper;
+    // Motor JSON del que importar, o null si no se importa
+    private final AlmacenCitas origen;
+
+    public AlmacenCitasH2(BaseDeDatosH2 base, ObjectMapper mapper, AlmacenCitas origen) throws SQLException {
+        this.conexion = base.conectar();
+        this.mapper = mapper;
+        this.origen = origen;
+    }
+
+    /**
+     * Las citas se leen por partición; la carga solo devuelve los avisos de la bandeja.
+     */
+    @Override
+    public synchronized Carga<Cita, RegistroCitas> cargar() throws IOException {
+        return BaseDeDatosH2.enTransaccion(conexion, c -> {
+            if (origen != null && !BaseDeDatosH2.importada(c, COLECCION)) {
+                importar(c);
+            }
+            List<AvisoCita> avisos = new ArrayList<>();
+            try (Statement sentencia = c.createStatement();
+                 ResultSet filas = sentencia.executeQuery("SELECT datos FROM avisos_cita ORDER BY orden")) {
+                while (filas.next()) {
+                    avisos.add(mapper.readValue(filas.getString(1), AvisoCita.class));
+                }
+            }
+            List<RegistroCitas> registros = avisos.isEmpty() ? List.of() : List.of(RegistroCitas.conAvisos(avisos));
+            return new Carga<>(List.of(), registros);
+        });
+    }
+
+    /**
+     * Copia todas las particiones del motor JSON con su journal ya reproducido (y los avisos pendientes)
+     * y marca la importación, dentro de la transacción de la carga.
+     */
+    private void importar(Connection c) throws SQLException, IOException {
+        System.out.println("INFO: Importando citas desde el almacenamiento JSON a H2");
+        Carga<Cita, RegistroCitas> carga = origen.cargar();
+        Map<String, Cita> citas = new LinkedHashMap<>();
+        long secuencia = 0;
+        for (String mes : origen.particiones().keySet()) {
+            for (Cita cita : origen.leerParticion(mes)) {
+                citas.put(cita.getId(), cita);
+                secuencia = Math.max(secuencia, cita.getSecuencia());
+            }
+        }
+        Map<String, AvisoCita> avisos = new LinkedHashMap<>();
+        for (RegistroCitas registro : carga.registros()) {
+            for (Cita cita : registro.getCitas()) {
+                // Misma numeración que CitasRepository para las citas guardadas antes de las secuencias
+                if (cita.getSecuencia() == 0) {
+                    cita.setSecuencia(secuencia + 1);
+                }
+                secuencia = Math.max(secuencia, cita.getSecuencia());
+                citas.put(cita.getId(), cita);
+            }
+            registro.getAvisos().forEach(aviso -> avisos.put(aviso.getId(), aviso));
+            registro.getAvisosEntregados().forEach(avisos::remove);
+        }
+        reemplazarCitas(c, new ArrayList<>(citas.values()));
+        guardarAvisos(c, avisos.values());
+        BaseDeDatosH2.marcarImportada(c, COLECCION);
+        origen.cerrar();
+        System.out.println("INFO: Se importaron " + citas.size() + " citas a H2");
+    }
+
+    @Override
+    public void completarCarga(List<Cita> estadoActual) {
+    }
+
+    @Override
+    public synchronized Map<String, ResumenParticion> particiones() throws IOException {
+        return BaseDeDatosH2.enTransaccion(conexion, c -> {
+            Map<String, ResumenParticion> particiones = new TreeMap<>();
+            try (Statement sentencia = c.createStatement();
+                 ResultSet filas = sentencia.executeQuery("SELECT " + MES + ", COUNT(*), "
+                         + "SUM(CASE WHEN LOWER(estado) = 'pendiente' THEN 1 ELSE 0 END), MAX(secuencia) "
+                         + "FROM citas GROUP BY " + MES)) {
+                while (filas.next()) {
+                    String mes = filas.getString(1);
+                    particiones.put(mes == null ? SIN_FECHA : mes,
+                            new ResumenParticion(filas.getInt(2), filas.getInt(3), filas.getLong(4)));
+                }
+            }
+            return particiones;
+        });
+    }
+
+    @Override
+    public synchronized List<Cita> leerParticion(String mes) throws IOException {
+        return BaseDeDatosH2.enTransaccion(conexion, c -> {
+            List<Cita> citas = new ArrayList<>();
+            try (PreparedStatement consulta = c.prepareStatement("SELECT " + COLUMNAS + " FROM citas WHERE "
+                    + condicionMes(mes) + " ORDER BY orden")) {
+                asignarMes(consulta, mes);
+                try (ResultSet filas = consulta.executeQuery()) {
+                    while (filas.next()) {
+                        citas.add(leerCita(filas));
+                    }
+                }
+            }
+            return citas;
+        });
+    }
+
+    @Override
+    public synchronized Set<String> particionesDeCita(String id) throws IOException {
+        return meses("id = ?", id);
+    }
+
+    @Override
+    public synchronized Set<String> particionesDePaciente(String pacienteCorreo) throws IOException {
+        return meses("paciente_correo = ?", pacienteCorreo);
+    }
+
+    @Override
+    public synchronized Set<String> particionesDeEspecialista(String cedulaEspecialista, String especialista) throws IOException {
+        Set<String> meses = meses("cedula_especialista = ?", cedulaEspecialista);
+        meses.addAll(meses("especialista_minusculas = ?", especialista));
+        return meses;
+    }
+
+    /**
+     * Meses distintos de las filas que cumplen la condición, resuelta sobre uno de los índices de la tabla.
+     */
+    private Set<String> meses(String condicion, String valor) throws IOException {
+        if (valor == null) {
+            return new TreeSet<>();
+        }
+        return BaseDeDatosH2.enTransaccion(conexion, c -> {
+            Set<String> meses = new TreeSet<>();
+            try (PreparedStatement consulta = c.prepareStatement("SELECT DISTINCT " + MES + " FROM citas WHERE " + condicion)) {
+                consulta.setString(1, valor);
+                try (ResultSet filas = consulta.executeQuery()) {
+                    while (filas.next()) {
+                        String mes = filas.getString(1);
+                        meses.add(mes == null ? SIN_FECHA : mes);
+                    }
+                }
+            }
+            return meses;
+        });
+    }
+
+    @Override
+    public synchronized long agregar(RegistroCitas registro) throws IOException {
+        BaseDeDatosH2.enTransaccion(conexion, c -> {
+            if (!registro.getCitas().isEmpty()) {
+                try (PreparedStatement merge = c.prepareStatement(MERGE_CITA)) {
+                    for (Cita cita : registro.getCitas()) {
+                        escribirCita(merge, cita);
+                        merge.addBatch();
+                    }
+                    merge.executeBatch();
+                }
+            }
+            guardarAvisos(c, registro.getAvisos());
+            if (!registro.getAvisosEntregados().isEmpty()) {
+                try (PreparedStatement borrado = c.prepareStatement("DELETE FROM avisos_cita WHERE id = ?")) {
+                    for (String id : registro.getAvisosEntregados()) {
+                        borrado.setString(1, id);
+                        borrado.addBatch();
+                    }
+                    borrado.executeBatch();
+                }
+            }
+            return null;
+        });
+        return 0;
+    }
+
+    /**
+     * El commit de {@link #agregar} ya dejó el cambio en la base.
+     */
+    @Override
+    public void sincronizar(long posicion) {
+    }
+
+    /**
+     * No hay journal que compactar: cada cambio ya se escribió en su fila.
+     */
+    @Override
+    public boolean rotar() {
+        return false;
+    }
+
+    /**
+     * Reemplaza cada mes indicado en una sola transacción. Con este motor las filas ya están al día
+     * ({@link #rotar()} nunca pide compactar), pero se mantiene el contrato del almacén.
+     */
+    @Override
+    public synchronized void volcarParticiones(Map<String, List<Cita>> particiones) throws IOException {
+        BaseDeDatosH2.enTransaccion(conexion, c -> {
+            for (Map.Entry<String, List<Cita>> particion : particiones.entrySet()) {
+                try (PreparedStatement borrado = c.prepareStatement("DELETE FROM citas WHERE " + condicionMes(particion.getKey()))) {
+                    asignarMes(borrado, particion.getKey());
+                    borrado.executeUpdate();
+                }
+                insertarCitas(c, particion.getValue());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Reescribe todas las citas (ej: {@link CitasRepository#reescribir()}); los avisos no cambian.
+     */
+    @Override
+    public synchronized void volcar(List<Cita> estado) throws IOException {
+        BaseDeDatosH2.enTransaccion(conexion, c -> {
+            reemplazarCitas(c, estado);
+            return null;
+        });
+    }
+
+    @Override
+    public synchronized void cerrar() throws IOException {
+        try {
+            conexion.close();
+        } catch (SQLException e) {
+            throw new IOException("No se pudo cerrar la conexión de citas: " + e.getMessage(), e);
+        }
+    }
+
+    private static void reemplazarCitas(Connection c, List<Cita> citas) throws SQLException {
+        try (Statement sentencia = c.createStatement()) {
+            sentencia.executeUpdate("DELETE FROM citas");
+        }
+        insertarCitas(c, citas);
+    }
+
+    private static void insertarCitas(Connection c, List<Cita> citas) throws SQLException {
+        try (PreparedStatement insercion = c.prepareStatement(INSERT_CITA)) {
+            for (Cita cita : citas) {
+                escribirCita(insercion, cita);
+                insercion.addBatch();
+            }
+            insercion.executeBatch();
+        }
+    }
+
+    /**
+     * Rango [primer día del mes, primer día del mes siguiente) sobre el índice por fecha, o las citas sin fecha.
+     */
+    private static String condicionMes(String mes) {
+        return SIN_FECHA.equals(mes) ? "fecha IS NULL" : "fecha >= ? AND fecha < ?";
+    }
+
+    private static void asignarMes(PreparedStatement sentencia, String mes) throws SQLException {
+        if (!SIN_FECHA.equals(mes)) {
+            YearMonth yearMonth = YearMonth.parse(mes);
+            sentencia.setObject(1, yearMonth.atDay(1));
+            sentencia.setObject(2, yearMonth.plusMonths(1).atDay(1));
+        }
+    }
+
+    private void guardarAvisos(Connection c, Iterable<AvisoCita> avisos) throws SQLException, IOException {
+        try (PreparedStatement merge = c.prepareStatement("MERGE INTO avisos_cita (id, datos) KEY (id) VALUES (?, ?)")) {
+            boolean hay = false;
+            for (AvisoCita aviso : avisos) {
+                merge.setString(1, aviso.getId());
+                merge.setString(2, mapper.writeValueAsString(aviso));
+                merge.addBatch();
+                hay = true;
+            }
+            if (hay) {
+                merge.executeBatch();
+            }
+        }
+    }
+
+    private static void escribirCita(PreparedStatement sentencia, Cita cita) throws SQLException {
+        sentencia.setString(1, cita.getId());
+        sentencia.setString(2, cita.getPacienteNombre());
+        sentencia.setString(3, cita.getPacienteCorreo());
+        sentencia.setString(4, cita.getPacienteTelefono());
+        sentencia.setString(5, cita.getEspecialista());
+        sentencia.setString(6, cita.getCedulaEspecialista());
+        sentencia.setString(7, cita.getEspecialidadBuscada());
+        sentencia.setObject(8, cita.getFecha());
+        sentencia.setObject(9, cita.getHora());
+        sentencia.setString(10, cita.getRazonConsulta());
+        sentencia.setString(11, cita.getEstado());
+        sentencia.setObject(12, cita.getFechaCreacion() == null ? null : cita.getFechaCreacion().atOffset(ZoneOffset.UTC));
+        sentencia.setLong(13, cita.getSecuencia());
+    }
+
+    private static Cita leerCita(ResultSet fila) throws SQLException {
+        OffsetDateTime fechaCreacion = fila.getObject(12, OffsetDateTime.class);
+        Cita cita = new Cita(fila.getString(1), fila.getString(2), fila.getString(3), fila.getString(4),
+                fila.getString(5), fila.getString(6), fila.getString(7),
+                fila.getObject(8, LocalDate.class), fila.getObject(9, LocalTime.class),
+                fila.getString(10), fila.getString(11), fechaCreacion == null ? null : fechaCreacion.toInstant());
+        cita.setSecuencia(fila.getLong(13));
+        return cita;
+    }
+}
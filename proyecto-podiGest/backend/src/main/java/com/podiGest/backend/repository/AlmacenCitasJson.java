@@ -0,0 +1,335 @@
+package com.podiGest.backend.repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.podiGest.backend.model.Cita;
+import com.podiGest.backend.repository.CitasRepository.RegistroCitas;
+import com.podiGest.backend.service.PathConfigService;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * Motor JSON de las citas: un archivo por mes en base_de_datos/citas (ej: citas/2026-01.json), un índice
+ * citas/particiones.json con el resumen de cada mes y el journal citas.journal con los cambios posteriores.
+ * Los IDs, pacientes y especialistas de cada mes van aparte, en citas/claves/ (ej: citas/claves/2026-01.json),
+ * para que las búsquedas por ellos lean solo las particiones que los contienen; se leen la primera vez
+ * que una búsqueda los necesita y se reescriben junto con su partición.
+ *
+ * La compactación reescribe solo los meses que cambiaron, así que su costo depende de la actividad
+ * reciente y no del tamaño del historial.
+ *
+ * Si encuentra el citas.json de un solo archivo de versiones anteriores, lo reparte en particiones al
+ * cargar y lo renombra a citas.json.migrado. Las citas que aún no tenían secuencia la reciben ahí, en el
+ * orden del archivo, después de las ya numeradas.
+ */
+public class AlmacenCitasJson implements AlmacenCitas {
+
+    private static final String CITAS_JSON_FILE = "citas.json";
+    private static final String CITAS_JOURNAL_FILE = "citas.journal";
+    private static final String DIRECTORIO = "citas";
+    private static final String INDICE_FILE = "particiones.json";
+    private static final String CLAVES_DIRECTORIO = "claves";
+    private static final String EXTENSION = ".json";
+
+    private final Path directorio;
+    private final Path clavesDirectorio;
+    private final Path indicePath;
+    private final Path archivoUnicoPath;
+    private final Path compactandoPath;
+    private final ObjectMapper mapper;
+    private final PersistenciaAtomica persistencia;
+    private final Journal journal;
+    // Resumen de las particiones guardadas; protegido por this
+    private final Map<String, ResumenParticion> resumenes = new TreeMap<>();
+    // Claves de búsqueda de los meses ya consultados; protegido por this
+    private final Map<String, ClavesParticion> claves = new HashMap<>();
+
+    public AlmacenCitasJson(ObjectMapper mapper, PersistenciaAtomica persistencia) {
+        this(PathConfigService.getSeedDataDirectory(), mapper, persistencia);
+    }
+
+    /**
+     * @param carpeta Carpeta de datos donde están citas/ y citas.journal (normalmente base_de_datos)
+     */
+    public AlmacenCitasJson(Path carpeta, ObjectMapper mapper, PersistenciaAtomica persistencia) {
+        this.directorio = carpeta.resolve(DIRECTORIO);
+        this.clavesDirectorio = directorio.resolve(CLAVES_DIRECTORIO);
+        this.indicePath = directorio.resolve(INDICE_FILE);
+        this.archivoUnicoPath = carpeta.resolve(CITAS_JSON_FILE);
+        this.compactandoPath = carpeta.resolve(CITAS_JOURNAL_FILE + ".compactando");
+        this.mapper = mapper;
+        this.persistencia = persistencia;
+        this.journal = persistencia.crearJournal(carpeta.resolve(CITAS_JOURNAL_FILE), mapper);
+    }
+
+    /**
+     * Lee el índice de particiones y los registros pendientes (los del journal que quedó a medio compactar
+     * y los del activo); deja el journal abierto para agregar. Si el proceso murió durante una compactación
+     * el índice puede no coincidir con los archivos, así que se reconstruye leyéndolos. Las claves de búsqueda
+     * que guardaban en el índice las versiones anteriores se ignoran; se regeneran por mes al buscar.
+     */
+    @Override
+    public synchronized Carga<Cita, RegistroCitas> cargar() throws IOException {
+        Files.createDirectories(directorio);
+        if (Files.exists(archivoUnicoPath)) {
+            migrarArchivoUnico();
+        } else if (Files.exists(indicePath) && !Files.exists(compactandoPath)) {
+            resumenes.putAll(mapper.readerFor(new TypeReference<Map<String, ResumenParticion>>() {})
+                    .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                    .<Map<String, ResumenParticion>>readValue(indicePath.toFile()));
+        } else {
+            reconstruirIndice();
+        }
+        List<RegistroCitas> registros = new ArrayList<>(journal.leerRegistros(compactandoPath, RegistroCitas.class));
+        registros.addAll(journal.abrir(RegistroCitas.class));
+        return new Carga<>(Collections.emptyList(), registros);
+    }
+
+    private void migrarArchivoUnico() throws IOException {
+        List<Cita> citas = Collections.emptyList();
+        if (Files.size(archivoUnicoPath) > 0) {
+            String jsonContent = Files.readString(archivoUnicoPath);
+            if (!jsonContent.isBlank()) {
+                citas = mapper.readValue(jsonContent, new TypeReference<List<Cita>>() {});
+            }
+        }
+        long secuencia = 0;
+        for (Cita cita : citas) {
+            secuencia = Math.max(secuencia, cita.getSecuencia());
+        }
+        for (Cita cita : citas) {
+            if (cita.getSecuencia() == 0) {
+                cita.setSecuencia(++secuencia);
+            }
+        }
+        Map<String, List<Cita>> particiones = agrupar(citas);
+        for (Map.Entry<String, List<Cita>> particion : particiones.entrySet()) {
+            escribirParticion(particion.getKey(), particion.getValue());
+        }
+        escribirIndice();
+        Files.move(archivoUnicoPath, archivoUnicoPath.resolveSibling(CITAS_JSON_FILE + ".migrado"), StandardCopyOption.REPLACE_EXISTING);
+        System.out.println("INFO: " + CITAS_JSON_FILE + " se repartió en " + particiones.size() + " particiones mensuales (" + citas.size() + " citas)");
+    }
+
+    /**
+     * Rehace el índice y las claves de búsqueda desde los archivos de cada mes.
+     */
+    private void reconstruirIndice() throws IOException {
+        resumenes.clear();
+        claves.clear();
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, "*" + EXTENSION)) {
+            for (Path archivo : archivos) {
+                String nombre = archivo.getFileName().toString();
+                if (!nombre.equals(INDICE_FILE)) {
+                    String mes = nombre.substring(0, nombre.length() - EXTENSION.length());
+                    List<Cita> citas = leerParticion(mes);
+                    resumenes.put(mes, ResumenParticion.de(citas));
+                    escribirClaves(mes, ClavesParticion.de(citas));
+                }
+            }
+        }
+        escribirIndice();
+    }
+
+    @Override
+    public synchronized Map<String, ResumenParticion> particiones() {
+        Map<String, ResumenParticion> particiones = new TreeMap<>();
+        particiones.putAll(resumenes);
+        return particiones;
+    }
+
+    @Override
+    public synchronized Set<String> particionesDeCita(String id) throws IOException {
+        return buscar(clavesMes -> clavesMes.ids().contains(id));
+    }
+
+    @Override
+    public synchronized Set<String> particionesDePaciente(String pacienteCorreo) throws IOException {
+        return buscar(clavesMes -> clavesMes.pacientes().contains(pacienteCorreo));
+    }
+
+    @Override
+    public synchronized Set<String> particionesDeEspecialista(String cedulaEspecialista, String especialista) throws IOException {
+        return buscar(clavesMes -> clavesMes.cedulas().contains(cedulaEspecialista) || clavesMes.especialistas().contains(especialista));
+    }
+
+    private Set<String> buscar(Predicate<ClavesParticion> contiene) throws IOException {
+        Set<String> meses = new TreeSet<>();
+        for (String mes : resumenes.keySet()) {
+            if (contiene.test(clavesDe(mes))) {
+                meses.add(mes);
+            }
+        }
+        return meses;
+    }
+
+    /**
+     * @return Claves de búsqueda del mes; si su archivo no existe (datos de versiones anteriores) las
+     *         genera leyendo la partición y las guarda
+     */
+    private ClavesParticion clavesDe(String mes) throws IOException {
+        ClavesParticion clavesMes = claves.get(mes);
+        if (clavesMes != null) {
+            return clavesMes;
+        }
+        Path path = rutaClaves(mes);
+        if (Files.exists(path)) {
+            clavesMes = mapper.readValue(path.toFile(), ClavesParticion.class);
+            claves.put(mes, clavesMes);
+        } else {
+            clavesMes = ClavesParticion.de(leerParticion(mes));
+            escribirClaves(mes, clavesMes);
+        }
+        return clavesMes;
+    }
+
+    @Override
+    public List<Cita> leerParticion(String mes) throws IOException {
+        Path path = rutaParticion(mes);
+        if (!Files.exists(path) || Files.size(path) == 0) {
+            return new ArrayList<>();
+        }
+        return mapper.readValue(path.toFile(), new TypeReference<List<Cita>>() {});
+    }
+
+    /**
+     * Termina una compactación interrumpida: las citas del estado pertenecen a particiones completas
+     * en memoria, así que se reescriben y se descarta el journal rotado.
+     */
+    @Override
+    public void completarCarga(List<Cita> estadoActual) throws IOException {
+        if (Files.exists(compactandoPath)) {
+            volcarParticiones(agrupar(estadoActual));
+        }
+    }
+
+    @Override
+    public long agregar(RegistroCitas registro) throws IOException {
+        return journal.escribir(registro);
+    }
+
+    @Override
+    public void sincronizar(long posicion) throws IOException {
+        journal.sincronizar(posicion);
+    }
+
+    @Override
+    public boolean rotar() throws IOException {
+        if (journal.getRegistros() == 0) {
+            return false;
+        }
+        journal.rotar(compactandoPath);
+        return true;
+    }
+
+    @Override
+    public synchronized void volcarParticiones(Map<String, List<Cita>> particiones) throws IOException {
+        for (Map.Entry<String, List<Cita>> particion : particiones.entrySet()) {
+            escribirParticion(particion.getKey(), particion.getValue());
+        }
+        escribirIndice();
+        Files.deleteIfExists(compactandoPath);
+    }
+
+    /**
+     * Reescribe todas las particiones con el estado completo; las que ya no tienen citas se eliminan.
+     */
+    @Override
+    public synchronized void volcar(List<Cita> estado) throws IOException {
+        Map<String, List<Cita>> particiones = agrupar(estado);
+        for (String mes : resumenes.keySet()) {
+            particiones.putIfAbsent(mes, List.of());
+        }
+        volcarParticiones(particiones);
+    }
+
+    @Override
+    public void cerrar() throws IOException {
+        journal.cerrar();
+    }
+
+    private void escribirParticion(String mes, List<Cita> citas) throws IOException {
+        Path path = rutaParticion(mes);
+        if (citas.isEmpty()) {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(rutaClaves(mes));
+            resumenes.remove(mes);
+            claves.remove(mes);
+            return;
+        }
+        persistencia.escribir(path, mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(citas));
+        resumenes.put(mes, ResumenParticion.de(citas));
+        escribirClaves(mes, ClavesParticion.de(citas));
+    }
+
+    private void escribirClaves(String mes, ClavesParticion clavesMes) throws IOException {
+        Files.createDirectories(clavesDirectorio);
+        persistencia.escribir(rutaClaves(mes), mapper.writeValueAsBytes(clavesMes));
+        claves.put(mes, clavesMes);
+    }
+
+    private void escribirIndice() throws IOException {
+        persistencia.escribir(indicePath, mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(resumenes));
+    }
+
+    private Path rutaParticion(String mes) {
+        return directorio.resolve(mes + EXTENSION);
+    }
+
+    private Path rutaClaves(String mes) {
+        return clavesDirectorio.resolve(mes + EXTENSION);
+    }
+
+    private static Map<String, List<Cita>> agrupar(List<Cita> citas) {
+        Map<String, List<Cita>> particiones = new TreeMap<>();
+        for (Cita cita : citas) {
+            particiones.computeIfAbsent(AlmacenCitas.particion(cita), k -> new ArrayList<>()).add(cita);
+        }
+        return particiones;
+    }
+
+    /**
+     * Claves de búsqueda de una partición: IDs, correos de pacientes, cédulas y nombres en minúsculas de
+     * especialistas. Las claves nulas no se guardan.
+     */
+    record ClavesParticion(Set<String> ids, Set<String> pacientes, Set<String> cedulas, Set<String> especialistas) {
+
+        static ClavesParticion de(Collection<Cita> citas) {
+            Set<String> ids = new TreeSet<>();
+            Set<String> pacientes = new TreeSet<>();
+            Set<String> cedulas = new TreeSet<>();
+            Set<String> especialistas = new TreeSet<>();
+            for (Cita cita : citas) {
+                agregar(ids, cita.getId());
+                agregar(pacientes, cita.getPacienteCorreo());
+                agregar(cedulas, cita.getCedulaEspecialista());
+                if (cita.getEspecialista() != null) {
+                    especialistas.add(cita.getEspecialista().toLowerCase(Locale.ROOT));
+                }
+            }
+            return new ClavesParticion(ids, pacientes, cedulas, especialistas);
+        }
+
+        private static void agregar(Set<String> claves, String clave) {
+            if (clave != null) {
+                claves.add(clave);
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.podiGest.backend.repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.podiGest.backend.service.PathConfigService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Motor de almacenamiento JSON ({@link AlmacenRegistros}): una instantánea JSON (ej: notificaciones.json) y un
+ * journal de solo-agregado con los cambios posteriores a esa instantánea.
+ *
+ * El repositorio dueño del almacén mantiene el estado en memoria, agrega un registro por cada mutación
+ * y, periódicamente, compacta: rota el journal (con su bloqueo de escritura tomado) y luego vuelca la
+ * instantánea sin bloquear a los escritores. Los registros deben ser idempotentes, ya que tras una caída
+ * durante la compactación pueden reproducirse sobre una instantánea que ya los incluye.
+ *
+ * @param <T> Tipo de los elementos de la instantánea
+ * @param <R> Tipo de los registros del journal
+ */
+public class AlmacenConJournal<T, R> implements AlmacenRegistros<T, R> {
+
+    private final Path instantaneaPath;
+    private final Path compactandoPath;
+    private final TypeReference<List<T>> tipoInstantanea;
+    private final Class<R> tipoRegistro;
+    private final ObjectMapper mapper;
+    private final PersistenciaAtomica persistencia;
+    private final Journal journal;
+
+    public AlmacenConJournal(String archivoJson, String archivoJournal, TypeReference<List<T>> tipoInstantanea,
+                             Class<R> tipoRegistro, ObjectMapper mapper, PersistenciaAtomica persistencia) {
+        this(PathConfigService.getSeedDataDirectory(), archivoJson, archivoJournal, tipoInstantanea, tipoRegistro, mapper, persistencia);
+    }
+
+    /**
+     * @param carpeta Carpeta de datos donde están los dos archivos (normalmente base_de_datos)
+     */
+    public AlmacenConJournal(Path carpeta, String archivoJson, String archivoJournal, TypeReference<List<T>> tipoInstantanea,
+                             Class<R> tipoRegistro, ObjectMapper mapper, PersistenciaAtomica persistencia) {
+        this.instantaneaPath = carpeta.resolve(archivoJson);
+        this.compactandoPath = carpeta.resolve(archivoJournal + ".compactando");
+        this.tipoInstantanea = tipoInstantanea;
+        this.tipoRegistro = tipoRegistro;
+        this.mapper = mapper;
+        this.persistencia = persistencia;
+        this.journal = persistencia.crearJournal(carpeta.resolve(archivoJournal), mapper);
+    }
+
+    /**
+     * Lee la instantánea y todos los registros pendientes de aplicar sobre ella: primero los del journal
+     * que quedó a medio compactar (si el proceso murió durante una compactación) y luego los del journal activo.
+     * Deja el journal abierto para agregar.
+     */
+    @Override
+    public Carga<T, R> cargar() throws IOException {
+        List<T> instantanea = leerInstantanea();
+        List<R> registros = new ArrayList<>(journal.leerRegistros(compactandoPath, tipoRegistro));
+        registros.addAll(journal.abrir(tipoRegistro));
+        return new Carga<>(instantanea, registros);
+    }
+
+    /**
+     * Debe llamarse tras aplicar la carga: termina una compactación interrumpida
+     * o crea el archivo JSON si todavía no existe.
+     */
+    @Override
+    public void completarCarga(List<T> estadoActual) throws IOException {
+        if (!Files.exists(instantaneaPath) || Files.exists(compactandoPath)) {
+            escribirInstantanea(estadoActual);
+            Files.deleteIfExists(compactandoPath);
+        }
+    }
+
+    /**
+     * Agrega el registro al journal sin esperar el fsync. El repositorio debe llamar a
+     * {@link #sincronizar(long)} con la posición devuelta, ya fuera de su bloqueo de escritura,
+     * antes de confirmar la operación al llamador.
+     */
+    @Override
+    public long agregar(R registro) throws IOException {
+        return journal.escribir(registro);
+    }
+
+    @Override
+    public void sincronizar(long posicion) throws IOException {
+        journal.sincronizar(posicion);
+    }
+
+    public int getRegistrosPendientes() {
+        return journal.getRegistros();
+    }
+
+    /**
+     * Primera fase de la compactación. Llamar con el bloqueo de escritura del repositorio tomado,
+     * justo antes de capturar el estado que se va a volcar.
+     *
+     * @return false si no hay nada que compactar
+     */
+    @Override
+    public boolean rotar() throws IOException {
+        if (journal.getRegistros() == 0) {
+            return false;
+        }
+        journal.rotar(compactandoPath);
+        return true;
+    }
+
+    /**
+     * Segunda fase de la compactación, sin bloqueo: vuelca el estado capturado y descarta el journal rotado.
+     */
+    @Override
+    public void volcar(List<T> estado) throws IOException {
+        escribirInstantanea(estado);
+        Files.deleteIfExists(compactandoPath);
+    }
+
+    @Override
+    public void cerrar() throws IOException {
+        journal.cerrar();
+    }
+
+    private List<T> leerInstantanea() throws IOException {
+        if (Files.exists(instantaneaPath) && Files.size(instantaneaPath) > 0) {
+            String jsonContent = Files.readString(instantaneaPath);
+            if (!jsonContent.isBlank()) {
+                return mapper.readValue(jsonContent, tipoInstantanea);
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private void escribirInstantanea(List<T> estado) throws IOException {
+        persistencia.escribir(instantaneaPath, mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(estado));
+    }
+}
@@ -0,0 +1,215 @@
+package com.podiGest.backend.repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.podiGest.backend.model.Notificacion;
+import com.podiGest.backend.repository.NotificacionesRepository.RegistroNotificacion;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Motor H2 de las notificaciones: una fila por notificación, con índices por destinatario (sin distinguir
+ * mayúsculas), por recordatorio activo y por secuencia. Cada registro se aplica en su propia transacción
+ * como una sentencia acotada: silenciar o cambiar un recordatorio actualiza solo esa fila.
+ *
+ * La primera vez que arranca puede importar notificaciones.json + notificaciones.journal desde el motor JSON.
+ */
+public class AlmacenNotificacionesH2 implements AlmacenRegistros<Notificacion, RegistroNotificacion> {
+
+    private static final String COLECCION = "notificaciones";
+    private static final String COLUMNAS = "id, fecha_envio, asunto, remitente, mensaje, correo_destinatario, clave_destinatario, "
+            + "silenciada, tiene_recordatorio, fecha_recordatorio, recordatorio_activo, plantilla, parametros, secuencia";
+    private static final String VALORES = "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final Connection conexion;
+    private final ObjectMapper mapper;
+    // Motor JSON del que importar, o null si no se importa
+    private final AlmacenRegistros<Notificacion, RegistroNotificacion> origen;
+    private boolean importando;
+
+    public AlmacenNotificacionesH2(BaseDeDatosH2 base, ObjectMapper mapper,
+                                   AlmacenRegistros<Notificacion, RegistroNotificacion> origen) throws SQLException {
+        this.conexion = base.conectar();
+        this.mapper = mapper;
+        this.origen = origen;
+    }
+
+    @Override
+    public synchronized Carga<Notificacion, RegistroNotificacion> cargar() throws IOException {
+        return BaseDeDatosH2.enTransaccion(conexion, c -> {
+            if (origen != null && !BaseDeDatosH2.importada(c, COLECCION)) {
+                importando = true;
+                System.out.println("INFO: Importando notificaciones desde el almacenamiento JSON a H2");
+                return origen.cargar();
+            }
+            List<Notificacion> notificaciones = new ArrayList<>();
+            try (Statement sentencia = c.createStatement();
+                 ResultSet filas = sentencia.executeQuery("SELECT " + COLUMNAS + " FROM notificaciones ORDER BY orden")) {
+                while (filas.next()) {
+                    notificaciones.add(leerNotificacion(filas));
+                }
+            }
+            return new Carga<>(notificaciones, List.of());
+        });
+    }
+
+    @Override
+    public synchronized void completarCarga(List<Notificacion> estadoActual) throws IOException {
+        if (!importando) {
+            return;
+        }
+        BaseDeDatosH2.enTransaccion(conexion, c -> {
+            reemplazarNotificaciones(c, estadoActual);
+            BaseDeDatosH2.marcarImportada(c, COLECCION);
+            return null;
+        });
+        origen.cerrar();
+        System.out.println("INFO: Se importaron " + estadoActual.size() + " notificaciones a H2");
+        importando = false;
+    }
+
+    @Override
+    public synchronized long agregar(RegistroNotificacion registro) throws IOException {
+        long secuencia = registro.getSecuencia() != null ? registro.getSecuencia() : 0;
+        BaseDeDatosH2.enTransaccion(conexion, c -> {
+            switch (registro.getOperacion()) {
+                case CREAR -> {
+                    Notificacion notificacion = new Notificacion(registro.getNotificacion());
+                    notificacion.setSecuencia(secuencia);
+                    try (PreparedStatement merge = c.prepareStatement("MERGE INTO notificaciones (" + COLUMNAS + ") KEY (id) " + VALORES)) {
+                        escribirNotificacion(merge, notificacion);
+                        merge.executeUpdate();
+                    }
+                }
+                case SILENCIAR -> {
+                    try (PreparedStatement actualizacion = c.prepareStatement(
+                            "UPDATE notificaciones SET silenciada = ?, secuencia = ? WHERE id = ?")) {
+                        actualizacion.setBoolean(1, registro.getSilenciada());
+                        actualizacion.setLong(2, secuencia);
+                        actualizacion.setString(3, registro.getId());
+                        actualizacion.executeUpdate();
+                    }
+                }
+                case RECORDATORIO -> {
+                    // Los campos nulos del registro conservan su valor
+                    try (PreparedStatement actualizacion = c.prepareStatement("UPDATE notificaciones SET "
+                            + "tiene_recordatorio = COALESCE(?, tiene_recordatorio), "
+                            + "fecha_recordatorio = COALESCE(?, fecha_recordatorio), "
+                            + "recordatorio_activo = COALESCE(?, recordatorio_activo), "
+                            + "secuencia = ? WHERE id = ?")) {
+                        actualizacion.setObject(1, registro.getTieneRecordatorio(), Types.BOOLEAN);
+                        actualizacion.setObject(2, registro.getFechaRecordatorio(), Types.TIMESTAMP);
+                        actualizacion.setObject(3, registro.getRecordatorioActivo(), Types.BOOLEAN);
+                        actualizacion.setLong(4, secuencia);
+                        actualizacion.setString(5, registro.getId());
+                        actualizacion.executeUpdate();
+                    }
+                }
+                case ELIMINAR -> {
+                    try (PreparedStatement borrado = c.prepareStatement("DELETE FROM notificaciones WHERE id = ?")) {
+                        for (String id : registro.getIds()) {
+                            borrado.setString(1, id);
+                            borrado.addBatch();
+                        }
+                        borrado.executeBatch();
+                    }
+                }
+            }
+            return null;
+        });
+        return 0;
+    }
+
+    /**
+     * El commit de {@link #agregar} ya dejó el cambio en la base.
+     */
+    @Override
+    public void sincronizar(long posicion) {
+    }
+
+    /**
+     * No hay journal que compactar: cada cambio ya se escribió en su fila.
+     */
+    @Override
+    public boolean rotar() {
+        return false;
+    }
+
+    /**
+     * Reescribe todas las notificaciones (ej: {@link NotificacionesRepository#reescribir()}).
+     */
+    @Override
+    public synchronized void volcar(List<Notificacion> estado) throws IOException {
+        BaseDeDatosH2.enTransaccion(conexion, c -> {
+            reemplazarNotificaciones(c, estado);
+            return null;
+        });
+    }
+
+    @Override
+    public synchronized void cerrar() throws IOException {
+        try {
+            conexion.close();
+        } catch (SQLException e) {
+            throw new IOException("No se pudo cerrar la conexión de notificaciones: " + e.getMessage(), e);
+        }
+    }
+
+    private void reemplazarNotificaciones(Connection c, List<Notificacion> notificaciones) throws SQLException, IOException {
+        try (Statement sentencia = c.createStatement()) {
+            sentencia.executeUpdate("DELETE FROM notificaciones");
+        }
+        try (PreparedStatement insercion = c.prepareStatement("INSERT INTO notificaciones (" + COLUMNAS + ") " + VALORES)) {
+            for (Notificacion notificacion : notificaciones) {
+                escribirNotificacion(insercion, notificacion);
+                insercion.addBatch();
+            }
+            insercion.executeBatch();
+        }
+    }
+
+    private void escribirNotificacion(PreparedStatement sentencia, Notificacion notificacion) throws SQLException, IOException {
+        sentencia.setString(1, notificacion.getId());
+        sentencia.setObject(2, notificacion.getFechaEnvio(), Types.TIMESTAMP);
+        sentencia.setString(3, notificacion.getAsunto());
+        sentencia.setString(4, notificacion.getRemitente());
+        sentencia.setString(5, notificacion.getMensaje());
+        sentencia.setString(6, notificacion.getCorreoDestinatario());
+        String correo = notificacion.getCorreoDestinatario();
+        sentencia.setString(7, correo == null ? "" : correo.toLowerCase(Locale.ROOT));
+        sentencia.setBoolean(8, notificacion.isSilenciada());
+        sentencia.setBoolean(9, notificacion.isTieneRecordatorio());
+        sentencia.setObject(10, notificacion.getFechaRecordatorio(), Types.TIMESTAMP);
+        sentencia.setBoolean(11, notificacion.isRecordatorioActivo());
+        sentencia.setString(12, notificacion.getPlantilla());
+        sentencia.setString(13, notificacion.getParametros() == null ? null : mapper.writeValueAsString(notificacion.getParametros()));
+        sentencia.setLong(14, notificacion.getSecuencia());
+    }
+
+    private Notificacion leerNotificacion(ResultSet fila) throws SQLException, IOException {
+        Notificacion notificacion = new Notificacion(fila.getString(1), fila.getObject(2, LocalDateTime.class),
+                fila.getString(3), fila.getString(4), fila.getString(5), fila.getString(6));
+        notificacion.setSilenciada(fila.getBoolean(8));
+        notificacion.setTieneRecordatorio(fila.getBoolean(9));
+        notificacion.setFechaRecordatorio(fila.getObject(10, LocalDateTime.class));
+        notificacion.setRecordatorioActivo(fila.getBoolean(11));
+        notificacion.setPlantilla(fila.getString(12));
+        String parametros = fila.getString(13);
+        if (parametros != null) {
+            notificacion.setParametros(mapper.readValue(parametros, new TypeReference<Map<String, String>>() {}));
+        }
+        notificacion.setSecuencia(fila.getLong(14));
+        return notificacion;
+    }
+}
@@ -0,0 +1,57 @@
+package com.podiGest.backend.repository;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Motor de almacenamiento de una colección que el repositorio mantiene en memoria (citas, notificaciones).
+ *
+ * El repositorio es dueño del estado y de sus índices; el motor solo lo reconstruye al arrancar y hace
+ * durable cada cambio, que le llega como un registro. Hay dos implementaciones, elegidas con la propiedad
+ * {@value ConfiguracionAlmacenamiento#PROPIEDAD_MOTOR}: archivo JSON + journal ({@link AlmacenConJournal},
+ * {@link AlmacenCitasJson}) y base de datos embebida ({@link AlmacenCitasH2}, {@link AlmacenNotificacionesH2}).
+ * Las citas además se guardan particionadas por mes ({@link AlmacenCitas}).
+ *
+ * @param <T> Tipo de los elementos de la colección
+ * @param <R> Tipo de los registros de cambio
+ */
+public interface AlmacenRegistros<T, R> {
+
+    /**
+     * Lee el estado guardado: una instantánea y los registros que aún hay que reproducir sobre ella.
+     */
+    Carga<T, R> cargar() throws IOException;
+
+    /**
+     * Se llama una vez aplicada la carga, con el estado resultante.
+     */
+    void completarCarga(List<T> estadoActual) throws IOException;
+
+    /**
+     * Registra un cambio. Se llama con el bloqueo de escritura del repositorio tomado; el cambio solo
+     * se confirma al llamador después de {@link #sincronizar(long)} con la posición devuelta.
+     */
+    long agregar(R registro) throws IOException;
+
+    /**
+     * Espera a que el cambio de esa posición sea durable. Se llama fuera del bloqueo de escritura.
+     */
+    void sincronizar(long posicion) throws IOException;
+
+    /**
+     * Primera fase de la compactación, con el bloqueo de escritura tomado.
+     *
+     * @return false si no hay nada que compactar
+     */
+    boolean rotar() throws IOException;
+
+    /**
+     * Segunda fase de la compactación, sin bloqueo: guarda el estado completo capturado.
+     */
+    void volcar(List<T> estado) throws IOException;
+
+    void cerrar() throws IOException;
+
+    record Carga<T, R>(List<T> instantanea, List<R> registros) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.podiGest.backend.repository;
+
+import com.podiGest.backend.model.SesionGuardada;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Motor de almacenamiento de las sesiones vigentes, que se guardan al detener la aplicación
+ * y se recuperan al arrancar (ver {@link com.podiGest.backend.service.SesionesUsuario}).
+ */
+public interface AlmacenSesiones {
+
+    /**
+     * @return Sesiones guardadas, incluidas las que ya vencieron
+     */
+    List<SesionGuardada> cargar() throws IOException;
+
+    /**
+     * Reemplaza todas las sesiones guardadas por las indicadas.
+     */
+    void guardar(List<SesionGuardada> sesiones) throws IOException;
+}
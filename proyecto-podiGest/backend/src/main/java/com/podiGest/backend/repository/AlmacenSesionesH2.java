@@ -0,0 +1,63 @@
+package com.podiGest.backend.repository;
+
+import com.podiGest.backend.model.SesionGuardada;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Motor H2 de las sesiones guardadas: una fila por token con la cédula del usuario y el vencimiento.
+ * Guardarlas reemplaza la tabla completa en una transacción.
+ */
+public class AlmacenSesionesH2 implements AlmacenSesiones {
+
+    private final Connection conexion;
+
+    public AlmacenSesionesH2(BaseDeDatosH2 base) throws SQLException {
+        this.conexion = base.conectar();
+    }
+
+    @Override
+    public synchronized List<SesionGuardada> cargar() throws IOException {
+        return BaseDeDatosH2.enTransaccion(conexion, c -> {
+            List<SesionGuardada> sesiones = new ArrayList<>();
+            try (Statement sentencia = c.createStatement();
+                 ResultSet filas = sentencia.executeQuery("SELECT token, cedula, vence FROM sesiones")) {
+                while (filas.next()) {
+                    SesionGuardada sesion = new SesionGuardada();
+                    sesion.setToken(filas.getString(1));
+                    sesion.setCedula(filas.getString(2));
+                    sesion.setVence(filas.getLong(3));
+                    sesiones.add(sesion);
+                }
+            }
+            return sesiones;
+        });
+    }
+
+    @Override
+    public synchronized void guardar(List<SesionGuardada> sesiones) throws IOException {
+        BaseDeDatosH2.enTransaccion(conexion, c -> {
+            try (Statement sentencia = c.createStatement()) {
+                sentencia.executeUpdate("DELETE FROM sesiones");
+            }
+            try (PreparedStatement insercion = c.prepareStatement(
+                    "INSERT INTO sesiones (token, cedula, vence) VALUES (?, ?, ?)")) {
+                for (SesionGuardada sesion : sesiones) {
+                    insercion.setString(1, sesion.getToken());
+                    insercion.setString(2, sesion.getCedula());
+                    insercion.setLong(3, sesion.getVence());
+                    insercion.addBatch();
+                }
+                insercion.executeBatch();
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,42 @@
+package com.podiGest.backend.repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.podiGest.backend.model.SesionGuardada;
+import com.podiGest.backend.service.PathConfigService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Motor JSON de las sesiones: sesiones.json.
+ */
+public class AlmacenSesionesJson implements AlmacenSesiones {
+
+    private static final String SESIONES_JSON_FILE = "sesiones.json";
+
+    private final Path path = PathConfigService.getSeedFilePath(SESIONES_JSON_FILE);
+    private final ObjectMapper mapper;
+    private final PersistenciaAtomica persistencia;
+
+    public AlmacenSesionesJson(ObjectMapper mapper, PersistenciaAtomica persistencia) {
+        this.mapper = mapper;
+        this.persistencia = persistencia;
+    }
+
+    @Override
+    public List<SesionGuardada> cargar() throws IOException {
+        if (!Files.exists(path) || Files.size(path) == 0) {
+            return new ArrayList<>();
+        }
+        return mapper.readValue(path.toFile(), new TypeReference<List<SesionGuardada>>() {});
+    }
+
+    @Override
+    public void guardar(List<SesionGuardada> sesiones) throws IOException {
+        persistencia.escribir(path, mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(sesiones));
+    }
+}
@@ -0,0 +1,29 @@
+package com.podiGest.backend.repository;
+
+import com.podiGest.backend.model.Usuario;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Motor de almacenamiento de los usuarios registrados. El directorio en memoria sigue atendiendo las
+ * búsquedas; el motor carga los usuarios al arrancar y hace durable cada alta, cambio o baja.
+ *
+ * Cada cambio recibe además el estado completo del directorio, que solo se genera si el motor reescribe
+ * la colección entera (usuarios.json); la base de datos embebida escribe únicamente la fila afectada.
+ */
+public interface AlmacenUsuarios {
+
+    /**
+     * @return Usuarios en orden de registro
+     */
+    List<Usuario> cargar() throws IOException;
+
+    /**
+     * Inserta o reemplaza (por cédula) al usuario.
+     */
+    void guardar(Usuario usuario, Supplier<List<Usuario>> todos) throws IOException;
+
+    void eliminar(String cedula, Supplier<List<Usuario>> todos) throws IOException;
+}
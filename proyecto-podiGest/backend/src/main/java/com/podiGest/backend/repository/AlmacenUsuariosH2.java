@@ -0,0 +1,96 @@
+package com.podiGest.backend.repository;
+
+import com.podiGest.backend.model.Usuario;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Motor H2 de los usuarios: una fila por usuario, con la cédula como clave primaria, el correo
+ * (sin distinguir mayúsculas) como clave única e índice por rol. Cada cambio escribe solo su fila.
+ *
+ * La primera vez que arranca puede importar usuarios.json desde el motor JSON.
+ */
+public class AlmacenUsuariosH2 implements AlmacenUsuarios {
+
+    private static final String COLECCION = "usuarios";
+    private static final String COLUMNAS = "cedula, nombre, apellido, fecha_nacimiento, correo_electronico, clave_correo, contrasenia, rol";
+    private static final String VALORES = "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final Connection conexion;
+    // Motor JSON del que importar, o null si no se importa
+    private final AlmacenUsuarios origen;
+
+    public AlmacenUsuariosH2(BaseDeDatosH2 base, AlmacenUsuarios origen) throws SQLException {
+        this.conexion = base.conectar();
+        this.origen = origen;
+    }
+
+    @Override
+    public synchronized List<Usuario> cargar() throws IOException {
+        return BaseDeDatosH2.enTransaccion(conexion, c -> {
+            if (origen != null && !BaseDeDatosH2.importada(c, COLECCION)) {
+                List<Usuario> usuarios = origen.cargar();
+                try (PreparedStatement merge = c.prepareStatement("MERGE INTO usuarios (" + COLUMNAS + ") KEY (cedula) " + VALORES)) {
+                    for (Usuario usuario : usuarios) {
+                        escribirUsuario(merge, usuario);
+                        merge.addBatch();
+                    }
+                    merge.executeBatch();
+                }
+                BaseDeDatosH2.marcarImportada(c, COLECCION);
+                System.out.println("INFO: Se importaron " + usuarios.size() + " usuarios a H2");
+            }
+            List<Usuario> usuarios = new ArrayList<>();
+            try (Statement sentencia = c.createStatement();
+                 ResultSet filas = sentencia.executeQuery("SELECT " + COLUMNAS + " FROM usuarios ORDER BY orden")) {
+                while (filas.next()) {
+                    usuarios.add(new Usuario(filas.getString(1), filas.getString(2), filas.getString(3),
+                            filas.getObject(4, LocalDate.class), filas.getString(5), filas.getString(7), filas.getString(8)));
+                }
+            }
+            return usuarios;
+        });
+    }
+
+    @Override
+    public synchronized void guardar(Usuario usuario, Supplier<List<Usuario>> todos) throws IOException {
+        BaseDeDatosH2.enTransaccion(conexion, c -> {
+            try (PreparedStatement merge = c.prepareStatement("MERGE INTO usuarios (" + COLUMNAS + ") KEY (cedula) " + VALORES)) {
+                escribirUsuario(merge, usuario);
+                return merge.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public synchronized void eliminar(String cedula, Supplier<List<Usuario>> todos) throws IOException {
+        BaseDeDatosH2.enTransaccion(conexion, c -> {
+            try (PreparedStatement borrado = c.prepareStatement("DELETE FROM usuarios WHERE cedula = ?")) {
+                borrado.setString(1, cedula);
+                return borrado.executeUpdate();
+            }
+        });
+    }
+
+    private static void escribirUsuario(PreparedStatement sentencia, Usuario usuario) throws SQLException {
+        String correo = usuario.getCorreoElectronico();
+        sentencia.setString(1, usuario.getCedula());
+        sentencia.setString(2, usuario.getNombre());
+        sentencia.setString(3, usuario.getApellido());
+        sentencia.setObject(4, usuario.getFechaNacimiento());
+        sentencia.setString(5, correo);
+        sentencia.setString(6, correo == null ? null : correo.trim().toLowerCase(Locale.ROOT));
+        sentencia.setString(7, usuario.getContrasenia());
+        sentencia.setString(8, usuario.getRol());
+    }
+}
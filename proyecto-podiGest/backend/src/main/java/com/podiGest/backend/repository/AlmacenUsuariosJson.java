@@ -0,0 +1,78 @@
+package com.podiGest.backend.repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.podiGest.backend.model.Usuario;
+import com.podiGest.backend.service.PathConfigService;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Motor JSON de los usuarios: usuarios.json, reescrito completo en cada cambio.
+ */
+public class AlmacenUsuariosJson implements AlmacenUsuarios {
+
+    private static final String USUARIOS_JSON_FILE = "usuarios.json";
+
+    private final Path path = PathConfigService.getSeedFilePath(USUARIOS_JSON_FILE);
+    private final ObjectMapper mapper;
+    private final PersistenciaAtomica persistencia;
+
+    public AlmacenUsuariosJson(ObjectMapper mapper, PersistenciaAtomica persistencia) {
+        this.mapper = mapper;
+        this.persistencia = persistencia;
+    }
+
+    @Override
+    public List<Usuario> cargar() {
+        try {
+            if (Files.exists(path) && Files.size(path) > 0) {
+                return mapper.readValue(path.toFile(), new TypeReference<List<Usuario>>() {});
+            }
+        } catch (IOException e) {
+            System.err.println("ERROR: No se pudo leer el archivo JSON en: " + path);
+        }
+        // Intenta cargar desde el classpath (ej: src/main/resources) si el archivo externo no existe o está vacío
+        List<Usuario> usuarios = cargarDesdeClasspath();
+        if (!usuarios.isEmpty()) {
+            try {
+                // Si encontró usuarios en el classpath, los guarda en la carpeta externa
+                escribir(() -> usuarios);
+            } catch (IOException e) {
+                System.err.println("ERROR: No se pudo inicializar el archivo JSON en: " + path);
+            }
+        }
+        return usuarios;
+    }
+
+    private List<Usuario> cargarDesdeClasspath() {
+        try (InputStream inputStream = new ClassPathResource(USUARIOS_JSON_FILE).getInputStream()) {
+            return mapper.readValue(inputStream, new TypeReference<List<Usuario>>() {});
+        } catch (IOException e) {
+            // No es un error grave, solo significa que no hay un archivo de "semilla" en resources
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public void guardar(Usuario usuario, Supplier<List<Usuario>> todos) throws IOException {
+        escribir(todos);
+    }
+
+    @Override
+    public void eliminar(String cedula, Supplier<List<Usuario>> todos) throws IOException {
+        escribir(todos);
+    }
+
+    private void escribir(Supplier<List<Usuario>> todos) throws IOException {
+        // Reemplazo atómico; las escrituras concurrentes se agrupan y se serializa solo el estado más reciente
+        persistencia.escribir(path, () -> mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(todos.get()));
+    }
+}
@@ -0,0 +1,209 @@
+package com.podiGest.backend.repository;
+
+import com.podiGest.backend.service.PathConfigService;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Base de datos H2 embebida en el proceso (sin servidor), guardada en base_de_datos/podigest.mv.db.
+ * Crea el esquema al abrirse y entrega a cada almacén su propia conexión transaccional.
+ *
+ * Las tablas tienen los índices que corresponden a las consultas de la aplicación (por paciente,
+ * especialista, fecha, destinatario, correo...) y cada cambio se escribe en una única transacción.
+ */
+public class BaseDeDatosH2 {
+
+    private static final String ARCHIVO = "podigest";
+    private static final String USUARIO = "sa";
+
+    private static final List<String> ESQUEMA = List.of(
+            """
+            CREATE TABLE IF NOT EXISTS citas (
+                id VARCHAR(100) PRIMARY KEY,
+                orden BIGINT GENERATED BY DEFAULT AS IDENTITY,
+                paciente_nombre VARCHAR(255),
+                paciente_correo VARCHAR(255),
+                paciente_telefono VARCHAR(50),
+                especialista VARCHAR(255),
+                cedula_especialista VARCHAR(50),
+                especialidad_buscada VARCHAR(255),
+                fecha DATE,
+                hora TIME,
+                razon_consulta VARCHAR(4000),
+                estado VARCHAR(30),
+                fecha_creacion TIMESTAMP WITH TIME ZONE,
+                secuencia BIGINT NOT NULL
+            )""",
+            "CREATE INDEX IF NOT EXISTS citas_orden ON citas (orden)",
+            "CREATE INDEX IF NOT EXISTS citas_paciente ON citas (paciente_correo, fecha, hora)",
+            "CREATE INDEX IF NOT EXISTS citas_cedula_especialista ON citas (cedula_especialista, fecha, hora)",
+            "CREATE INDEX IF NOT EXISTS citas_especialista ON citas (especialista, fecha, hora)",
+            // Búsqueda por nombre sin distinguir mayúsculas, para saber en qué meses tiene citas un especialista
+            "ALTER TABLE citas ADD COLUMN IF NOT EXISTS especialista_minusculas VARCHAR(255) GENERATED ALWAYS AS (LOWER(especialista))",
+            "CREATE INDEX IF NOT EXISTS citas_especialista_minusculas ON citas (especialista_minusculas)",
+            "CREATE INDEX IF NOT EXISTS citas_estado_fecha ON citas (estado, fecha, hora)",
+            "CREATE INDEX IF NOT EXISTS citas_secuencia ON citas (secuencia)",
+            // Particiones mensuales: cada mes es un rango de este índice
+            "CREATE INDEX IF NOT EXISTS citas_fecha ON citas (fecha)",
+            """
+            CREATE TABLE IF NOT EXISTS avisos_cita (
+                id VARCHAR(200) PRIMARY KEY,
+                orden BIGINT GENERATED BY DEFAULT AS IDENTITY,
+                datos CHARACTER LARGE OBJECT NOT NULL
+            )""",
+            "CREATE INDEX IF NOT EXISTS avisos_cita_orden ON avisos_cita (orden)",
+            """
+            CREATE TABLE IF NOT EXISTS notificaciones (
+                id VARCHAR(200) PRIMARY KEY,
+                orden BIGINT GENERATED BY DEFAULT AS IDENTITY,
+                fecha_envio TIMESTAMP,
+                asunto VARCHAR(1000),
+                remitente VARCHAR(255),
+                mensaje VARCHAR(10000),
+                correo_destinatario VARCHAR(255),
+                clave_destinatario VARCHAR(255) NOT NULL,
+                silenciada BOOLEAN NOT NULL,
+                tiene_recordatorio BOOLEAN NOT NULL,
+                fecha_recordatorio TIMESTAMP,
+                recordatorio_activo BOOLEAN NOT NULL,
+                plantilla VARCHAR(100),
+                parametros VARCHAR(10000),
+                secuencia BIGINT NOT NULL
+            )""",
+            "CREATE INDEX IF NOT EXISTS notificaciones_orden ON notificaciones (orden)",
+            "CREATE INDEX IF NOT EXISTS notificaciones_destinatario ON notificaciones (clave_destinatario, orden)",
+            "CREATE INDEX IF NOT EXISTS notificaciones_recordatorio ON notificaciones (recordatorio_activo, fecha_recordatorio)",
+            "CREATE INDEX IF NOT EXISTS notificaciones_secuencia ON notificaciones (secuencia)",
+            """
+            CREATE TABLE IF NOT EXISTS usuarios (
+                cedula VARCHAR(50) PRIMARY KEY,
+                orden BIGINT GENERATED BY DEFAULT AS IDENTITY,
+                nombre VARCHAR(255),
+                apellido VARCHAR(255),
+                fecha_nacimiento DATE,
+                correo_electronico VARCHAR(255),
+                clave_correo VARCHAR(255) UNIQUE,
+                contrasenia VARCHAR(255),
+                rol VARCHAR(30)
+            )""",
+            "CREATE INDEX IF NOT EXISTS usuarios_orden ON usuarios (orden)",
+            "CREATE INDEX IF NOT EXISTS usuarios_rol ON usuarios (rol)",
+            """
+            CREATE TABLE IF NOT EXISTS sesiones (
+                token VARCHAR(100) PRIMARY KEY,
+                cedula VARCHAR(50),
+                vence BIGINT NOT NULL
+            )""",
+            // Las bases anteriores guardaban en cada sesión el usuario completo, con su contraseña
+            "ALTER TABLE sesiones DROP COLUMN IF EXISTS usuario",
+            "ALTER TABLE sesiones DROP COLUMN IF EXISTS ultima",
+            "CREATE INDEX IF NOT EXISTS sesiones_cedula ON sesiones (cedula)",
+            // Colecciones ya importadas desde los archivos JSON
+            """
+            CREATE TABLE IF NOT EXISTS importaciones (
+                coleccion VARCHAR(50) PRIMARY KEY,
+                fecha TIMESTAMP NOT NULL
+            )"""
+    );
+
+    private final String url;
+    // Mantiene la base abierta mientras viva la aplicación, aunque los almacenes cierren sus conexiones
+    private final Connection conexion;
+
+    public BaseDeDatosH2(String url) throws SQLException {
+        // La base la cierra Spring al detenerse, después de que los repositorios y las sesiones guarden lo
+        // suyo; el cierre automático de H2 al apagar la JVM llegaría antes
+        this.url = url.contains("DB_CLOSE_ON_EXIT") ? url : url + ";DB_CLOSE_ON_EXIT=FALSE";
+        this.conexion = DriverManager.getConnection(this.url, USUARIO, "");
+        try (Statement sentencia = conexion.createStatement()) {
+            for (String ddl : ESQUEMA) {
+                sentencia.execute(ddl);
+            }
+            // Cada commit se escribe en disco antes de confirmarse al llamador, como el fsync del journal
+            sentencia.execute("SET WRITE_DELAY 0");
+        }
+        System.out.println("INFO: Base de datos H2 abierta en " + this.url);
+    }
+
+    /**
+     * @return URL de la base en la carpeta de datos semilla (base_de_datos/podigest.mv.db)
+     */
+    public static String urlPorDefecto() {
+        return "jdbc:h2:file:" + PathConfigService.getSeedFilePath(ARCHIVO).toAbsolutePath();
+    }
+
+    /**
+     * @return Conexión nueva sin auto-commit; cada almacén usa la suya y la cierra al cerrarse
+     */
+    Connection conectar() throws SQLException {
+        Connection nueva = DriverManager.getConnection(url, USUARIO, "");
+        nueva.setAutoCommit(false);
+        return nueva;
+    }
+
+    /**
+     * Ejecuta el trabajo en una transacción: confirma si termina bien y la deshace ante cualquier error.
+     * Los errores de SQL se propagan como IOException, igual que los del motor JSON.
+     */
+    static <V> V enTransaccion(Connection conexion, Trabajo<V> trabajo) throws IOException {
+        try {
+            try {
+                V resultado = trabajo.ejecutar(conexion);
+                conexion.commit();
+                return resultado;
+            } catch (SQLException | IOException | RuntimeException e) {
+                conexion.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IOException("Error de la base de datos: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return true si la colección ya se importó desde su archivo JSON
+     */
+    static boolean importada(Connection conexion, String coleccion) throws SQLException {
+        try (PreparedStatement consulta = conexion.prepareStatement("SELECT 1 FROM importaciones WHERE coleccion = ?")) {
+            consulta.setString(1, coleccion);
+            try (ResultSet filas = consulta.executeQuery()) {
+                return filas.next();
+            }
+        }
+    }
+
+    /**
+     * Marca la colección como importada; llamar dentro de la misma transacción que copia sus datos.
+     */
+    static void marcarImportada(Connection conexion, String coleccion) throws SQLException {
+        try (PreparedStatement insercion = conexion.prepareStatement("INSERT INTO importaciones (coleccion, fecha) VALUES (?, ?)")) {
+            insercion.setString(1, coleccion);
+            insercion.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+            insercion.executeUpdate();
+        }
+    }
+
+    /**
+     * Cierra la base aunque algún almacén no haya cerrado su conexión, volcando lo pendiente.
+     */
+    public void cerrar() {
+        try (Statement sentencia = conexion.createStatement()) {
+            sentencia.execute("SHUTDOWN");
+        } catch (SQLException e) {
+            System.err.println("ERROR: No se pudo cerrar la base de datos H2: " + e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    interface Trabajo<V> {
+        V ejecutar(Connection conexion) throws SQLException, IOException;
+    }
+}
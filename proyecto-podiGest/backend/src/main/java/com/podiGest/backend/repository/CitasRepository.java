@@ -0,0 +1,706 @@
+package com.podiGest.backend.repository;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.podiGest.backend.model.AvisoCita;
+import com.podiGest.backend.model.CambiosCitas;
+import com.podiGest.backend.model.Cita;
+import com.podiGest.backend.model.ConsultaCitas;
+import com.podiGest.backend.model.PaginaCitas;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Repositorio en memoria de las citas.
+ * Carga las citas una sola vez al arrancar y atiende todas las lecturas desde memoria.
+ * Las escrituras se registran en el almacén antes de retornar y actualizan en el lugar el mapa por ID y
+ * los índices, que son concurrentes: los lectores nunca se bloquean y cada escritura cuesta lo mismo sin
+ * importar cuántas citas haya en memoria.
+ *
+ * El almacén ({@link AlmacenCitas}) depende del motor configurado: con el motor JSON cada escritura va a
+ * citas.journal, un compactador en segundo plano vuelca periódicamente los meses modificados en sus
+ * particiones (base_de_datos/citas/2026-01.json...) y vacía el journal, y al arrancar se reproduce el journal
+ * sobre las particiones para reconstruir el estado.
+ *
+ * Las citas se guardan particionadas por mes y solo se cargan al arrancar los meses de la ventana activa
+ * ({@code podigest.citas.meses-activos} meses hacia atrás y todos los futuros), las citas sin fecha y los meses
+ * con citas pendientes. Los demás meses se leen la primera vez que una operación los necesita: la ocupación de
+ * un día carga solo su mes y una consulta con rango de fechas solo los meses del rango. Las búsquedas por ID,
+ * paciente o especialista preguntan al almacén en qué meses hay citas que coinciden y leen solo esos; únicamente
+ * el listado de todas las citas carga el historial completo.
+ *
+ * Las citas devueltas son las que están en memoria: para modificarlas se debe trabajar sobre una copia
+ * ({@link Cita#Cita(Cita)}) y guardarla con {@link #guardar(Cita)}.
+ *
+ * Los índices ({@link IndiceCitas}) se actualizan en cada escritura para que las consultas frecuentes,
+ * como comprobar si un horario está ocupado, no tengan que recorrer todas las citas.
+ *
+ * Además guarda la bandeja de salida de avisos ({@link AvisoCita}): cada aviso se escribe en el mismo registro
+ * del journal que el cambio de cita que lo origina y permanece en la bandeja hasta que se confirma su entrega.
+ *
+ * Cada cita guardada recibe un número de secuencia creciente ({@link Cita#getSecuencia()}); el
+ * {@link IndiceSecuencia} las ordena por él para servir los cambios posteriores a una secuencia.
+ */
+@Repository
+public class CitasRepository {
+
+    private static final String TODAS = "";
+
+    private final AlmacenCitas almacen;
+    private final int mesesActivos;
+    private final Object bloqueoEscritura = new Object();
+    private final Object bloqueoCompactacion = new Object();
+    // Serializa la lectura de particiones para no leer dos veces el mismo mes
+    private final Object bloqueoCarga = new Object();
+    private final IndiceOcupacion indiceOcupacion = new IndiceOcupacion();
+    private final IndiceDisponibilidad indiceDisponibilidad = new IndiceDisponibilidad(indiceOcupacion);
+    private final IndiceOrdenado indicePaciente = new IndiceOrdenado(Cita::getPacienteCorreo);
+    private final IndiceOrdenado indiceCedula = new IndiceOrdenado(Cita::getCedulaEspecialista);
+    private final IndiceOrdenado indiceNombreEspecialista = new IndiceOrdenado(cita -> minusculas(cita.getEspecialista()));
+    private final IndiceOrdenado indiceFecha = new IndiceOrdenado(cita -> TODAS);
+    private final IndicePendientes indicePendientes = new IndicePendientes();
+    private final IndiceSecuencia indiceSecuencia = new IndiceSecuencia();
+    private final IndiceOrdenado indiceMes = new IndiceOrdenado(AlmacenCitas::particion);
+    // El orden importa: la disponibilidad consulta la ocupación ya actualizada
+    private final List<IndiceCitas> indices = List.of(indiceOcupacion, indiceDisponibilidad,
+            indicePaciente, indiceCedula, indiceNombreEspecialista, indiceFecha, indicePendientes, indiceSecuencia, indiceMes);
+    // Citas en memoria por ID; solo se escribe con bloqueoEscritura tomado
+    private final Map<String, Cita> porId = new ConcurrentHashMap<>();
+    // Meses guardados que todavía no se leyeron; un mes sale de aquí después de publicarse sus citas
+    private final ConcurrentSkipListMap<String, AlmacenCitas.ResumenParticion> pendientesDeCargar = new ConcurrentSkipListMap<>();
+    // Meses cuya partición guardada ya no coincide con la memoria; protegido por bloqueoEscritura
+    private final Set<String> mesesSucios = new HashSet<>();
+    // Secuencia del último cambio ya visible en los índices; solo se escribe con bloqueoEscritura tomado
+    private volatile long ultimaSecuencia;
+    // Avisos aún no entregados, en orden de creación; protegido por bloqueoEscritura
+    private final Map<String, AvisoCita> bandeja = new LinkedHashMap<>();
+
+    public CitasRepository(AlmacenCitas almacen, @Value("${podigest.citas.meses-activos:3}") int mesesActivos) {
+        this.almacen = almacen;
+        this.mesesActivos = mesesActivos;
+        cargarDesdeDisco();
+    }
+
+    /**
+     * Lee las particiones de la ventana activa y reproduce encima los registros pendientes (el journal).
+     * Los meses que tocan esos registros también se leen, para que la próxima compactación pueda reescribirlos.
+     * Las citas del journal guardadas antes de numerar los cambios reciben su secuencia aquí, en el orden
+     * en que aparecen, después de la mayor secuencia guardada.
+     */
+    private void cargarDesdeDisco() {
+        try {
+            AlmacenRegistros.Carga<Cita, RegistroCitas> carga = almacen.cargar();
+            Map<String, AlmacenCitas.ResumenParticion> particiones = almacen.particiones();
+            String primerMesActivo = YearMonth.now().minusMonths(mesesActivos).toString();
+            long secuencia = 0;
+            Set<String> aLeer = new TreeSet<>();
+            for (Map.Entry<String, AlmacenCitas.ResumenParticion> particion : particiones.entrySet()) {
+                String mes = particion.getKey();
+                secuencia = Math.max(secuencia, particion.getValue().secuenciaMaxima());
+                if (AlmacenCitas.SIN_FECHA.equals(mes) || mes.compareTo(primerMesActivo) >= 0 || particion.getValue().pendientes() > 0) {
+                    aLeer.add(mes);
+                } else {
+                    pendientesDeCargar.put(mes, particion.getValue());
+                }
+            }
+            List<Cita> delJournal = new ArrayList<>();
+            for (RegistroCitas registro : carga.registros()) {
+                for (Cita cita : registro.getCitas()) {
+                    if (cita.getSecuencia() == 0) {
+                        cita.setSecuencia(secuencia + 1);
+                    }
+                    secuencia = Math.max(secuencia, cita.getSecuencia());
+                    delJournal.add(cita);
+                    String mes = AlmacenCitas.particion(cita);
+                    if (pendientesDeCargar.remove(mes) != null) {
+                        aLeer.add(mes);
+                    }
+                }
+                aplicarAvisos(registro);
+            }
+            ultimaSecuencia = secuencia;
+
+            List<Cita> leidas = new ArrayList<>(carga.instantanea());
+            for (String mes : aLeer) {
+                leidas.addAll(almacen.leerParticion(mes));
+            }
+            synchronized (bloqueoEscritura) {
+                incorporar(leidas);
+                incorporar(delJournal);
+                // Cambios que aún no están en sus particiones
+                delJournal.forEach(cita -> mesesSucios.add(AlmacenCitas.particion(cita)));
+            }
+            System.out.println("INFO: Se cargaron " + porId.size() + " citas en memoria de " + aLeer.size()
+                    + " particiones mensuales (meses anteriores sin cargar: " + pendientesDeCargar.size() + ", "
+                    + carga.registros().size() + " registros de journal reproducidos)");
+            almacen.completarCarga(List.copyOf(porId.values()));
+            if (!bandeja.isEmpty()) {
+                // completarCarga pudo descartar el journal a medio compactar que los contenía
+                System.out.println("INFO: " + bandeja.size() + " avisos de citas pendientes de entrega");
+                almacen.sincronizar(almacen.agregar(RegistroCitas.conAvisos(List.copyOf(bandeja.values()))));
+            }
+        } catch (IOException e) {
+            System.err.println("ERROR: No se pudieron cargar las citas: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Agrega las citas leídas al mapa por ID y a los índices; con el bloqueo de escritura tomado.
+     * Si una cita ya está en memoria se conserva la versión con mayor secuencia (una cita que cambió de mes
+     * puede seguir guardada en la partición anterior) y el mes de la copia descartada queda por reescribir.
+     */
+    private void incorporar(List<Cita> leidas) {
+        for (Cita cita : leidas) {
+            Cita actual = porId.get(cita.getId());
+            if (actual == null) {
+                porId.put(cita.getId(), cita);
+                indices.forEach(indice -> indice.agregar(cita));
+            } else if (cita.getSecuencia() > actual.getSecuencia()) {
+                porId.put(cita.getId(), cita);
+                indices.forEach(indice -> indice.reemplazar(actual, cita));
+                mesesSucios.add(AlmacenCitas.particion(actual));
+            } else {
+                mesesSucios.add(AlmacenCitas.particion(cita));
+            }
+        }
+    }
+
+    /**
+     * Lee y publica los meses indicados que todavía no estén en memoria.
+     * Los archivos se leen sin bloquear a los escritores; solo la publicación toma el bloqueo de escritura.
+     */
+    private void asegurarMeses(Collection<String> meses) throws IOException {
+        if (pendientesDeCargar.isEmpty()) {
+            return;
+        }
+        synchronized (bloqueoCarga) {
+            Map<String, List<Cita>> leidas = new TreeMap<>();
+            for (String mes : meses) {
+                if (pendientesDeCargar.containsKey(mes) && !leidas.containsKey(mes)) {
+                    leidas.put(mes, almacen.leerParticion(mes));
+                }
+            }
+            if (leidas.isEmpty()) {
+                return;
+            }
+            List<Cita> citas = new ArrayList<>();
+            leidas.values().forEach(citas::addAll);
+            synchronized (bloqueoEscritura) {
+                incorporar(citas);
+                // Después de publicar: quien ya no vea el mes pendiente encuentra sus citas en memoria
+                pendientesDeCargar.keySet().removeAll(leidas.keySet());
+            }
+            System.out.println("INFO: Se cargaron " + citas.size() + " citas de " + leidas.size()
+                    + " particiones anteriores (" + leidas.keySet() + ")");
+        }
+    }
+
+    /**
+     * Como {@link #asegurarMeses} para las lecturas: si una partición no se puede leer se informa
+     * y la consulta responde con lo que hay en memoria.
+     */
+    private void cargarParaLeer(Collection<String> meses) {
+        try {
+            asegurarMeses(meses);
+        } catch (IOException e) {
+            System.err.println("ERROR: No se pudieron cargar las particiones de citas " + meses + ": " + e.getMessage());
+        }
+    }
+
+    private void cargarParaLeer(LocalDate fecha) {
+        if (!pendientesDeCargar.isEmpty()) {
+            cargarParaLeer(List.of(AlmacenCitas.particion(fecha)));
+        }
+    }
+
+    private void cargarTodo() {
+        if (!pendientesDeCargar.isEmpty()) {
+            cargarParaLeer(List.copyOf(pendientesDeCargar.keySet()));
+        }
+    }
+
+    /**
+     * Carga los meses sin leer que según el almacén tienen citas de la búsqueda.
+     */
+    private void cargarMesesDe(BusquedaMeses busqueda) {
+        Set<String> meses = mesesSinCargarDe(busqueda);
+        if (!meses.isEmpty()) {
+            cargarParaLeer(meses);
+        }
+    }
+
+    /**
+     * @return Meses sin cargar con citas de la búsqueda; si el almacén no puede responder, todos los meses
+     *         sin cargar, para que la búsqueda no pierda citas
+     */
+    private Set<String> mesesSinCargarDe(BusquedaMeses busqueda) {
+        if (pendientesDeCargar.isEmpty()) {
+            return Set.of();
+        }
+        try {
+            Set<String> meses = new TreeSet<>(busqueda.buscar());
+            meses.retainAll(pendientesDeCargar.keySet());
+            return meses;
+        } catch (IOException e) {
+            System.err.println("ERROR: No se pudo consultar en qué particiones buscar las citas: " + e.getMessage());
+            return new TreeSet<>(pendientesDeCargar.keySet());
+        }
+    }
+
+    /**
+     * @return Lista nueva con todas las citas, ordenadas por fecha y hora (carga todo el historial).
+     */
+    public List<Cita> obtenerTodas() {
+        cargarTodo();
+        List<Cita> citas = new ArrayList<>(porId.values());
+        citas.sort(Comparator.comparing(IndiceOrdenado::claveOrden));
+        return citas;
+    }
+
+    public Optional<Cita> buscarPorId(String id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        Cita cita = porId.get(id);
+        if (cita == null && !pendientesDeCargar.isEmpty()) {
+            // El ID no dice de qué mes es: el almacén indica en qué partición está guardada
+            cargarMesesDe(() -> almacen.particionesDeCita(id));
+            cita = porId.get(id);
+        }
+        return Optional.ofNullable(cita);
+    }
+
+    /**
+     * Búsqueda directa en el índice de ocupación.
+     *
+     * @param cedulaEspecialista Cédula del especialista (puede ser null)
+     * @param especialista       Nombre del especialista, para las citas guardadas sin cédula
+     * @return IDs de las citas no canceladas que ocupan ese horario
+     */
+    public Set<String> buscarOcupantes(String cedulaEspecialista, String especialista, LocalDate fecha, LocalTime hora) {
+        cargarParaLeer(fecha);
+        return indiceOcupacion.buscar(cedulaEspecialista, especialista, fecha, hora);
+    }
+
+    /**
+     * @return Citas del paciente (correo exacto) ordenadas por fecha y hora
+     */
+    public List<Cita> buscarPorPaciente(String pacienteCorreo) {
+        if (pacienteCorreo != null) {
+            cargarMesesDe(() -> almacen.particionesDePaciente(pacienteCorreo));
+        }
+        return indicePaciente.listar(pacienteCorreo);
+    }
+
+    /**
+     * @param cedulaEspecialista Cédula exacta (puede ser null)
+     * @param especialista       Nombre del especialista, sin distinguir mayúsculas (puede ser null)
+     * @return Citas que coinciden por cédula o por nombre, ordenadas por fecha y hora
+     */
+    public List<Cita> buscarPorEspecialista(String cedulaEspecialista, String especialista) {
+        cargarMesesDe(() -> almacen.particionesDeEspecialista(cedulaEspecialista, minusculas(especialista)));
+        return IndiceOrdenado.unir(indiceCedula.obtener(cedulaEspecialista),
+                indiceNombreEspecialista.obtener(minusculas(especialista)));
+    }
+
+    /**
+     * @return Citas "pendiente" cuya fecha y hora ya pasaron, sin recorrer las demás. Los meses con
+     *         citas pendientes se cargan siempre al arrancar, así que no hace falta leer ninguna partición.
+     */
+    public List<Cita> buscarPendientesVencidas(LocalDateTime ahora) {
+        return indicePendientes.vencidas(ahora);
+    }
+
+    /**
+     * Consulta paginada sobre el índice global por fecha.
+     */
+    public PaginaCitas consultarTodas(ConsultaCitas consulta) {
+        return consultar(() -> List.of(indiceFecha.obtener(TODAS)), consulta, null);
+    }
+
+    /**
+     * Consulta paginada de las citas del paciente (correo exacto).
+     */
+    public PaginaCitas consultarPorPaciente(String pacienteCorreo, ConsultaCitas consulta) {
+        return consultar(() -> List.of(indicePaciente.obtener(pacienteCorreo)), consulta,
+                () -> pacienteCorreo == null ? Set.of() : almacen.particionesDePaciente(pacienteCorreo));
+    }
+
+    /**
+     * Consulta paginada de las citas del especialista, por cédula exacta o por nombre sin distinguir mayúsculas.
+     */
+    public PaginaCitas consultarPorEspecialista(String cedulaEspecialista, String especialista, ConsultaCitas consulta) {
+        return consultar(() -> List.of(indiceCedula.obtener(cedulaEspecialista),
+                indiceNombreEspecialista.obtener(minusculas(especialista))), consulta,
+                () -> almacen.particionesDeEspecialista(cedulaEspecialista, minusculas(especialista)));
+    }
+
+    /**
+     * Carga los meses del rango de la consulta que falten y la resuelve sobre los índices. Una página
+     * descendente con límite carga los meses de a uno, del más reciente al más antiguo, y se detiene en
+     * cuanto la página queda completa con citas posteriores a todos los meses que faltan.
+     *
+     * @param fuentes    Se vuelven a obtener tras cada carga: un índice sin la clave devuelve un mapa vacío nuevo
+     * @param candidatos Meses guardados con citas de las fuentes, o null si cualquier mes puede tenerlas
+     */
+    private PaginaCitas consultar(Supplier<List<NavigableMap<String, Cita>>> fuentes, ConsultaCitas consulta,
+                                  BusquedaMeses candidatos) {
+        Set<String> conCitas = candidatos == null || mesesSinCargar(consulta).isEmpty() ? null : mesesSinCargarDe(candidatos);
+        while (true) {
+            NavigableSet<String> faltan = new TreeSet<>(mesesSinCargar(consulta).keySet());
+            if (conCitas != null) {
+                faltan.retainAll(conCitas);
+            }
+            if (faltan.isEmpty()) {
+                return IndiceOrdenado.consultar(fuentes.get(), consulta);
+            }
+            List<String> aCargar;
+            if (consulta.esDescendente() && consulta.getLimite() != null) {
+                PaginaCitas pagina = IndiceOrdenado.consultar(fuentes.get(), consulta);
+                if (pagina.getSiguienteCursor() != null) {
+                    Cita ultima = pagina.getCitas().get(pagina.getCitas().size() - 1);
+                    if (AlmacenCitas.particion(ultima).compareTo(faltan.last()) > 0) {
+                        return pagina;
+                    }
+                }
+                aCargar = List.of(faltan.last());
+            } else {
+                aCargar = List.copyOf(faltan);
+            }
+            cargarParaLeer(aCargar);
+            if (aCargar.stream().allMatch(pendientesDeCargar::containsKey)) {
+                // No se pudo leer ninguna partición: se responde con lo que hay en memoria
+                return IndiceOrdenado.consultar(fuentes.get(), consulta);
+            }
+        }
+    }
+
+    /**
+     * @return Meses sin cargar dentro del rango desde/hasta de la consulta (ya validado como yyyy-MM-dd)
+     */
+    private NavigableMap<String, AlmacenCitas.ResumenParticion> mesesSinCargar(ConsultaCitas consulta) {
+        NavigableMap<String, AlmacenCitas.ResumenParticion> meses = pendientesDeCargar;
+        // Los meses sin cargar no tienen citas pendientes
+        if (meses.isEmpty() || "pendiente".equalsIgnoreCase(consulta.getEstado())) {
+            return Collections.emptyNavigableMap();
+        }
+        if (consulta.getDesde() != null) {
+            meses = meses.tailMap(AlmacenCitas.particion(LocalDate.parse(consulta.getDesde())), true);
+        }
+        if (consulta.getHasta() != null) {
+            meses = meses.headMap(AlmacenCitas.particion(LocalDate.parse(consulta.getHasta())), true);
+        }
+        return meses;
+    }
+
+    /**
+     * Registro de cambios: citas guardadas (creadas o modificadas) después de la secuencia {@code desde},
+     * en el orden en que cambiaron.
+     */
+    public CambiosCitas cambiosDesde(long desde, int limite) {
+        return leerCambios(desde, limite, cita -> true, null);
+    }
+
+    /**
+     * Registro de cambios de las citas del especialista, por cédula exacta o por nombre sin distinguir mayúsculas.
+     */
+    public CambiosCitas cambiosPorEspecialista(String cedulaEspecialista, String especialista, long desde, int limite) {
+        String nombre = minusculas(especialista);
+        return leerCambios(desde, limite, cita ->
+                (cedulaEspecialista != null && cedulaEspecialista.equals(cita.getCedulaEspecialista()))
+                        || (nombre != null && nombre.equals(minusculas(cita.getEspecialista()))),
+                () -> almacen.particionesDeEspecialista(cedulaEspecialista, nombre));
+    }
+
+    /**
+     * @param candidatos Meses guardados con citas que pasan el filtro, o null si cualquier mes puede tenerlas
+     */
+    private CambiosCitas leerCambios(long desde, int limite, Predicate<Cita> filtro, BusquedaMeses candidatos) {
+        // Solo hasta la última secuencia publicada: las posteriores pueden estar aún a medio indexar
+        long hasta = ultimaSecuencia;
+        List<Cita> citas = new ArrayList<>();
+        if (desde >= hasta) {
+            return new CambiosCitas(citas, hasta, false);
+        }
+        if (!pendientesDeCargar.isEmpty()) {
+            // Solo los meses que guardan algún cambio posterior a la secuencia pedida
+            Set<String> meses = new TreeSet<>();
+            pendientesDeCargar.forEach((mes, particion) -> {
+                if (particion.secuenciaMaxima() > desde) {
+                    meses.add(mes);
+                }
+            });
+            if (candidatos != null && !meses.isEmpty()) {
+                meses.retainAll(mesesSinCargarDe(candidatos));
+            }
+            if (!meses.isEmpty()) {
+                cargarParaLeer(meses);
+            }
+        }
+        long leida = indiceSecuencia.leer(desde, hasta, limite, filtro, citas);
+        return new CambiosCitas(citas, leida, leida < hasta);
+    }
+
+    /**
+     * @return Mapa de bits de los bloques ocupados del día: el bit {@code h - 8} corresponde a la hora {@code h},
+     *         de 08:00 a 18:00
+     */
+    public int horasOcupadas(String cedulaEspecialista, String especialista, LocalDate fecha) {
+        cargarParaLeer(fecha);
+        return indiceDisponibilidad.ocupadas(cedulaEspecialista, especialista, fecha);
+    }
+
+    /**
+     * Inserta o reemplaza (por ID) una cita y la persiste.
+     */
+    public Cita guardar(Cita cita) throws IOException {
+        guardarTodas(List.of(cita));
+        return cita;
+    }
+
+    /**
+     * Inserta o reemplaza (por ID) una cita y deja el aviso en la bandeja, ambos en el mismo registro del journal.
+     */
+    public Cita guardar(Cita cita, AvisoCita aviso) throws IOException {
+        guardarTodas(List.of(cita), List.of(aviso), false);
+        return cita;
+    }
+
+    /**
+     * Inserta o reemplaza (por ID) un grupo de citas como un único registro del journal.
+     */
+    public void guardarTodas(Collection<Cita> citas) throws IOException {
+        guardarTodas(citas, List.of(), false);
+    }
+
+    /**
+     * Inserta una cita nueva y deja el aviso en la bandeja, ambos en el mismo registro del journal.
+     * A diferencia de {@link #guardar(Cita, AvisoCita)} nunca reemplaza una cita existente.
+     *
+     * @throws IllegalStateException Si ya hay una cita con ese ID (en memoria o en un mes sin cargar)
+     */
+    public Cita insertar(Cita cita, AvisoCita aviso) throws IOException {
+        guardarTodas(List.of(cita), List.of(aviso), true);
+        return cita;
+    }
+
+    private void guardarTodas(Collection<Cita> citas, List<AvisoCita> avisos, boolean soloNuevas) throws IOException {
+        if (citas.isEmpty()) {
+            return;
+        }
+        if (soloNuevas) {
+            // Carga el mes donde esté guardada una cita con el mismo ID, para verla abajo en porId
+            citas.forEach(cita -> buscarPorId(cita.getId()));
+        }
+        // El mes de cada cita debe estar en memoria para que la compactación reescriba su partición completa
+        if (!pendientesDeCargar.isEmpty()) {
+            asegurarMeses(citas.stream().map(AlmacenCitas::particion).toList());
+        }
+        long posicion;
+        synchronized (bloqueoEscritura) {
+            if (soloNuevas) {
+                for (Cita cita : citas) {
+                    if (porId.containsKey(cita.getId())) {
+                        throw new IllegalStateException("Ya existe una cita con el ID " + cita.getId() + ".");
+                    }
+                }
+            }
+            List<Cita> copias = new ArrayList<>(citas.size());
+            long secuencia = ultimaSecuencia;
+            for (Cita cita : citas) {
+                Cita copia = new Cita(cita);
+                copia.setSecuencia(++secuencia);
+                copias.add(copia);
+            }
+            RegistroCitas registro = new RegistroCitas(copias);
+            registro.setAvisos(avisos);
+            posicion = almacen.agregar(registro);
+            aplicarAvisos(registro);
+
+            for (Cita copia : copias) {
+                Cita anterior = porId.put(copia.getId(), copia);
+                mesesSucios.add(AlmacenCitas.particion(copia));
+                if (anterior != null) {
+                    mesesSucios.add(AlmacenCitas.particion(anterior));
+                }
+                for (IndiceCitas indice : indices) {
+                    if (anterior != null) {
+                        indice.reemplazar(anterior, copia);
+                    } else {
+                        indice.agregar(copia);
+                    }
+                }
+            }
+            ultimaSecuencia = secuencia;
+        }
+        // El fsync se comparte con otros escritores concurrentes (group commit)
+        almacen.sincronizar(posicion);
+    }
+
+    /**
+     * @return Avisos de la bandeja que todavía no se confirmaron, en orden de creación
+     */
+    public List<AvisoCita> avisosPendientes() {
+        synchronized (bloqueoEscritura) {
+            return List.copyOf(bandeja.values());
+        }
+    }
+
+    /**
+     * Saca el aviso de la bandeja una vez entregadas sus notificaciones.
+     */
+    public void confirmarAviso(String avisoId) throws IOException {
+        long posicion;
+        synchronized (bloqueoEscritura) {
+            if (!bandeja.containsKey(avisoId)) {
+                return;
+            }
+            RegistroCitas registro = new RegistroCitas();
+            registro.setAvisosEntregados(List.of(avisoId));
+            posicion = almacen.agregar(registro);
+            aplicarAvisos(registro);
+        }
+        almacen.sincronizar(posicion);
+    }
+
+    private void aplicarAvisos(RegistroCitas registro) {
+        for (AvisoCita aviso : registro.getAvisos()) {
+            bandeja.put(aviso.getId(), aviso);
+        }
+        registro.getAvisosEntregados().forEach(bandeja::remove);
+    }
+
+    /**
+     * Vuelca en sus particiones los meses modificados desde la última compactación y descarta los registros
+     * ya incluidos en ellas. Los escritores solo se bloquean mientras se rota el journal y se copian esos meses,
+     * no mientras se escriben los archivos.
+     */
+    @Scheduled(fixedDelayString = "${podigest.journal.compactacion-ms:300000}",
+               initialDelayString = "${podigest.journal.compactacion-ms:300000}")
+    public void compactar() {
+        compactar(false);
+    }
+
+    /**
+     * Carga todo el historial y lo vuelca completo aunque el journal esté vacío, reescribiendo
+     * todas las particiones en el formato actual (ver {@link MigracionFechas}).
+     */
+    public void reescribir() {
+        cargarTodo();
+        compactar(true);
+    }
+
+    private void compactar(boolean forzar) {
+        synchronized (bloqueoCompactacion) {
+            Map<String, List<Cita>> particiones = new TreeMap<>();
+            try {
+                List<Cita> aVolcar = List.of();
+                long posicion = -1;
+                synchronized (bloqueoEscritura) {
+                    boolean rotado = almacen.rotar();
+                    if (!rotado && !forzar) {
+                        return;
+                    }
+                    if (forzar) {
+                        // Con el bloqueo tomado la copia no incluye escrituras a medio aplicar
+                        aVolcar = List.copyOf(porId.values());
+                    }
+                    for (String mes : mesesSucios) {
+                        particiones.put(mes, new ArrayList<>(indiceMes.obtener(mes).values()));
+                    }
+                    mesesSucios.clear();
+                    // Las particiones solo guardan citas: los avisos pendientes pasan al journal nuevo
+                    if (rotado && !bandeja.isEmpty()) {
+                        posicion = almacen.agregar(RegistroCitas.conAvisos(List.copyOf(bandeja.values())));
+                    }
+                }
+                if (posicion >= 0) {
+                    almacen.sincronizar(posicion);
+                }
+                if (forzar) {
+                    almacen.volcar(aVolcar);
+                    System.out.println("INFO: Citas reescritas en sus particiones (" + aVolcar.size() + " citas)");
+                } else {
+                    almacen.volcarParticiones(particiones);
+                    System.out.println("INFO: Journal de citas compactado (" + particiones.size() + " meses reescritos: " + particiones.keySet() + ")");
+                }
+            } catch (IOException e) {
+                System.err.println("ERROR: No se pudo compactar el journal de citas: " + e.getMessage());
+                synchronized (bloqueoEscritura) {
+                    mesesSucios.addAll(particiones.keySet());
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() throws IOException {
+        compactar();
+        almacen.cerrar();
+    }
+
+    /**
+     * Registro del journal: versión completa de las citas insertadas o modificadas en una escritura,
+     * junto con los avisos que esa escritura agrega a la bandeja o confirma como entregados.
+     */
+    @Data
+    public static class RegistroCitas {
+        private List<Cita> citas = new ArrayList<>();
+        @JsonInclude(JsonInclude.Include.NON_EMPTY)
+        private List<AvisoCita> avisos = new ArrayList<>();
+        @JsonInclude(JsonInclude.Include.NON_EMPTY)
+        private List<String> avisosEntregados = new ArrayList<>();
+
+        public RegistroCitas() {
+        }
+
+        public RegistroCitas(List<Cita> citas) {
+            this.citas = citas;
+        }
+
+        static RegistroCitas conAvisos(List<AvisoCita> avisos) {
+            RegistroCitas registro = new RegistroCitas();
+            registro.setAvisos(avisos);
+            return registro;
+        }
+    }
+
+    /**
+     * Consulta al almacén de los meses guardados que contienen las citas buscadas.
+     */
+    @FunctionalInterface
+    private interface BusquedaMeses {
+        Set<String> buscar() throws IOException;
+    }
+
+    private static String minusculas(String texto) {
+        return texto == null ? null : texto.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,119 @@
+package com.podiGest.backend.repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.podiGest.backend.model.Notificacion;
+import com.podiGest.backend.repository.NotificacionesRepository.RegistroNotificacion;
+import com.podiGest.backend.service.PathConfigService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Elige el motor de almacenamiento de citas, notificaciones, usuarios y sesiones con la propiedad
+ * {@value #PROPIEDAD_MOTOR}:
+ * <ul>
+ *   <li>{@code json} (por defecto): archivos JSON en base_de_datos, con journal para citas y notificaciones;
+ *       las citas en un archivo por mes (base_de_datos/citas).</li>
+ *   <li>{@code h2}: base de datos H2 embebida en base_de_datos/podigest.mv.db. Con
+ *       {@code podigest.almacenamiento.h2.importar-json=true} (por defecto) cada colección se importa
+ *       una sola vez desde sus archivos JSON la primera vez que arranca con este motor.</li>
+ * </ul>
+ * Los repositorios no cambian: siguen atendiendo las lecturas desde sus índices en memoria
+ * (las citas, además, cargan sus meses antiguos solo cuando una consulta los necesita).
+ */
+@Configuration
+public class ConfiguracionAlmacenamiento {
+
+    public static final String PROPIEDAD_MOTOR = "podigest.almacenamiento.motor";
+
+    private static final String NOTIFICACIONES_JSON_FILE = "notificaciones.json";
+    private static final String NOTIFICACIONES_JOURNAL_FILE = "notificaciones.journal";
+
+    public static ObjectMapper crearMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        return mapper;
+    }
+
+    public static AlmacenCitasJson citasJson(PersistenciaAtomica persistencia) {
+        return new AlmacenCitasJson(crearMapper(), persistencia);
+    }
+
+    public static AlmacenConJournal<Notificacion, RegistroNotificacion> notificacionesJson(PersistenciaAtomica persistencia) {
+        return notificacionesJson(PathConfigService.getSeedDataDirectory(), persistencia);
+    }
+
+    public static AlmacenConJournal<Notificacion, RegistroNotificacion> notificacionesJson(Path carpeta, PersistenciaAtomica persistencia) {
+        return new AlmacenConJournal<>(carpeta, NOTIFICACIONES_JSON_FILE, NOTIFICACIONES_JOURNAL_FILE,
+                new TypeReference<List<Notificacion>>() {}, RegistroNotificacion.class, crearMapper(), persistencia);
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = PROPIEDAD_MOTOR, havingValue = "json", matchIfMissing = true)
+    static class MotorJson {
+
+        @Bean
+        AlmacenCitas almacenCitas(PersistenciaAtomica persistencia) {
+            return citasJson(persistencia);
+        }
+
+        @Bean
+        AlmacenRegistros<Notificacion, RegistroNotificacion> almacenNotificaciones(PersistenciaAtomica persistencia) {
+            return notificacionesJson(persistencia);
+        }
+
+        @Bean
+        AlmacenUsuarios almacenUsuarios(PersistenciaAtomica persistencia) {
+            return new AlmacenUsuariosJson(crearMapper(), persistencia);
+        }
+
+        @Bean
+        AlmacenSesiones almacenSesiones(PersistenciaAtomica persistencia) {
+            return new AlmacenSesionesJson(crearMapper(), persistencia);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = PROPIEDAD_MOTOR, havingValue = "h2")
+    static class MotorH2 {
+
+        private final boolean importarJson;
+
+        MotorH2(@Value("${podigest.almacenamiento.h2.importar-json:true}") boolean importarJson) {
+            this.importarJson = importarJson;
+        }
+
+        // Los repositorios cierran sus almacenes al detenerse; la base se cierra después que ellos
+        @Bean(destroyMethod = "cerrar")
+        BaseDeDatosH2 baseDeDatosH2(@Value("${podigest.almacenamiento.h2.url:}") String url) throws SQLException {
+            return new BaseDeDatosH2(url.isBlank() ? BaseDeDatosH2.urlPorDefecto() : url);
+        }
+
+        @Bean
+        AlmacenCitas almacenCitas(BaseDeDatosH2 base, PersistenciaAtomica persistencia) throws SQLException {
+            return new AlmacenCitasH2(base, crearMapper(), importarJson ? citasJson(persistencia) : null);
+        }
+
+        @Bean
+        AlmacenRegistros<Notificacion, RegistroNotificacion> almacenNotificaciones(BaseDeDatosH2 base, PersistenciaAtomica persistencia) throws SQLException {
+            return new AlmacenNotificacionesH2(base, crearMapper(), importarJson ? notificacionesJson(persistencia) : null);
+        }
+
+        @Bean
+        AlmacenUsuarios almacenUsuarios(BaseDeDatosH2 base, PersistenciaAtomica persistencia) throws SQLException {
+            return new AlmacenUsuariosH2(base, importarJson ? new AlmacenUsuariosJson(crearMapper(), persistencia) : null);
+        }
+
+        @Bean
+        AlmacenSesiones almacenSesiones(BaseDeDatosH2 base) throws SQLException {
+            return new AlmacenSesionesH2(base);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.podiGest.backend.repository;
+
+import com.podiGest.backend.model.Cita;
+
+/**
+ * Índice en memoria sobre las citas, mantenido por {@link CitasRepository} en cada escritura.
+ * El repositorio llama a {@link #reemplazar} (o a {@link #agregar} para las citas nuevas) siempre con su
+ * bloqueo de escritura tomado; las consultas pueden hacerse concurrentemente.
+ */
+interface IndiceCitas {
+
+    void agregar(Cita cita);
+
+    void quitar(Cita cita);
+
+    /**
+     * Sustituye la versión anterior de una cita por la nueva. Los índices que se consultan sin bloqueo
+     * pueden sobrescribirlo para que la cita nunca desaparezca momentáneamente de una consulta.
+     */
+    default void reemplazar(Cita anterior, Cita nueva) {
+        quitar(anterior);
+        agregar(nueva);
+    }
+}
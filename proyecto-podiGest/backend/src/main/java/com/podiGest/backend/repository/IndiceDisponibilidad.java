@@ -0,0 +1,91 @@
+package com.podiGest.backend.repository;
+
+import com.podiGest.backend.model.Cita;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mapa de bits por (especialista, día) con los bloques de una hora ocupados entre las 08:00 y las 18:00.
+ * El bit {@code h - 8} está encendido si la hora {@code h} tiene al menos una cita no cancelada.
+ *
+ * Usa las mismas claves que {@link IndiceOcupacion} (cédula, o nombre para las citas sin cédula).
+ * Al quitar una cita se consulta ese índice antes de apagar el bit, porque pueden existir citas antiguas
+ * duplicadas en el mismo horario; por eso debe actualizarse después de él.
+ */
+class IndiceDisponibilidad implements IndiceCitas {
+
+    private static final int HORA_INICIO = 8;
+    private static final int HORA_FIN = 18;
+
+    private final IndiceOcupacion ocupacion;
+    private final Map<Dia, Integer> ocupadas = new ConcurrentHashMap<>();
+
+    IndiceDisponibilidad(IndiceOcupacion ocupacion) {
+        this.ocupacion = ocupacion;
+    }
+
+    @Override
+    public void agregar(Cita cita) {
+        int bit = bit(cita);
+        if (bit == 0 || "cancelada".equals(cita.getEstado())) {
+            return;
+        }
+        ocupadas.merge(claveDe(cita), bit, (actual, nuevo) -> actual | nuevo);
+    }
+
+    @Override
+    public void quitar(Cita cita) {
+        int bit = bit(cita);
+        if (bit == 0 || "cancelada".equals(cita.getEstado())) {
+            return;
+        }
+        boolean sigueOcupada = cita.getCedulaEspecialista() != null
+                ? !ocupacion.buscar(cita.getCedulaEspecialista(), null, cita.getFecha(), cita.getHora()).isEmpty()
+                : !ocupacion.buscar(null, cita.getEspecialista(), cita.getFecha(), cita.getHora()).isEmpty();
+        if (sigueOcupada) {
+            return;
+        }
+        ocupadas.computeIfPresent(claveDe(cita), (clave, actual) -> {
+            int restantes = actual & ~bit;
+            return restantes == 0 ? null : restantes;
+        });
+    }
+
+    /**
+     * @return Bits de las horas ocupadas del especialista en la fecha
+     */
+    public int ocupadas(String cedulaEspecialista, String especialista, LocalDate fecha) {
+        int bits = ocupadas.getOrDefault(new Dia(false, especialista, fecha), 0);
+        if (cedulaEspecialista != null) {
+            bits |= ocupadas.getOrDefault(new Dia(true, cedulaEspecialista, fecha), 0);
+        }
+        return bits;
+    }
+
+    /**
+     * @return El bit de la hora (ej: 09:00), o 0 si no es un bloque válido de la agenda
+     */
+    private static int bit(Cita cita) {
+        LocalTime hora = cita.getHora();
+        if (hora == null || hora.getMinute() != 0 || hora.getSecond() != 0) {
+            return 0;
+        }
+        int h = hora.getHour();
+        return h >= HORA_INICIO && h <= HORA_FIN ? 1 << (h - HORA_INICIO) : 0;
+    }
+
+    private static Dia claveDe(Cita cita) {
+        return cita.getCedulaEspecialista() != null
+                ? new Dia(true, cita.getCedulaEspecialista(), cita.getFecha())
+                : new Dia(false, cita.getEspecialista(), cita.getFecha());
+    }
+
+    /**
+     * @param porCedula true si {@code especialista} es la cédula, false si es el nombre
+     */
+    private record Dia(boolean porCedula, String especialista, LocalDate fecha) {
+    }
+}
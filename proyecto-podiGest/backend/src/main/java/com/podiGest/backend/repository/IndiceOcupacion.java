@@ -0,0 +1,81 @@
+package com.podiGest.backend.repository;
+
+import com.podiGest.backend.model.Cita;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice de ocupación de horarios: (especialista, fecha, hora) -> IDs de las citas no canceladas en ese horario.
+ *
+ * Reproduce la regla de choque que ya usaba el servicio: una cita con cédula de especialista ocupa el horario
+ * de esa cédula, y una cita antigua sin cédula ocupa el horario del nombre del especialista.
+ * Así comprobar un choque es una búsqueda directa, sin importar cuántas citas haya guardadas.
+ */
+class IndiceOcupacion implements IndiceCitas {
+
+    private final Map<Horario, Set<String>> ocupantes = new ConcurrentHashMap<>();
+
+    @Override
+    public void agregar(Cita cita) {
+        if (!ocupa(cita)) {
+            return;
+        }
+        ocupantes.compute(claveDe(cita), (clave, ids) -> {
+            Set<String> nuevos = ids == null ? new HashSet<>() : new HashSet<>(ids);
+            nuevos.add(cita.getId());
+            return Set.copyOf(nuevos);
+        });
+    }
+
+    @Override
+    public void quitar(Cita cita) {
+        if (!ocupa(cita)) {
+            return;
+        }
+        ocupantes.computeIfPresent(claveDe(cita), (clave, ids) -> {
+            Set<String> nuevos = new HashSet<>(ids);
+            nuevos.remove(cita.getId());
+            return nuevos.isEmpty() ? null : Set.copyOf(nuevos);
+        });
+    }
+
+    /**
+     * @return IDs de las citas que ocupan el horario del especialista, identificado por su cédula
+     *         y/o por su nombre (para las citas guardadas sin cédula).
+     */
+    public Set<String> buscar(String cedulaEspecialista, String especialista, LocalDate fecha, LocalTime hora) {
+        Set<String> porCedula = cedulaEspecialista == null ? Set.of()
+                : ocupantes.getOrDefault(new Horario(true, cedulaEspecialista, fecha, hora), Set.of());
+        Set<String> porNombre = ocupantes.getOrDefault(new Horario(false, especialista, fecha, hora), Set.of());
+        if (porNombre.isEmpty()) {
+            return porCedula;
+        }
+        if (porCedula.isEmpty()) {
+            return porNombre;
+        }
+        Set<String> ambos = new HashSet<>(porCedula);
+        ambos.addAll(porNombre);
+        return ambos;
+    }
+
+    private static boolean ocupa(Cita cita) {
+        return !"cancelada".equals(cita.getEstado());
+    }
+
+    private static Horario claveDe(Cita cita) {
+        return cita.getCedulaEspecialista() != null
+                ? new Horario(true, cita.getCedulaEspecialista(), cita.getFecha(), cita.getHora())
+                : new Horario(false, cita.getEspecialista(), cita.getFecha(), cita.getHora());
+    }
+
+    /**
+     * @param porCedula true si {@code especialista} es la cédula, false si es el nombre
+     */
+    private record Horario(boolean porCedula, String especialista, LocalDate fecha, LocalTime hora) {
+    }
+}
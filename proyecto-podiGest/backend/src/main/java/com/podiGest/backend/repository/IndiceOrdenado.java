@@ -0,0 +1,223 @@
+package com.podiGest.backend.repository;
+
+import com.podiGest.backend.model.Cita;
+import com.podiGest.backend.model.ConsultaCitas;
+import com.podiGest.backend.model.PaginaCitas;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+/**
+ * Índice hash por un campo de la cita (ej: correo del paciente), donde cada clave guarda sus citas
+ * ordenadas por fecha y hora. Una consulta cuesta lo mismo que el tamaño de su resultado,
+ * sin importar cuántas citas haya en total.
+ *
+ * Con un campo constante sirve como índice global ordenado por fecha.
+ */
+class IndiceOrdenado implements IndiceCitas {
+
+    private final Function<Cita, String> campo;
+    private final Map<String, ConcurrentSkipListMap<String, Cita>> porClave = new ConcurrentHashMap<>();
+
+    /**
+     * @param campo Extrae la clave de la cita; si devuelve null la cita no se indexa
+     */
+    IndiceOrdenado(Function<Cita, String> campo) {
+        this.campo = campo;
+    }
+
+    @Override
+    public void agregar(Cita cita) {
+        String clave = campo.apply(cita);
+        if (clave != null) {
+            porClave.computeIfAbsent(clave, k -> new ConcurrentSkipListMap<>()).put(claveOrden(cita), cita);
+        }
+    }
+
+    @Override
+    public void quitar(Cita cita) {
+        String clave = campo.apply(cita);
+        if (clave == null) {
+            return;
+        }
+        porClave.computeIfPresent(clave, (k, citas) -> {
+            citas.remove(claveOrden(cita));
+            return citas.isEmpty() ? null : citas;
+        });
+    }
+
+    /**
+     * Agrega la versión nueva antes de quitar la anterior: si la clave y el orden no cambian,
+     * la entrada simplemente se sobrescribe.
+     */
+    @Override
+    public void reemplazar(Cita anterior, Cita nueva) {
+        agregar(nueva);
+        if (!Objects.equals(campo.apply(anterior), campo.apply(nueva))
+                || !claveOrden(anterior).equals(claveOrden(nueva))) {
+            quitar(anterior);
+        }
+    }
+
+    /**
+     * @return Citas de la clave ordenadas por fecha y hora, indexadas por {@link #claveOrden(Cita)}
+     */
+    NavigableMap<String, Cita> obtener(String clave) {
+        if (clave == null) {
+            return new ConcurrentSkipListMap<>();
+        }
+        NavigableMap<String, Cita> citas = porClave.get(clave);
+        return citas == null ? new ConcurrentSkipListMap<>() : citas;
+    }
+
+    List<Cita> listar(String clave) {
+        return new ArrayList<>(obtener(clave).values());
+    }
+
+    /**
+     * Une los resultados de dos índices manteniendo el orden por fecha y sin repetir citas.
+     */
+    static List<Cita> unir(NavigableMap<String, Cita> primero, NavigableMap<String, Cita> segundo) {
+        if (segundo.isEmpty()) {
+            return new ArrayList<>(primero.values());
+        }
+        if (primero.isEmpty()) {
+            return new ArrayList<>(segundo.values());
+        }
+        NavigableMap<String, Cita> union = new TreeMap<>(primero);
+        union.putAll(segundo);
+        return new ArrayList<>(union.values());
+    }
+
+    /**
+     * Recorre en orden las citas de una o más fuentes (ej: índice por cédula y por nombre) aplicando el rango
+     * de fechas, el estado y el cursor, y se detiene al completar la página. Cada fuente se posiciona
+     * directamente en el cursor, así que llegar a una página profunda no recorre las anteriores; el filtro por
+     * estado, en cambio, sí recorre y descarta las citas de otros estados dentro del rango.
+     *
+     * Un cursor fuera del rango desde/hasta (ej: si el cliente cambió el rango y conservó el cursor) se
+     * ajusta al rango: uno anterior al rango no recorta nada y uno posterior deja la página vacía.
+     */
+    static PaginaCitas consultar(List<NavigableMap<String, Cita>> fuentes, ConsultaCitas consulta) {
+        boolean descendente = consulta.esDescendente();
+        String cursor = consulta.getCursor() == null ? null : decodificarCursor(consulta.getCursor());
+        int limite = consulta.getLimite() == null ? Integer.MAX_VALUE : consulta.getLimite();
+
+        // Límite inferior (incluido salvo que sea el cursor ascendente) y superior (excluido)
+        String inferior = consulta.getDesde();
+        boolean inferiorIncluido = true;
+        // "U" ordena después de "T", así el límite superior cubre el día completo
+        String superior = consulta.getHasta() == null ? null : consulta.getHasta() + "U";
+        if (cursor != null) {
+            if (descendente) {
+                if (superior == null || cursor.compareTo(superior) < 0) {
+                    superior = cursor;
+                }
+            } else if (inferior == null || cursor.compareTo(inferior) >= 0) {
+                inferior = cursor;
+                inferiorIncluido = false;
+            }
+        }
+        boolean rangoVacio = inferior != null && superior != null && inferior.compareTo(superior) >= 0;
+
+        List<IteradorConActual> iteradores = new ArrayList<>(fuentes.size());
+        for (NavigableMap<String, Cita> fuente : fuentes) {
+            if (rangoVacio) {
+                break;
+            }
+            NavigableMap<String, Cita> vista = fuente;
+            if (inferior != null) {
+                vista = vista.tailMap(inferior, inferiorIncluido);
+            }
+            if (superior != null) {
+                vista = vista.headMap(superior, false);
+            }
+            if (descendente) {
+                vista = vista.descendingMap();
+            }
+            iteradores.add(new IteradorConActual(vista.entrySet().iterator()));
+        }
+
+        List<Cita> pagina = new ArrayList<>();
+        String ultimaClave = null;
+        boolean hayMas = false;
+        while (true) {
+            IteradorConActual siguiente = null;
+            for (IteradorConActual iterador : iteradores) {
+                if (iterador.actual == null) {
+                    continue;
+                }
+                if (siguiente == null) {
+                    siguiente = iterador;
+                } else {
+                    int comparacion = iterador.actual.getKey().compareTo(siguiente.actual.getKey());
+                    if (comparacion == 0) {
+                        // La misma cita en dos fuentes: se descarta el duplicado
+                        iterador.avanzar();
+                    } else if (descendente ? comparacion > 0 : comparacion < 0) {
+                        siguiente = iterador;
+                    }
+                }
+            }
+            if (siguiente == null) {
+                break;
+            }
+            Map.Entry<String, Cita> entrada = siguiente.actual;
+            siguiente.avanzar();
+
+            if (consulta.getEstado() != null && !consulta.getEstado().equalsIgnoreCase(entrada.getValue().getEstado())) {
+                continue;
+            }
+            if (pagina.size() == limite) {
+                hayMas = true;
+                break;
+            }
+            pagina.add(entrada.getValue());
+            ultimaClave = entrada.getKey();
+        }
+        return new PaginaCitas(pagina, hayMas ? codificarCursor(ultimaClave) : null);
+    }
+
+    private static String codificarCursor(String claveOrden) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(claveOrden.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodificarCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("El cursor no es válido.");
+        }
+    }
+
+    /**
+     * Clave de orden única: fecha, hora e ID (ej: "2026-01-13T09:00|CITA-123").
+     */
+    static String claveOrden(Cita cita) {
+        return Objects.toString(cita.getFecha(), "") + "T" + Objects.toString(cita.getHora(), "") + "|" + cita.getId();
+    }
+
+    private static final class IteradorConActual {
+        private final Iterator<Map.Entry<String, Cita>> iterador;
+        private Map.Entry<String, Cita> actual;
+
+        private IteradorConActual(Iterator<Map.Entry<String, Cita>> iterador) {
+            this.iterador = iterador;
+            avanzar();
+        }
+
+        private void avanzar() {
+            actual = iterador.hasNext() ? iterador.next() : null;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.podiGest.backend.repository;
+
+import com.podiGest.backend.model.Cita;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Citas en estado "pendiente" ordenadas por fecha y hora de atención.
+ * Permite encontrar las citas cuya hora ya pasó consultando solo el inicio del índice:
+ * si ninguna venció, la consulta no recorre nada.
+ */
+class IndicePendientes implements IndiceCitas {
+
+    private static final DateTimeFormatter FORMATO_CLAVE = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+    // Ordena después de "|" (separador del ID en la clave), así el límite incluye todo el minuto
+    private static final String FIN_DEL_MINUTO = "}";
+
+    private final ConcurrentSkipListMap<String, Cita> pendientes = new ConcurrentSkipListMap<>();
+
+    @Override
+    public void agregar(Cita cita) {
+        if (!"pendiente".equalsIgnoreCase(cita.getEstado())) {
+            return;
+        }
+        if (cita.getFecha() == null || cita.getHora() == null) {
+            System.err.println("ERROR: La cita pendiente " + cita.getId() + " no tiene fecha u hora; no se completará automáticamente");
+            return;
+        }
+        pendientes.put(IndiceOrdenado.claveOrden(cita), cita);
+    }
+
+    @Override
+    public void quitar(Cita cita) {
+        pendientes.remove(IndiceOrdenado.claveOrden(cita));
+    }
+
+    /**
+     * @return Citas pendientes cuya fecha y hora ya pasaron, de la más antigua a la más reciente
+     */
+    List<Cita> vencidas(LocalDateTime ahora) {
+        String limite = ahora.truncatedTo(ChronoUnit.MINUTES).format(FORMATO_CLAVE) + FIN_DEL_MINUTO;
+        return new ArrayList<>(pendientes.headMap(limite).values());
+    }
+}
@@ -0,0 +1,60 @@
+package com.podiGest.backend.repository;
+
+import com.podiGest.backend.model.Cita;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+/**
+ * Registro ordenado de cambios: la versión actual de cada cita, ordenada por el número de secuencia
+ * de su último cambio. Leer los cambios posteriores a una secuencia cuesta lo que esos cambios,
+ * no lo que el total de citas.
+ *
+ * Solo se conserva la última versión de cada cita: quien lee el registro recibe el estado actual
+ * de cada cita cambiada, no cada versión intermedia.
+ */
+class IndiceSecuencia implements IndiceCitas {
+
+    private final ConcurrentSkipListMap<Long, Cita> porSecuencia = new ConcurrentSkipListMap<>();
+
+    @Override
+    public void agregar(Cita cita) {
+        porSecuencia.put(cita.getSecuencia(), cita);
+    }
+
+    @Override
+    public void quitar(Cita cita) {
+        porSecuencia.remove(cita.getSecuencia(), cita);
+    }
+
+    /**
+     * Agrega la versión nueva antes de quitar la anterior, para que la cita no falte en una lectura concurrente.
+     */
+    @Override
+    public void reemplazar(Cita anterior, Cita nueva) {
+        agregar(nueva);
+        quitar(anterior);
+    }
+
+    /**
+     * @param desde  Secuencia exclusiva desde la que se leen cambios
+     * @param hasta  Secuencia inclusiva hasta la que se leen (la última publicada)
+     * @param limite Cantidad máxima de citas a devolver
+     * @param filtro Citas que interesan; las demás se saltan sin contar para el límite
+     * @param citas  Recibe las citas cambiadas, en orden de secuencia
+     * @return Secuencia hasta la que se leyó: la de la última cita devuelta si se alcanzó el límite, o {@code hasta}
+     */
+    long leer(long desde, long hasta, int limite, Predicate<Cita> filtro, List<Cita> citas) {
+        for (Map.Entry<Long, Cita> entrada : porSecuencia.subMap(desde, false, hasta, true).entrySet()) {
+            if (filtro.test(entrada.getValue())) {
+                citas.add(entrada.getValue());
+                if (citas.size() == limite) {
+                    return entrada.getKey();
+                }
+            }
+        }
+        return hasta;
+    }
+}
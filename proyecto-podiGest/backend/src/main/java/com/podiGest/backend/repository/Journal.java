@@ -0,0 +1,211 @@
+package com.podiGest.backend.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Archivo de registros de solo-agregado (una línea JSON por registro).
+ * Cada mutación se escribe como un registro pequeño en lugar de reescribir el archivo completo,
+ * por lo que el costo de escritura no depende de la cantidad de datos ya guardados.
+ *
+ * Si el proceso muere a mitad de una escritura, la última línea queda incompleta:
+ * al abrir el journal esa línea se descarta y el archivo se recorta hasta el último registro válido.
+ * Si la escritura falla sin que el proceso muera (ej: disco lleno), el archivo se recorta en ese momento;
+ * si tampoco se puede recortar, el journal rechaza las escrituras siguientes hasta la próxima rotación.
+ *
+ * La escritura y el fsync están separados ({@link #escribir} / {@link #sincronizar}) para que los
+ * repositorios puedan liberar su bloqueo antes de esperar al disco: el primer hilo que llega a
+ * sincronizar hace un único fsync que cubre todo lo escrito hasta ese momento (group commit).
+ * Se crea con {@link PersistenciaAtomica#crearJournal}.
+ */
+public class Journal {
+
+    private final Path ruta;
+    private final ObjectMapper mapper;
+    private final PersistenciaAtomica persistencia;
+    private final Object bloqueoSincronizacion = new Object();
+    private FileChannel canal;
+    private int registros;
+    private long sincronizado;
+    // Escritura fallida que no se pudo recortar; mientras no sea null no se aceptan registros
+    private IOException fallo;
+
+    Journal(Path ruta, ObjectMapper mapper, PersistenciaAtomica persistencia) {
+        this.ruta = ruta;
+        this.mapper = mapper;
+        this.persistencia = persistencia;
+    }
+
+    /**
+     * Lee los registros existentes y deja el journal abierto para agregar nuevos.
+     *
+     * @param tipo Clase de los registros
+     * @return Registros válidos en el orden en que fueron escritos
+     */
+    public synchronized <T> List<T> abrir(Class<T> tipo) throws IOException {
+        Lectura<T> lectura = leer(ruta, tipo);
+        canal = FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (canal.size() > lectura.longitudValida) {
+            System.err.println("ADVERTENCIA: Se descartó un registro incompleto al final de " + ruta);
+            canal.truncate(lectura.longitudValida);
+            canal.force(true);
+        }
+        canal.position(lectura.longitudValida);
+        registros = lectura.registros.size();
+        sincronizado = lectura.longitudValida;
+        return lectura.registros;
+    }
+
+    /**
+     * Lee los registros de un journal sin abrirlo para escritura (ej: un journal en compactación).
+     */
+    public <T> List<T> leerRegistros(Path archivo, Class<T> tipo) throws IOException {
+        return leer(archivo, tipo).registros;
+    }
+
+    /**
+     * Agrega un registro y espera a que quede en disco.
+     */
+    public void agregar(Object registro) throws IOException {
+        sincronizar(escribir(registro));
+    }
+
+    /**
+     * Agrega un registro al final del archivo sin esperar el fsync.
+     *
+     * @return Posición que debe pasarse a {@link #sincronizar(long)} para garantizar su durabilidad
+     */
+    public synchronized long escribir(Object registro) throws IOException {
+        if (fallo != null) {
+            throw new IOException("El journal " + ruta + " quedó con un registro incompleto y no acepta más escrituras", fallo);
+        }
+        byte[] json = mapper.writeValueAsBytes(registro);
+        byte[] linea = Arrays.copyOf(json, json.length + 1);
+        linea[json.length] = '\n';
+
+        long inicio = canal.position();
+        ByteBuffer buffer = ByteBuffer.wrap(linea);
+        try {
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+        } catch (IOException e) {
+            descartarDesde(inicio, e);
+            throw e;
+        }
+        registros++;
+        return canal.position();
+    }
+
+    /**
+     * Recorta la parte ya escrita de un registro fallido, para que el siguiente no quede pegado a ella.
+     */
+    private void descartarDesde(long inicio, IOException error) {
+        try {
+            canal.truncate(inicio);
+            canal.position(inicio);
+        } catch (IOException e) {
+            error.addSuppressed(e);
+            fallo = error;
+            System.err.println("ERROR: No se pudo recortar el registro incompleto de " + ruta
+                    + "; el journal no aceptará más escrituras: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Espera a que todo lo escrito hasta {@code posicion} esté en disco. Si otro hilo ya hizo un fsync
+     * que lo incluye, retorna sin volver a sincronizar.
+     */
+    public void sincronizar(long posicion) throws IOException {
+        synchronized (bloqueoSincronizacion) {
+            if (sincronizado >= posicion) {
+                return;
+            }
+            // Da tiempo a que otros escritores se sumen a este fsync
+            persistencia.esperarVentana();
+            long objetivo;
+            FileChannel actual;
+            synchronized (this) {
+                objetivo = canal.position();
+                actual = canal;
+            }
+            actual.force(false);
+            sincronizado = objetivo;
+        }
+    }
+
+    /**
+     * Mueve el contenido actual a {@code destino} y continúa escribiendo sobre un journal vacío.
+     * Se usa para compactar sin bloquear a los escritores mientras se genera la instantánea.
+     */
+    public void rotar(Path destino) throws IOException {
+        synchronized (bloqueoSincronizacion) {
+            synchronized (this) {
+                canal.force(false);
+                canal.close();
+                Files.move(ruta, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                canal = FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                registros = 0;
+                sincronizado = 0;
+                // El registro incompleto quedó en el archivo rotado, que se lee descartándolo
+                fallo = null;
+            }
+        }
+    }
+
+    /**
+     * @return Cantidad de registros escritos desde la última rotación
+     */
+    public synchronized int getRegistros() {
+        return registros;
+    }
+
+    public synchronized void cerrar() throws IOException {
+        if (canal != null && canal.isOpen()) {
+            canal.close();
+        }
+    }
+
+    private <T> Lectura<T> leer(Path archivo, Class<T> tipo) throws IOException {
+        List<T> leidos = new ArrayList<>();
+        if (!Files.exists(archivo)) {
+            return new Lectura<>(leidos, 0);
+        }
+
+        byte[] contenido = Files.readAllBytes(archivo);
+        int inicio = 0;
+        while (inicio < contenido.length) {
+            int fin = inicio;
+            while (fin < contenido.length && contenido[fin] != '\n') {
+                fin++;
+            }
+            if (fin == contenido.length) {
+                // Línea sin salto final: escritura interrumpida
+                break;
+            }
+            if (fin > inicio) {
+                try {
+                    leidos.add(mapper.readValue(contenido, inicio, fin - inicio, tipo));
+                } catch (IOException e) {
+                    System.err.println("ADVERTENCIA: Registro corrupto en " + archivo + ": " + e.getMessage());
+                    break;
+                }
+            }
+            inicio = fin + 1;
+        }
+        return new Lectura<>(leidos, inicio);
+    }
+
+    private record Lectura<T>(List<T> registros, long longitudValida) {
+    }
+}
@@ -0,0 +1,35 @@
+package com.podiGest.backend.repository;
+
+import com.podiGest.backend.service.PathConfigService;
+
+import java.io.IOException;
+
+/**
+ * Migración única de las citas (base_de_datos/citas) y notificaciones.json al formato tipado de fechas y horas.
+ *
+ * Los repositorios ya leen los formatos anteriores (ver {@link com.podiGest.backend.model.FechasFlexibles}),
+ * así que la aplicación funciona sin migrar; esta herramienta solo reescribe los archivos para que todos
+ * los registros queden normalizados. Ejecutar con el servidor detenido:
+ *
+ *   mvn compile exec:java -Dexec.mainClass=com.podiGest.backend.repository.MigracionFechas
+ */
+public final class MigracionFechas {
+
+    private MigracionFechas() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("INFO: Migrando fechas en " + PathConfigService.getSeedDataDirectory());
+        PersistenciaAtomica persistencia = new PersistenciaAtomica(0);
+
+        CitasRepository citasRepository = new CitasRepository(ConfiguracionAlmacenamiento.citasJson(persistencia), 0);
+        citasRepository.reescribir();
+        citasRepository.cerrar();
+
+        NotificacionesRepository notificacionesRepository = new NotificacionesRepository(ConfiguracionAlmacenamiento.notificacionesJson(persistencia));
+        notificacionesRepository.reescribir();
+        notificacionesRepository.cerrar();
+
+        System.out.println("INFO: Migración de fechas completada");
+    }
+}
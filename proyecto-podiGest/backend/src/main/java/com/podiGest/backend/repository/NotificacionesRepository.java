@@ -0,0 +1,412 @@
+package com.podiGest.backend.repository;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.podiGest.backend.model.CambiosNotificaciones;
+import com.podiGest.backend.model.FechasFlexibles;
+import com.podiGest.backend.model.Notificacion;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Repositorio en memoria de las notificaciones, persistido en un {@link AlmacenRegistros}: con el motor JSON,
+ * notificaciones.json + notificaciones.journal; con el motor H2, una fila por notificación.
+ *
+ * Crear una notificación agrega un único registro al journal; silenciar, cambiar un recordatorio o eliminar
+ * se guardan como registros delta pequeños. Así el costo de escritura es el mismo con 10 o con millones de
+ * notificaciones. El compactador periódico vuelca el estado completo en notificaciones.json.
+ *
+ * Las notificaciones devueltas no deben modificarse: cada cambio reemplaza el objeto por una copia nueva.
+ *
+ * Cada registro del journal lleva un número de secuencia creciente, que queda en la notificación que
+ * modifica; con él, {@link #cambiosDesde} devuelve solo lo cambiado después de un cursor.
+ */
+@Repository
+public class NotificacionesRepository {
+
+    private final AlmacenRegistros<Notificacion, RegistroNotificacion> almacen;
+    private final Object bloqueoEscritura = new Object();
+    private final Object bloqueoCompactacion = new Object();
+    private final ReentrantReadWriteLock bloqueoMemoria = new ReentrantReadWriteLock();
+    private final Map<String, Notificacion> porId = new LinkedHashMap<>();
+    private final Map<String, Map<String, Notificacion>> porUsuario = new HashMap<>();
+    // Contador materializado de notificaciones no silenciadas por destinatario (sin distinguir mayúsculas)
+    private final Map<String, Integer> noSilenciadasPorUsuario = new HashMap<>();
+    // Secuencia de la última eliminación por destinatario: un cursor anterior exige la bandeja completa
+    private final Map<String, Long> ultimaEliminacionPorUsuario = new HashMap<>();
+    private long ultimaSecuencia;
+    // Las eliminaciones no se conservan al compactar, así que los cursores solo valen en esta ejecución
+    private final String arranque = Long.toString(System.currentTimeMillis(), 36);
+
+    public NotificacionesRepository(AlmacenRegistros<Notificacion, RegistroNotificacion> almacen) {
+        this.almacen = almacen;
+        cargarDesdeDisco();
+    }
+
+    private void cargarDesdeDisco() {
+        try {
+            AlmacenRegistros.Carga<Notificacion, RegistroNotificacion> carga = almacen.cargar();
+            for (Notificacion notificacion : carga.instantanea()) {
+                RegistroNotificacion registro = RegistroNotificacion.crear(notificacion);
+                registro.setSecuencia(notificacion.getSecuencia());
+                aplicar(registro);
+            }
+            for (RegistroNotificacion registro : carga.registros()) {
+                aplicar(registro);
+            }
+            System.out.println("INFO: Se cargaron " + porId.size() + " notificaciones en memoria (" + carga.registros().size() + " registros de journal reproducidos)");
+            almacen.completarCarga(new ArrayList<>(porId.values()));
+        } catch (IOException e) {
+            System.err.println("ERROR: No se pudieron cargar las notificaciones: " + e.getMessage());
+        }
+    }
+
+    public List<Notificacion> obtenerTodas() {
+        bloqueoMemoria.readLock().lock();
+        try {
+            return new ArrayList<>(porId.values());
+        } finally {
+            bloqueoMemoria.readLock().unlock();
+        }
+    }
+
+    public Optional<Notificacion> buscarPorId(String id) {
+        bloqueoMemoria.readLock().lock();
+        try {
+            return Optional.ofNullable(porId.get(id));
+        } finally {
+            bloqueoMemoria.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Notificaciones cuyo destinatario coincide (sin distinguir mayúsculas) con el correo, en orden de creación
+     */
+    public List<Notificacion> obtenerPorUsuario(String correo) {
+        bloqueoMemoria.readLock().lock();
+        try {
+            Map<String, Notificacion> delUsuario = porUsuario.get(clave(correo));
+            return delUsuario == null ? new ArrayList<>() : new ArrayList<>(delUsuario.values());
+        } finally {
+            bloqueoMemoria.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Cantidad de notificaciones no silenciadas del destinatario, sin recorrerlas
+     */
+    public int contarNoSilenciadas(String correo) {
+        bloqueoMemoria.readLock().lock();
+        try {
+            return noSilenciadasPorUsuario.getOrDefault(clave(correo), 0);
+        } finally {
+            bloqueoMemoria.readLock().unlock();
+        }
+    }
+
+    /**
+     * Notificaciones del destinatario creadas o modificadas después del cursor, en orden de creación.
+     * Si hubo eliminaciones después del cursor, o el cursor es nulo o de otra ejecución, devuelve la
+     * bandeja completa marcada como tal.
+     *
+     * @throws IllegalArgumentException si el cursor no tiene el formato esperado
+     */
+    public CambiosNotificaciones cambiosDesde(String correo, String cursor) {
+        long desde = leerCursor(cursor);
+        bloqueoMemoria.readLock().lock();
+        try {
+            String clave = clave(correo);
+            boolean completa = desde < 0 || desde > ultimaSecuencia
+                    || desde < ultimaEliminacionPorUsuario.getOrDefault(clave, 0L);
+            List<Notificacion> cambios = new ArrayList<>();
+            Map<String, Notificacion> delUsuario = porUsuario.get(clave);
+            if (delUsuario != null) {
+                for (Notificacion notificacion : delUsuario.values()) {
+                    if (completa || notificacion.getSecuencia() > desde) {
+                        cambios.add(notificacion);
+                    }
+                }
+            }
+            return new CambiosNotificaciones(cambios, arranque + "-" + ultimaSecuencia, completa);
+        } finally {
+            bloqueoMemoria.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Secuencia del cursor, o -1 si es nulo o de una ejecución anterior
+     */
+    private long leerCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return -1;
+        }
+        int separador = cursor.lastIndexOf('-');
+        try {
+            long secuencia = Long.parseLong(cursor.substring(separador + 1));
+            if (separador <= 0 || secuencia < 0) {
+                throw new NumberFormatException();
+            }
+            return cursor.substring(0, separador).equals(arranque) ? secuencia : -1;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El cursor no es válido.");
+        }
+    }
+
+    public Notificacion crear(Notificacion notificacion) throws IOException {
+        registrar(RegistroNotificacion.crear(new Notificacion(notificacion)));
+        return notificacion;
+    }
+
+    /**
+     * @return false si la notificación no existe
+     */
+    public boolean silenciar(String id, boolean silenciada) throws IOException {
+        RegistroNotificacion registro = new RegistroNotificacion();
+        registro.setOperacion(Operacion.SILENCIAR);
+        registro.setId(id);
+        registro.setSilenciada(silenciada);
+        return registrarSiExiste(id, registro);
+    }
+
+    /**
+     * Cambia los campos de recordatorio indicados; los parámetros nulos conservan su valor actual.
+     *
+     * @return false si la notificación no existe
+     */
+    public boolean cambiarRecordatorio(String id, Boolean tieneRecordatorio, LocalDateTime fechaRecordatorio, Boolean recordatorioActivo) throws IOException {
+        RegistroNotificacion registro = new RegistroNotificacion();
+        registro.setOperacion(Operacion.RECORDATORIO);
+        registro.setId(id);
+        registro.setTieneRecordatorio(tieneRecordatorio);
+        registro.setFechaRecordatorio(fechaRecordatorio);
+        registro.setRecordatorioActivo(recordatorioActivo);
+        return registrarSiExiste(id, registro);
+    }
+
+    /**
+     * @return Cantidad de notificaciones eliminadas
+     */
+    public int eliminarPorUsuario(String correo) throws IOException {
+        List<String> ids;
+        long posicion;
+        synchronized (bloqueoEscritura) {
+            ids = obtenerPorUsuario(correo).stream().map(Notificacion::getId).toList();
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            RegistroNotificacion registro = new RegistroNotificacion();
+            registro.setOperacion(Operacion.ELIMINAR);
+            registro.setIds(ids);
+            posicion = escribirYAplicar(registro);
+        }
+        almacen.sincronizar(posicion);
+        return ids.size();
+    }
+
+    private boolean registrarSiExiste(String id, RegistroNotificacion registro) throws IOException {
+        long posicion;
+        synchronized (bloqueoEscritura) {
+            if (buscarPorId(id).isEmpty()) {
+                return false;
+            }
+            posicion = escribirYAplicar(registro);
+        }
+        almacen.sincronizar(posicion);
+        return true;
+    }
+
+    private void registrar(RegistroNotificacion registro) throws IOException {
+        long posicion;
+        synchronized (bloqueoEscritura) {
+            posicion = escribirYAplicar(registro);
+        }
+        almacen.sincronizar(posicion);
+    }
+
+    /**
+     * Escribe el registro en el journal y luego lo aplica en memoria. Llamar con el bloqueo de escritura tomado.
+     * Los lectores solo esperan la aplicación en memoria, nunca la escritura a disco, y el fsync
+     * se hace después, fuera del bloqueo, para compartirlo con otros escritores (group commit).
+     */
+    private long escribirYAplicar(RegistroNotificacion registro) throws IOException {
+        registro.setSecuencia(ultimaSecuencia + 1);
+        long posicion = almacen.agregar(registro);
+        bloqueoMemoria.writeLock().lock();
+        try {
+            aplicar(registro);
+        } finally {
+            bloqueoMemoria.writeLock().unlock();
+        }
+        return posicion;
+    }
+
+    private void aplicar(RegistroNotificacion registro) {
+        // Los registros escritos antes de numerarlos reciben la siguiente secuencia al reproducirse
+        long secuencia = registro.getSecuencia() != null ? registro.getSecuencia() : ultimaSecuencia + 1;
+        ultimaSecuencia = Math.max(ultimaSecuencia, secuencia);
+        switch (registro.getOperacion()) {
+            case CREAR -> {
+                Notificacion nueva = registro.getNotificacion();
+                nueva.setSecuencia(secuencia);
+                quitar(nueva.getId());
+                indexar(nueva);
+            }
+            case SILENCIAR -> {
+                Notificacion actual = porId.get(registro.getId());
+                if (actual != null) {
+                    Notificacion copia = new Notificacion(actual);
+                    copia.setSilenciada(registro.getSilenciada());
+                    copia.setSecuencia(secuencia);
+                    indexar(copia);
+                }
+            }
+            case RECORDATORIO -> {
+                Notificacion actual = porId.get(registro.getId());
+                if (actual != null) {
+                    Notificacion copia = new Notificacion(actual);
+                    if (registro.getTieneRecordatorio() != null) {
+                        copia.setTieneRecordatorio(registro.getTieneRecordatorio());
+                    }
+                    if (registro.getFechaRecordatorio() != null) {
+                        copia.setFechaRecordatorio(registro.getFechaRecordatorio());
+                    }
+                    if (registro.getRecordatorioActivo() != null) {
+                        copia.setRecordatorioActivo(registro.getRecordatorioActivo());
+                    }
+                    copia.setSecuencia(secuencia);
+                    indexar(copia);
+                }
+            }
+            case ELIMINAR -> {
+                for (String id : registro.getIds()) {
+                    Notificacion eliminada = quitar(id);
+                    if (eliminada != null) {
+                        ultimaEliminacionPorUsuario.put(clave(eliminada.getCorreoDestinatario()), secuencia);
+                    }
+                }
+            }
+        }
+    }
+
+    private void indexar(Notificacion notificacion) {
+        Notificacion anterior = porId.put(notificacion.getId(), notificacion);
+        if (anterior != null) {
+            contar(anterior, -1);
+        }
+        contar(notificacion, 1);
+        porUsuario.computeIfAbsent(clave(notificacion.getCorreoDestinatario()), k -> new LinkedHashMap<>())
+                .put(notificacion.getId(), notificacion);
+    }
+
+    private Notificacion quitar(String id) {
+        Notificacion anterior = porId.remove(id);
+        if (anterior != null) {
+            contar(anterior, -1);
+            String clave = clave(anterior.getCorreoDestinatario());
+            Map<String, Notificacion> delUsuario = porUsuario.get(clave);
+            if (delUsuario != null) {
+                delUsuario.remove(id);
+                if (delUsuario.isEmpty()) {
+                    porUsuario.remove(clave);
+                }
+            }
+        }
+        return anterior;
+    }
+
+    private void contar(Notificacion notificacion, int delta) {
+        if (!notificacion.isSilenciada()) {
+            noSilenciadasPorUsuario.merge(clave(notificacion.getCorreoDestinatario()), delta,
+                    (actual, cambio) -> actual + cambio == 0 ? null : actual + cambio);
+        }
+    }
+
+    private static String clave(String correo) {
+        return correo == null ? "" : correo.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Vuelca el estado actual en notificaciones.json y descarta los registros ya incluidos.
+     */
+    @Scheduled(fixedDelayString = "${podigest.journal.compactacion-ms:300000}",
+               initialDelayString = "${podigest.journal.compactacion-ms:300000}")
+    public void compactar() {
+        compactar(false);
+    }
+
+    /**
+     * Vuelca el estado completo en notificaciones.json aunque el journal esté vacío, reescribiendo
+     * todos los registros en el formato actual (ver {@link MigracionFechas}).
+     */
+    public void reescribir() {
+        compactar(true);
+    }
+
+    private void compactar(boolean forzar) {
+        synchronized (bloqueoCompactacion) {
+            try {
+                List<Notificacion> aVolcar;
+                synchronized (bloqueoEscritura) {
+                    if (!almacen.rotar() && !forzar) {
+                        return;
+                    }
+                    aVolcar = obtenerTodas();
+                }
+                almacen.volcar(aVolcar);
+                System.out.println("INFO: Journal de notificaciones compactado (" + aVolcar.size() + " notificaciones)");
+            } catch (IOException e) {
+                System.err.println("ERROR: No se pudo compactar el journal de notificaciones: " + e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() throws IOException {
+        compactar();
+        almacen.cerrar();
+    }
+
+    public enum Operacion {
+        CREAR, SILENCIAR, RECORDATORIO, ELIMINAR
+    }
+
+    /**
+     * Registro del journal. Solo se serializan los campos que usa cada operación.
+     */
+    @Data
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class RegistroNotificacion {
+        private Long secuencia;
+        private Operacion operacion;
+        private Notificacion notificacion;
+        private String id;
+        private List<String> ids;
+        private Boolean silenciada;
+        private Boolean tieneRecordatorio;
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm")
+        @JsonDeserialize(using = FechasFlexibles.FechaHoraDeserializer.class)
+        private LocalDateTime fechaRecordatorio;
+        private Boolean recordatorioActivo;
+
+        static RegistroNotificacion crear(Notificacion notificacion) {
+            RegistroNotificacion registro = new RegistroNotificacion();
+            registro.setOperacion(Operacion.CREAR);
+            registro.setNotificacion(notificacion);
+            return registro;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.podiGest.backend.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Escritura segura de los archivos JSON de la aplicación.
+ *
+ * Nunca se sobrescribe el archivo vivo: el contenido se escribe en un temporal del mismo directorio,
+ * se sincroniza con el disco (fsync) y se renombra de forma atómica sobre el destino. Si el proceso muere
+ * a mitad de camino queda el archivo anterior completo, nunca uno truncado.
+ *
+ * Además aplica "group commit": las escrituras del mismo archivo que llegan dentro de una ventana corta
+ * se agrupan en un único volcado con el contenido más reciente, y los journals comparten un único fsync
+ * entre todos los registros agregados en esa ventana.
+ */
+@Component
+public class PersistenciaAtomica {
+
+    private final long ventanaMs;
+    private final Map<Path, EscrituraPendiente> pendientes = new HashMap<>();
+    private final Map<Path, Object> bloqueosPorArchivo = new ConcurrentHashMap<>();
+
+    public PersistenciaAtomica(@Value("${podigest.persistencia.ventana-ms:2}") long ventanaMs) {
+        this.ventanaMs = ventanaMs;
+    }
+
+    /**
+     * Reemplaza atómicamente el contenido de {@code destino} y espera a que quede en disco.
+     */
+    public void escribir(Path destino, byte[] contenido) throws IOException {
+        escribir(destino, () -> contenido);
+    }
+
+    /**
+     * Reemplaza atómicamente el contenido de {@code destino} y espera a que quede en disco.
+     * Si otros hilos escriben el mismo archivo dentro de la ventana, solo se genera y escribe el último
+     * contenido recibido, y todos quedan liberados con esa misma escritura. El contenido se genera al
+     * momento de escribir, por lo que puede serializar el estado más reciente del llamador.
+     */
+    public void escribir(Path destino, Contenido contenido) throws IOException {
+        EscrituraPendiente pendiente;
+        boolean lider = false;
+        synchronized (pendientes) {
+            pendiente = pendientes.get(destino);
+            if (pendiente == null) {
+                pendiente = new EscrituraPendiente();
+                pendientes.put(destino, pendiente);
+                lider = true;
+            }
+            pendiente.contenido = contenido;
+        }
+
+        if (lider) {
+            esperarVentana();
+            Contenido aEscribir;
+            synchronized (pendientes) {
+                pendientes.remove(destino);
+                aEscribir = pendiente.contenido;
+            }
+            try {
+                synchronized (bloqueosPorArchivo.computeIfAbsent(destino, k -> new Object())) {
+                    escribirAtomico(destino, aEscribir.generar());
+                }
+                pendiente.resultado.complete(null);
+            } catch (IOException | RuntimeException e) {
+                pendiente.resultado.completeExceptionally(e);
+            }
+        }
+
+        esperar(pendiente.resultado);
+    }
+
+    /**
+     * Abre un journal cuyos registros se sincronizan en grupo según la ventana configurada.
+     */
+    public Journal crearJournal(Path ruta, ObjectMapper mapper) {
+        return new Journal(ruta, mapper, this);
+    }
+
+    void esperarVentana() {
+        if (ventanaMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ventanaMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void escribirAtomico(Path destino, byte[] contenido) throws IOException {
+        Path directorio = destino.toAbsolutePath().getParent();
+        // Sin Files.createTempFile, que crea el archivo solo legible por el dueño: el temporal nace con los
+        // permisos por defecto del proceso (umask), como cualquier archivo nuevo, y copia los del destino si existe
+        Path temporal = directorio.resolve(destino.getFileName() + "." + Long.toUnsignedString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try {
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(contenido);
+                while (buffer.hasRemaining()) {
+                    canal.write(buffer);
+                }
+                canal.force(true);
+            }
+            copiarPermisos(destino, temporal);
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+        sincronizarDirectorio(directorio);
+    }
+
+    /**
+     * Conserva los permisos del archivo reemplazado (ej: uno que otros usuarios del grupo deben poder leer).
+     * Solo en sistemas de archivos POSIX; en los demás el temporal queda con los permisos por defecto.
+     */
+    private static void copiarPermisos(Path origen, Path temporal) throws IOException {
+        if (Files.exists(origen) && Files.getFileStore(temporal).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            Files.setPosixFilePermissions(temporal, Files.getPosixFilePermissions(origen));
+        }
+    }
+
+    /**
+     * Sincroniza la entrada del directorio para que el renombrado sobreviva a un corte de energía.
+     * No todos los sistemas operativos permiten abrir un directorio (ej: Windows); en ese caso se omite.
+     */
+    private void sincronizarDirectorio(Path directorio) {
+        try (FileChannel canal = FileChannel.open(directorio, StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException e) {
+            // No soportado en esta plataforma
+        }
+    }
+
+    private static void esperar(CompletableFuture<Void> resultado) throws IOException {
+        try {
+            resultado.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Escritura interrumpida", e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof IOException io) {
+                throw io;
+            }
+            if (causa instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            throw new IOException(causa);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Contenido {
+        byte[] generar() throws IOException;
+    }
+
+    private static final class EscrituraPendiente {
+        private final CompletableFuture<Void> resultado = new CompletableFuture<>();
+        private Contenido contenido;
+    }
+}
@@ -0,0 +1,99 @@
+package com.podiGest.backend.service;
+
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Consumer;
+
+/**
+ * Cola de recordatorios ordenada por fecha de vencimiento.
+ *
+ * En lugar de revisar todas las notificaciones cada cierto tiempo, se programa una única tarea en el
+ * {@link TaskScheduler} para el instante exacto del próximo recordatorio. Al despertar solo se extraen
+ * los recordatorios vencidos y se vuelve a programar la tarea para el siguiente.
+ *
+ * Las entradas no se eliminan al desactivar o cambiar un recordatorio: quien las procesa debe verificar
+ * que la notificación sigue teniendo ese mismo recordatorio activo y descartar las obsoletas.
+ */
+public class AgendaRecordatorios {
+
+    private static final Duration REINTENTO = Duration.ofSeconds(30);
+
+    private final TaskScheduler taskScheduler;
+    private final Consumer<Entrada> alVencer;
+    private final PriorityQueue<Entrada> cola = new PriorityQueue<>(Comparator.comparing(Entrada::vence));
+    private ScheduledFuture<?> despertador;
+    private Instant proximoDespertar;
+
+    /**
+     * @param alVencer Procesa un recordatorio vencido; si lanza una excepción el recordatorio se reintenta
+     */
+    public AgendaRecordatorios(TaskScheduler taskScheduler, Consumer<Entrada> alVencer) {
+        this.taskScheduler = taskScheduler;
+        this.alVencer = alVencer;
+    }
+
+    public synchronized void programar(String notificacionId, LocalDateTime fechaRecordatorio, Instant vence) {
+        cola.add(new Entrada(notificacionId, fechaRecordatorio, vence));
+        if (proximoDespertar == null || vence.isBefore(proximoDespertar)) {
+            reprogramarDespertador();
+        }
+    }
+
+    public synchronized int getPendientes() {
+        return cola.size();
+    }
+
+    /**
+     * Procesa inmediatamente todos los recordatorios vencidos.
+     */
+    public void procesarVencidos() {
+        List<Entrada> vencidas = new ArrayList<>();
+        synchronized (this) {
+            Instant ahora = Instant.now();
+            while (!cola.isEmpty() && !cola.peek().vence().isAfter(ahora)) {
+                vencidas.add(cola.poll());
+            }
+        }
+
+        for (Entrada entrada : vencidas) {
+            try {
+                alVencer.accept(entrada);
+            } catch (RuntimeException e) {
+                System.err.println("ERROR: [RECORDATORIOS] No se pudo procesar el recordatorio de " + entrada.notificacionId() + ", se reintentará: " + e.getMessage());
+                synchronized (this) {
+                    cola.add(new Entrada(entrada.notificacionId(), entrada.fechaRecordatorio(), Instant.now().plus(REINTENTO)));
+                }
+            }
+        }
+
+        synchronized (this) {
+            reprogramarDespertador();
+        }
+    }
+
+    private void reprogramarDespertador() {
+        if (despertador != null) {
+            despertador.cancel(false);
+            despertador = null;
+        }
+        Entrada siguiente = cola.peek();
+        proximoDespertar = siguiente == null ? null : siguiente.vence();
+        if (siguiente != null) {
+            despertador = taskScheduler.schedule(this::procesarVencidos, siguiente.vence());
+        }
+    }
+
+    /**
+     * @param fechaRecordatorio Valor de fechaRecordatorio con el que se programó, para detectar entradas obsoletas
+     */
+    public record Entrada(String notificacionId, LocalDateTime fechaRecordatorio, Instant vence) {
+    }
+}
@@ -0,0 +1,96 @@
+package com.podiGest.backend.service;
+
+import com.podiGest.backend.model.Cita;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bloqueos por especialista para agendar, reprogramar y cancelar citas.
+ *
+ * Verificar que un horario está libre y guardar la cita debe ser atómico para la agenda de un especialista,
+ * pero no tiene por qué detener a los demás. Se usa un arreglo fijo de bloqueos (lock striping): cada
+ * especialista se asigna a una franja según el hash de su cédula y de su nombre, de modo que las agendas
+ * distintas avanzan en paralelo y las operaciones sobre la misma agenda se ejecutan de a una.
+ *
+ * Se bloquean las franjas de la cédula y del nombre porque las citas antiguas sin cédula se identifican
+ * por el nombre del especialista. Las franjas se toman siempre en orden ascendente para evitar interbloqueos.
+ */
+@Component
+public class BloqueosAgenda {
+
+    private static final int FRANJAS = 64;
+
+    private final ReentrantLock[] franjas = new ReentrantLock[FRANJAS];
+
+    public BloqueosAgenda() {
+        for (int i = 0; i < FRANJAS; i++) {
+            franjas[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Ejecuta la acción con la agenda del especialista bloqueada.
+     *
+     * @param cedulaEspecialista Cédula del especialista (puede ser null)
+     * @param especialista       Nombre del especialista
+     */
+    public <T> T ejecutar(String cedulaEspecialista, String especialista, Accion<T> accion) throws IOException {
+        SortedSet<Integer> franjasAgenda = new TreeSet<>();
+        agregarFranjas(franjasAgenda, cedulaEspecialista, especialista);
+        return ejecutar(franjasAgenda, accion);
+    }
+
+    /**
+     * Ejecuta la acción con las agendas de todas las citas bloqueadas a la vez (ej: para guardarlas
+     * en una sola escritura). Cada franja se toma una sola vez, en el mismo orden ascendente.
+     */
+    public <T> T ejecutar(Collection<Cita> citas, Accion<T> accion) throws IOException {
+        SortedSet<Integer> franjasAgenda = new TreeSet<>();
+        for (Cita cita : citas) {
+            agregarFranjas(franjasAgenda, cita.getCedulaEspecialista(), cita.getEspecialista());
+        }
+        return ejecutar(franjasAgenda, accion);
+    }
+
+    private <T> T ejecutar(SortedSet<Integer> franjasAgenda, Accion<T> accion) throws IOException {
+        List<ReentrantLock> tomadas = new ArrayList<>(franjasAgenda.size());
+        try {
+            for (int franja : franjasAgenda) {
+                franjas[franja].lock();
+                tomadas.add(franjas[franja]);
+            }
+            return accion.ejecutar();
+        } finally {
+            for (int i = tomadas.size() - 1; i >= 0; i--) {
+                tomadas.get(i).unlock();
+            }
+        }
+    }
+
+    private static void agregarFranjas(SortedSet<Integer> franjasAgenda, String cedulaEspecialista, String especialista) {
+        franjasAgenda.add(franja(especialista));
+        if (cedulaEspecialista != null) {
+            franjasAgenda.add(franja(cedulaEspecialista));
+        }
+    }
+
+    private static int franja(String clave) {
+        if (clave == null) {
+            return 0;
+        }
+        return Math.floorMod(clave.toLowerCase(Locale.ROOT).hashCode(), FRANJAS);
+    }
+
+    @FunctionalInterface
+    public interface Accion<T> {
+        T ejecutar() throws IOException;
+    }
+}
@@ -0,0 +1,78 @@
+package com.podiGest.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.podiGest.backend.model.EspecialistaCatalogo;
+import com.podiGest.backend.model.Usuario;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Catálogo de especialistas ya serializado a JSON, con su ETag fuerte (hash del contenido).
+ * Es inmutable: {@link PerfilService} publica uno nuevo solo cuando cambia un especialista, y
+ * cada petición escribe los mismos bytes sin volver a serializar.
+ */
+public final class CatalogoEspecialistas {
+
+    private final byte[] json;
+    private final String etag;
+
+    private CatalogoEspecialistas(byte[] json) {
+        this.json = json;
+        this.etag = "\"" + hash(json) + "\"";
+    }
+
+    static CatalogoEspecialistas de(List<Usuario> especialistas, ObjectMapper mapper) throws JsonProcessingException {
+        List<EspecialistaCatalogo> proyeccion = especialistas.stream().map(EspecialistaCatalogo::new).toList();
+        return new CatalogoEspecialistas(mapper.writeValueAsBytes(proyeccion));
+    }
+
+    static CatalogoEspecialistas vacio() {
+        return new CatalogoEspecialistas("[]".getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return El JSON compartido por todas las peticiones; no debe modificarse
+     */
+    public byte[] getJson() {
+        return json;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * @param ifNoneMatch Valor de la cabecera If-None-Match (puede ser null o una lista separada por comas)
+     * @return true si el cliente ya tiene esta versión del catálogo
+     */
+    public boolean coincide(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            // Comparación débil, como indica RFC 9110 para If-None-Match
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals("*") || valor.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String hash(byte[] contenido) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(contenido);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
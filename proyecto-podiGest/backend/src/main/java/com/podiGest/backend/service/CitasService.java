@@ -1,569 +1,300 @@
 package com.podiGest.backend.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.podiGest.backend.model.AvisoCita;
+import com.podiGest.backend.model.CambiosCitas;
 import com.podiGest.backend.model.Cita;
+import com.podiGest.backend.model.ConsultaCitas;
+import com.podiGest.backend.model.DisponibilidadDia;
 import com.podiGest.backend.model.Notificacion;
-import org.springframework.core.io.ClassPathResource;
+import com.podiGest.backend.model.PaginaCitas;
+import com.podiGest.backend.repository.CitasRepository;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class CitasService {
 
-    private final Path citasPath;
-    private final ObjectMapper objectMapper;
+    private static final int HORA_INICIO = 8;
+    private static final int HORA_FIN = 18;
+    private static final int HORAS_AGENDA = (1 << (HORA_FIN - HORA_INICIO + 1)) - 1;
+    private static final int MAX_LIMITE_CONSULTA = 200;
+
+    private final CitasRepository citasRepository;
     private final NotificacionService notificacionService;
     private final PerfilService perfilService;
-    private static final String CITAS_JSON_FILE = "citas.json";
-
-    public CitasService(NotificacionService notificacionService, PerfilService perfilService) {
-        this.citasPath = PathConfigService.getSeedFilePath(CITAS_JSON_FILE);
-        this.objectMapper = new ObjectMapper();
+    private final BloqueosAgenda bloqueosAgenda;
+    private final ColaNotificaciones colaNotificaciones;
+    private final PlantillasNotificacion plantillasNotificacion;
+    private final Object bloqueoEntregaAvisos = new Object();
+
+    public CitasService(CitasRepository citasRepository, NotificacionService notificacionService, PerfilService perfilService,
+                        BloqueosAgenda bloqueosAgenda, ColaNotificaciones colaNotificaciones,
+                        PlantillasNotificacion plantillasNotificacion) {
+        this.citasRepository = citasRepository;
         this.notificacionService = notificacionService;
         this.perfilService = perfilService;
-        
-        // Inicializa el archivo de citas si no existe
-        inicializarCitas();
+        this.bloqueosAgenda = bloqueosAgenda;
+        this.colaNotificaciones = colaNotificaciones;
+        this.plantillasNotificacion = plantillasNotificacion;
     }
 
     /**
-     * Inicializa el archivo de citas si no existe o está vacío
+     * Retorna todas las citas en memoria, ordenadas por fecha y hora.
      */
-    private void inicializarCitas() {
-        try {
-            if (!Files.exists(citasPath) || Files.size(citasPath) == 0) {
-                List<Cita> citasIniciales = cargarDesdeClasspath();
-                guardarCitasAJson(citasIniciales);
-            }
-        } catch (IOException e) {
-            System.err.println("ERROR: No se pudieron inicializar las citas: " + e.getMessage());
-        }
+    public List<Cita> obtenerCitas() throws IOException {
+        return citasRepository.obtenerTodas();
     }
 
     /**
-     * Carga las citas iniciales desde la carpeta base_de_datos
+     * Consulta todas las citas aplicando filtros, orden y paginación.
+     *
+     * @throws IllegalArgumentException Si algún parámetro no es válido
      */
-    private List<Cita> cargarDesdeClasspath() {
-        try {
-            Path seedPath = PathConfigService.getSeedFilePath(CITAS_JSON_FILE);
-            if (Files.exists(seedPath)) {
-                String jsonContent = Files.readString(seedPath);
-                return objectMapper.readValue(jsonContent, new TypeReference<List<Cita>>() {});
-            }
-        } catch (IOException e) {
-            System.err.println("ADVERTENCIA: No se encontraron citas iniciales en base_de_datos");
+    public PaginaCitas consultarCitas(ConsultaCitas consulta) {
+        validarConsulta(consulta);
+        return citasRepository.consultarTodas(consulta);
+    }
+
+    public PaginaCitas consultarCitasPorPaciente(String correoElectronico, ConsultaCitas consulta) {
+        validarConsulta(consulta);
+        return citasRepository.consultarPorPaciente(correoElectronico, consulta);
+    }
+
+    public PaginaCitas consultarCitasDelEspecialista(String nombreEspecialista, String cedulaEspecialista, ConsultaCitas consulta) {
+        validarConsulta(consulta);
+        return citasRepository.consultarPorEspecialista(cedulaEspecialista, nombreEspecialista, consulta);
+    }
+
+    /**
+     * Cambios de citas (creación, cancelación, modificación, completado automático, actualización de datos
+     * del especialista) posteriores a la secuencia {@code desde}; con {@code desde = 0} se obtienen todas.
+     *
+     * @param limite Máximo de citas a devolver; null usa el máximo permitido
+     * @throws IllegalArgumentException Si algún parámetro no es válido
+     */
+    public CambiosCitas obtenerCambiosCitas(long desde, Integer limite) {
+        return citasRepository.cambiosDesde(desde, validarCambios(desde, limite));
+    }
+
+    public CambiosCitas obtenerCambiosCitasDelEspecialista(String nombreEspecialista, String cedulaEspecialista, long desde, Integer limite) {
+        return citasRepository.cambiosPorEspecialista(cedulaEspecialista, nombreEspecialista, desde, validarCambios(desde, limite));
+    }
+
+    private int validarCambios(long desde, Integer limite) {
+        if (desde < 0) {
+            throw new IllegalArgumentException("La secuencia 'desde' no puede ser negativa.");
+        }
+        if (limite == null) {
+            return MAX_LIMITE_CONSULTA;
         }
-        return new ArrayList<>();
+        if (limite < 1 || limite > MAX_LIMITE_CONSULTA) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + MAX_LIMITE_CONSULTA + ".");
+        }
+        return limite;
     }
 
-    public List<Cita> obtenerCitas() throws IOException {
-        if (!Files.exists(citasPath)) {
-            return new ArrayList<>();
+    private void validarConsulta(ConsultaCitas consulta) {
+        if (consulta.getLimite() != null && (consulta.getLimite() < 1 || consulta.getLimite() > MAX_LIMITE_CONSULTA)) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + MAX_LIMITE_CONSULTA + ".");
+        }
+        if (consulta.getOrden() != null && !consulta.getOrden().equalsIgnoreCase("asc") && !consulta.getOrden().equalsIgnoreCase("desc")) {
+            throw new IllegalArgumentException("El orden debe ser 'asc' o 'desc'.");
         }
-        String jsonContent = Files.readString(citasPath);
-        if (jsonContent.isBlank()) {
-            return new ArrayList<>();
+        try {
+            LocalDate desde = consulta.getDesde() == null ? null : LocalDate.parse(consulta.getDesde());
+            LocalDate hasta = consulta.getHasta() == null ? null : LocalDate.parse(consulta.getHasta());
+            if (desde != null && hasta != null && hasta.isBefore(desde)) {
+                throw new IllegalArgumentException("La fecha 'hasta' no puede ser anterior a 'desde'.");
+            }
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Las fechas deben tener el formato yyyy-MM-dd.");
         }
-        return objectMapper.readValue(jsonContent, new TypeReference<List<Cita>>() {});
     }
 
     public Optional<Cita> obtenerCitaPorId(String id) throws IOException {
-        return obtenerCitas()
-                .stream()
-                .filter(cita -> cita.getId().equals(id))
-                .findFirst();
+        return citasRepository.buscarPorId(id);
     }
 
+    /**
+     * Agenda una cita nueva si el horario del especialista está libre.
+     *
+     * @throws IllegalStateException Si ya existe una cita con el mismo ID; nunca se reemplaza
+     */
     public Cita guardarCita(Cita nuevaCita) throws IOException {
-        List<Cita> citas = obtenerCitas();
-        
         if (!isHoraValida(nuevaCita.getHora())) {
             throw new IOException("La hora seleccionada no es válida. Las citas deben ser en bloques de una hora desde las 08:00 hasta las 18:00.");
         }
         
-        boolean citaExistente = citas.stream()
-            .anyMatch(cita -> 
-                cita.getFecha().equals(nuevaCita.getFecha()) &&
-                cita.getHora().equals(nuevaCita.getHora()) &&
-                (cita.getCedulaEspecialista() != null && cita.getCedulaEspecialista().equals(nuevaCita.getCedulaEspecialista()) ||
-                 cita.getCedulaEspecialista() == null && cita.getEspecialista().equals(nuevaCita.getEspecialista())) &&
-                !cita.getEstado().equals("cancelada")
-            );
-        
-        if (citaExistente) {
-            throw new IOException("Ya existe una cita agendada para este especialista en la fecha y hora seleccionadas");
-        }
-        
-        citas.add(nuevaCita);
-        guardarCitasAJson(citas);
-        
-        // Generar notificación automáticamente al agendar la cita (para el paciente)
-        generarNotificacionCita(nuevaCita);
+        // La verificación y el guardado son atómicos para la agenda de este especialista
+        bloqueosAgenda.ejecutar(nuevaCita.getCedulaEspecialista(), nuevaCita.getEspecialista(), () -> {
+            // Búsqueda directa en el índice de ocupación (especialista, fecha, hora)
+            boolean citaExistente = !citasRepository.buscarOcupantes(
+                    nuevaCita.getCedulaEspecialista(), nuevaCita.getEspecialista(),
+                    nuevaCita.getFecha(), nuevaCita.getHora()).isEmpty();
+
+            if (citaExistente) {
+                throw new IOException("Ya existe una cita agendada para este especialista en la fecha y hora seleccionadas");
+            }
+
+            // La cita y su aviso (notificaciones al paciente y al especialista) se guardan juntos
+            return citasRepository.insertar(nuevaCita, new AvisoCita(AvisoCita.Tipo.AGENDADA, nuevaCita));
+        });
         
-        // Generar notificación para el especialista
-        generarNotificacionCitaParaEspecialista(nuevaCita);
+        programarEntregaAvisos();
         
         return nuevaCita;
     }
 
     /**
-     * Genera una notificación automática cuando se agenda una cita
-     * 
-     * @param cita La cita que se acaba de agendar
+     * Encola la entrega de la bandeja de avisos para que la petición no espere las notificaciones.
      */
-    private void generarNotificacionCita(Cita cita) {
-        try {
-            System.out.println("INFO: Iniciando generación de notificación para la cita: " + cita.getId());
-            System.out.println("INFO: Correo del paciente: " + cita.getPacienteCorreo());
-            
-
-            String notificacionId = "NOTIF-" + System.currentTimeMillis() + "-" + cita.getId().substring(5);
-            
-
-            LocalDateTime ahora = LocalDateTime.now();
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
-            String fechaEnvio = ahora.format(formatter);
-            
-
-            String asunto = "Confirmación de cita agendada";
-            
-
-            String mensaje = String.format(
-                "Estimado/a %s,\n\n" +
-                "Su cita ha sido agendada exitosamente con los siguientes detalles:\n\n" +
-                "Especialista: %s\n" +
-                "Fecha: %s\n" +
-                "Hora: %s\n" +
-                "Motivo: %s\n\n" +
-                "Por favor, llegue 10 minutos antes de su cita.\n" +
-                "Si necesita cancelar o reprogramar, comuníquese con nosotros con anticipación.\n\n" +
-                "Gracias por confiar en nuestros servicios.",
-                cita.getPacienteNombre(),
-                cita.getEspecialista(),
-                cita.getFecha(),
-                cita.getHora(),
-                cita.getRazonConsulta()
-            );
-            
-
-            Notificacion notificacion = new Notificacion(
-                notificacionId,
-                fechaEnvio,
-                asunto,
-                "Clínica Podológica",
-                mensaje,
-                cita.getPacienteCorreo()
-            );
-            
-            System.out.println("INFO: Notificación creada con ID: " + notificacionId);
-            System.out.println("INFO: Correo destinatario: " + notificacion.getCorreoDestinatario());
-            
-
-            notificacionService.crearNotificacion(notificacion);
-            
-            System.out.println("INFO: Notificación guardada exitosamente para la cita: " + cita.getId());
-        } catch (IOException e) {
-            System.err.println("ERROR: Error al generar notificación para la cita " + cita.getId() + ": " + e.getMessage());
-            e.printStackTrace();
-            // No lanzamos la excepción para no interrumpir el proceso de creación de la cita
-        }
+    private void programarEntregaAvisos() {
+        colaNotificaciones.encolar("entrega de avisos de citas", this::entregarAvisosPendientes);
     }
 
     /**
-     * Genera una notificación automática para el especialista cuando se agenda una cita con él
-     * 
-     * @param cita La cita que se acaba de agendar
+     * Genera las notificaciones de cada aviso de la bandeja y lo confirma. Un aviso que falla queda en la
+     * bandeja y se reintenta en la próxima ejecución (ver {@link RecordatorioScheduler}); los que quedaron
+     * pendientes por un reinicio se entregan de la misma forma. Como los IDs de las notificaciones se derivan
+     * del aviso, reintentar uno entregado a medias no duplica la notificación que ya se había creado.
      */
-    private void generarNotificacionCitaParaEspecialista(Cita cita) {
-        try {
-            System.out.println("INFO: Iniciando generación de notificación para el especialista: " + cita.getEspecialista());
-            
-            // Obtener el correo del especialista
-            Optional<String> correoEspecialista = perfilService.obtenerCorreoEspecialistaPorNombre(cita.getEspecialista());
-            
-            if (correoEspecialista.isEmpty()) {
-                System.err.println("ADVERTENCIA: No se encontró el correo del especialista: " + cita.getEspecialista());
-                return;
+    public void entregarAvisosPendientes() {
+        synchronized (bloqueoEntregaAvisos) {
+            for (AvisoCita aviso : citasRepository.avisosPendientes()) {
+                try {
+                    entregarAviso(aviso);
+                    citasRepository.confirmarAviso(aviso.getId());
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("ERROR: No se pudo entregar el aviso " + aviso.getId() + "; se reintentará: " + e.getMessage());
+                }
             }
-            
-            System.out.println("INFO: Correo del especialista: " + correoEspecialista.get());
-            
-            // Generar ID único para la notificación
-            String notificacionId = "NOTIF-ESP-" + System.currentTimeMillis() + "-" + cita.getId().substring(5);
-            
-            // Obtener fecha y hora actual
-            LocalDateTime ahora = LocalDateTime.now();
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
-            String fechaEnvio = ahora.format(formatter);
-            
-            // Asunto de la notificación
-            String asunto = "Nueva cita agendada - " + cita.getPacienteNombre();
-            
-            // Mensaje de la notificación
-            String mensaje = String.format(
-                "Estimado/a Dr./Dra. %s,\n\n" +
-                "Se ha agendado una nueva cita con usted:\n\n" +
-                "Paciente: %s\n" +
-                "Fecha: %s\n" +
-                "Hora: %s\n" +
-                "Motivo de consulta: %s\n" +
-                "Teléfono del paciente: %s\n\n" +
-                "Por favor, revise su agenda y prepárese para la consulta.\n\n" +
-                "Saludos cordiales,\n" +
-                "Sistema de Gestión de Citas",
-                cita.getEspecialista(),
-                cita.getPacienteNombre(),
-                cita.getFecha(),
-                cita.getHora(),
-                cita.getRazonConsulta(),
-                cita.getPacienteTelefono()
-            );
-            
-            // Crear la notificación
-            Notificacion notificacion = new Notificacion(
-                notificacionId,
-                fechaEnvio,
-                asunto,
-                "Sistema de Gestión de Citas",
-                mensaje,
-                correoEspecialista.get()
-            );
-            
-            System.out.println("INFO: Notificación para especialista creada con ID: " + notificacionId);
-            System.out.println("INFO: Correo destinatario: " + notificacion.getCorreoDestinatario());
-            
-            // Guardar la notificación
-            notificacionService.crearNotificacion(notificacion);
-            
-            System.out.println("INFO: Notificación para especialista guardada exitosamente para la cita: " + cita.getId());
-        } catch (IOException e) {
-            System.err.println("ERROR: Error al generar notificación para el especialista " + cita.getEspecialista() + ": " + e.getMessage());
-            e.printStackTrace();
-            // No lanzamos la excepción para no interrumpir el proceso de creación de la cita
         }
     }
 
-    /**
-     * Genera una notificación automática cuando se modifica una cita
-     * 
-     * @param cita La cita que se acaba de modificar
-     * @param fechaAnterior La fecha anterior de la cita
-     * @param horaAnterior La hora anterior de la cita
-     */
-    private void generarNotificacionModificacionCita(Cita cita, String fechaAnterior, String horaAnterior) {
-        try {
-            System.out.println("INFO: Iniciando generación de notificación de modificación para la cita: " + cita.getId());
-            System.out.println("INFO: Correo del paciente: " + cita.getPacienteCorreo());
-            
-
-            String notificacionId = "NOTIF-MOD-" + System.currentTimeMillis() + "-" + cita.getId().substring(5);
-            
-
-            LocalDateTime ahora = LocalDateTime.now();
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
-            String fechaEnvio = ahora.format(formatter);
-            
-
-            String asunto = "Modificación de cita - Información actualizada";
-            
-
-            String mensaje = String.format(
-                "Estimado/a %s,\n\n" +
-                "Le informamos que su cita ha sido modificada.\n\n" +
-                "INFORMACIÓN ANTERIOR:\n" +
-                "Fecha: %s\n" +
-                "Hora: %s\n\n" +
-                "NUEVA INFORMACIÓN:\n" +
-                "Especialista: %s\n" +
-                "Fecha: %s\n" +
-                "Hora: %s\n" +
-                "Motivo: %s\n\n" +
-                "Por favor, tome nota de los nuevos datos y llegue 10 minutos antes de su cita.\n" +
-                "Si tiene alguna duda o necesita realizar cambios adicionales, comuníquese con nosotros.\n\n" +
-                "Gracias por su comprensión.",
-                cita.getPacienteNombre(),
-                fechaAnterior,
-                horaAnterior,
-                cita.getEspecialista(),
-                cita.getFecha(),
-                cita.getHora(),
-                cita.getRazonConsulta()
-            );
-            
-
-            Notificacion notificacion = new Notificacion(
-                notificacionId,
-                fechaEnvio,
-                asunto,
-                "Clínica Podológica",
-                mensaje,
-                cita.getPacienteCorreo()
-            );
-            
-            System.out.println("INFO: Notificación de modificación creada con ID: " + notificacionId);
-            System.out.println("INFO: Correo destinatario: " + notificacion.getCorreoDestinatario());
-            
-
-            notificacionService.crearNotificacion(notificacion);
-            
-            System.out.println("INFO: Notificación de modificación guardada exitosamente para la cita: " + cita.getId());
-        } catch (IOException e) {
-            System.err.println("ERROR: Error al generar notificación de modificación para la cita " + cita.getId() + ": " + e.getMessage());
-            e.printStackTrace();
-            // No lanzamos la excepción para no interrumpir el proceso de modificación de la cita
+    private void entregarAviso(AvisoCita aviso) throws IOException {
+        generarNotificacion(aviso, PlantillasNotificacion.Destinatario.PACIENTE);
+        generarNotificacion(aviso, PlantillasNotificacion.Destinatario.ESPECIALISTA);
+    }
+
+    private void crearSiNoExiste(Notificacion notificacion) throws IOException {
+        if (notificacionService.existeNotificacion(notificacion.getId())) {
+            System.out.println("INFO: La notificación " + notificacion.getId() + " ya existía; no se vuelve a crear");
+            return;
         }
+        notificacionService.crearNotificacion(notificacion);
     }
 
     /**
-     * Genera una notificación automática para el especialista cuando se modifica una cita
-     * 
-     * @param cita La cita que se acaba de modificar
-     * @param fechaAnterior La fecha anterior de la cita
-     * @param horaAnterior La hora anterior de la cita
+     * Genera la notificación del aviso para el paciente o para el especialista de la cita,
+     * con la plantilla que corresponde al tipo de aviso y al destinatario.
+     *
+     * @throws IOException Si no se pudo guardar; el aviso queda en la bandeja para reintentarlo
      */
-    private void generarNotificacionModificacionCitaParaEspecialista(Cita cita, String fechaAnterior, String horaAnterior) {
-        try {
-            System.out.println("INFO: Iniciando generación de notificación de modificación para el especialista: " + cita.getEspecialista());
-            
-            // Obtener el correo del especialista
+    private void generarNotificacion(AvisoCita aviso, PlantillasNotificacion.Destinatario destinatario) throws IOException {
+        Cita cita = aviso.getCita();
+        String correoDestinatario;
+        if (destinatario == PlantillasNotificacion.Destinatario.PACIENTE) {
+            correoDestinatario = cita.getPacienteCorreo();
+        } else {
             Optional<String> correoEspecialista = perfilService.obtenerCorreoEspecialistaPorNombre(cita.getEspecialista());
-            
             if (correoEspecialista.isEmpty()) {
                 System.err.println("ADVERTENCIA: No se encontró el correo del especialista: " + cita.getEspecialista());
                 return;
             }
-            
-            System.out.println("INFO: Correo del especialista: " + correoEspecialista.get());
-            
-            // Generar ID único para la notificación
-            String notificacionId = "NOTIF-ESP-MOD-" + System.currentTimeMillis() + "-" + cita.getId().substring(5);
-            
-            // Obtener fecha y hora actual
-            LocalDateTime ahora = LocalDateTime.now();
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
-            String fechaEnvio = ahora.format(formatter);
-            
-            // Asunto de la notificación
-            String asunto = "Modificación de cita - " + cita.getPacienteNombre();
-            
-            // Mensaje de la notificación
-            String mensaje = String.format(
-                "Estimado/a Dr./Dra. %s,\n\n" +
-                "Se ha modificado una cita en su agenda:\n\n" +
-                "INFORMACIÓN ANTERIOR:\n" +
-                "Fecha: %s\n" +
-                "Hora: %s\n\n" +
-                "NUEVA INFORMACIÓN:\n" +
-                "Paciente: %s\n" +
-                "Fecha: %s\n" +
-                "Hora: %s\n" +
-                "Motivo de consulta: %s\n" +
-                "Teléfono del paciente: %s\n\n" +
-                "Por favor, tome nota de los cambios en su agenda.\n\n" +
-                "Saludos cordiales,\n" +
-                "Sistema de Gestión de Citas",
-                cita.getEspecialista(),
-                fechaAnterior,
-                horaAnterior,
-                cita.getPacienteNombre(),
-                cita.getFecha(),
-                cita.getHora(),
-                cita.getRazonConsulta(),
-                cita.getPacienteTelefono()
-            );
-            
-            // Crear la notificación
-            Notificacion notificacion = new Notificacion(
-                notificacionId,
-                fechaEnvio,
-                asunto,
-                "Sistema de Gestión de Citas",
-                mensaje,
-                correoEspecialista.get()
-            );
-            
-            System.out.println("INFO: Notificación de modificación para especialista creada con ID: " + notificacionId);
-            System.out.println("INFO: Correo destinatario: " + notificacion.getCorreoDestinatario());
-            
-            // Guardar la notificación
-            notificacionService.crearNotificacion(notificacion);
-            
-            System.out.println("INFO: Notificación de modificación para especialista guardada exitosamente para la cita: " + cita.getId());
-        } catch (IOException e) {
-            System.err.println("ERROR: Error al generar notificación de modificación para el especialista " + cita.getEspecialista() + ": " + e.getMessage());
-            e.printStackTrace();
-            // No lanzamos la excepción para no interrumpir el proceso de modificación de la cita
+            correoDestinatario = correoEspecialista.get();
         }
-    }
 
-    /**
-     * Genera una notificación automática cuando se cancela una cita
-     * 
-     * @param cita La cita que se acaba de cancelar
-     */
-    private void generarNotificacionCancelacionCita(Cita cita) {
+        // Se guarda solo la plantilla y sus parámetros; el texto se genera al consultarla
+        Notificacion notificacion = plantillasNotificacion.crear(aviso, destinatario, correoDestinatario,
+                LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+
         try {
-            System.out.println("INFO: Iniciando generación de notificación de cancelación para la cita: " + cita.getId());
-            System.out.println("INFO: Correo del paciente: " + cita.getPacienteCorreo());
-            
-            String notificacionId = "NOTIF-CAN-" + System.currentTimeMillis() + "-" + cita.getId().substring(5);
-            
-            LocalDateTime ahora = LocalDateTime.now();
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
-            String fechaEnvio = ahora.format(formatter);
-            
-            String asunto = "Cancelación de cita";
-            
-            String mensaje = String.format(
-                "Estimado/a %s,\n\n" +
-                "Le informamos que su cita ha sido cancelada.\n\n" +
-                "DETALLES DE LA CITA CANCELADA:\n" +
-                "Especialista: %s\n" +
-                "Fecha: %s\n" +
-                "Hora: %s\n" +
-                "Motivo: %s\n\n" +
-                "Si desea agendar una nueva cita, puede hacerlo a través de nuestro sistema.\n" +
-                "Si tiene alguna duda o necesita asistencia, no dude en contactarnos.\n\n" +
-                "Gracias por su comprensión.",
-                cita.getPacienteNombre(),
-                cita.getEspecialista(),
-                cita.getFecha(),
-                cita.getHora(),
-                cita.getRazonConsulta()
-            );
-            
-            Notificacion notificacion = new Notificacion(
-                notificacionId,
-                fechaEnvio,
-                asunto,
-                "Clínica Podológica",
-                mensaje,
-                cita.getPacienteCorreo()
-            );
-            
-            System.out.println("INFO: Notificación de cancelación creada con ID: " + notificacionId);
-            System.out.println("INFO: Correo destinatario: " + notificacion.getCorreoDestinatario());
-            
-            notificacionService.crearNotificacion(notificacion);
-            
-            System.out.println("INFO: Notificación de cancelación guardada exitosamente para la cita: " + cita.getId());
+            crearSiNoExiste(notificacion);
+            System.out.println("INFO: Notificación " + notificacion.getId() + " (" + aviso.getTipo() + ", " + destinatario
+                    + ") guardada para " + correoDestinatario);
         } catch (IOException e) {
-            System.err.println("ERROR: Error al generar notificación de cancelación para la cita " + cita.getId() + ": " + e.getMessage());
-            e.printStackTrace();
+            System.err.println("ERROR: Error al generar la notificación " + notificacion.getId() + " de la cita " + cita.getId() + ": " + e.getMessage());
+            throw e;
         }
     }
 
     /**
-     * Genera una notificación automática para el especialista cuando se cancela una cita
-     * 
-     * @param cita La cita que se acaba de cancelar
+     * Asigna la cédula del especialista a sus citas que solo lo identifican por el nombre exacto.
+     * Cada cita se vuelve a leer con la agenda bloqueada, para no pisar una reprogramación o cancelación
+     * concurrente con la versión leída antes; todas se guardan en una sola escritura.
+     *
+     * @return Citas actualizadas
      */
-    private void generarNotificacionCancelacionCitaParaEspecialista(Cita cita) {
-        try {
-            System.out.println("INFO: Iniciando generación de notificación de cancelación para el especialista: " + cita.getEspecialista());
-            
-            Optional<String> correoEspecialista = perfilService.obtenerCorreoEspecialistaPorNombre(cita.getEspecialista());
-            
-            if (correoEspecialista.isEmpty()) {
-                System.err.println("ADVERTENCIA: No se encontró el correo del especialista: " + cita.getEspecialista());
-                return;
-            }
-            
-            System.out.println("INFO: Correo del especialista: " + correoEspecialista.get());
-            
-            String notificacionId = "NOTIF-ESP-CAN-" + System.currentTimeMillis() + "-" + cita.getId().substring(5);
-            
-            LocalDateTime ahora = LocalDateTime.now();
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
-            String fechaEnvio = ahora.format(formatter);
-            
-            String asunto = "Cancelación de cita - " + cita.getPacienteNombre();
-            
-            String mensaje = String.format(
-                "Estimado/a Dr./Dra. %s,\n\n" +
-                "Se ha cancelado una cita en su agenda:\n\n" +
-                "DETALLES DE LA CITA CANCELADA:\n" +
-                "Paciente: %s\n" +
-                "Fecha: %s\n" +
-                "Hora: %s\n" +
-                "Motivo de consulta: %s\n" +
-                "Teléfono del paciente: %s\n\n" +
-                "Por favor, tome nota de que esta cita ha sido eliminada de su agenda.\n\n" +
-                "Saludos cordiales,\n" +
-                "Sistema de Gestión de Citas",
-                cita.getEspecialista(),
-                cita.getPacienteNombre(),
-                cita.getFecha(),
-                cita.getHora(),
-                cita.getRazonConsulta(),
-                cita.getPacienteTelefono()
-            );
-            
-            Notificacion notificacion = new Notificacion(
-                notificacionId,
-                fechaEnvio,
-                asunto,
-                "Sistema de Gestión de Citas",
-                mensaje,
-                correoEspecialista.get()
-            );
-            
-            System.out.println("INFO: Notificación de cancelación para especialista creada con ID: " + notificacionId);
-            System.out.println("INFO: Correo destinatario: " + notificacion.getCorreoDestinatario());
-            
-            notificacionService.crearNotificacion(notificacion);
-            
-            System.out.println("INFO: Notificación de cancelación para especialista guardada exitosamente para la cita: " + cita.getId());
-        } catch (IOException e) {
-            System.err.println("ERROR: Error al generar notificación de cancelación para el especialista " + cita.getEspecialista() + ": " + e.getMessage());
-            e.printStackTrace();
+    public List<Cita> asignarCedulaEspecialista(String especialista, String cedula) throws IOException {
+        List<Cita> sinCedula = obtenerCitasPorEspecialista(especialista).stream()
+                .filter(cita -> especialista.equals(cita.getEspecialista()) && esVacia(cita.getCedulaEspecialista()))
+                .toList();
+        if (sinCedula.isEmpty()) {
+            return List.of();
         }
+
+        return bloqueosAgenda.ejecutar(sinCedula, () -> {
+            List<Cita> aGuardar = new ArrayList<>(sinCedula.size());
+            for (Cita leida : sinCedula) {
+                Optional<Cita> actual = citasRepository.buscarPorId(leida.getId());
+                if (actual.isEmpty() || !especialista.equals(actual.get().getEspecialista())
+                        || !esVacia(actual.get().getCedulaEspecialista())) {
+                    continue;
+                }
+                Cita actualizada = new Cita(actual.get());
+                actualizada.setCedulaEspecialista(cedula);
+                aGuardar.add(actualizada);
+            }
+            citasRepository.guardarTodas(aGuardar);
+            return aGuardar;
+        });
     }
 
-    public void guardarCitasAJson(List<Cita> citas) throws IOException {
-        // Sobrescribe el archivo con los datos actuales en base_de_datos/citas.json
-        objectMapper.writerWithDefaultPrettyPrinter().writeValue(citasPath.toFile(), citas);
+    private static boolean esVacia(String valor) {
+        return valor == null || valor.isEmpty();
     }
 
     public boolean cancelarCita(String citaId) throws IOException {
-        List<Cita> citas = obtenerCitas();
-        
-        for (Cita cita : citas) {
-            if (cita.getId().equals(citaId)) {
-                cita.setEstado("cancelada");
-                guardarCitasAJson(citas);
-                
-                generarNotificacionCancelacionCita(cita);
-                generarNotificacionCancelacionCitaParaEspecialista(cita);
-                
-                return true;
-            }
+        Optional<Cita> citaExistente = citasRepository.buscarPorId(citaId);
+        if (citaExistente.isEmpty()) {
+            return false;
         }
-        return false;
+
+        // Se bloquea la agenda para no pisar una reprogramación concurrente de la misma cita
+        Cita cita = bloqueosAgenda.ejecutar(citaExistente.get().getCedulaEspecialista(), citaExistente.get().getEspecialista(), () -> {
+            Cita cancelada = new Cita(citasRepository.buscarPorId(citaId).orElseThrow());
+            cancelada.setEstado("cancelada");
+            return citasRepository.guardar(cancelada, new AvisoCita(AvisoCita.Tipo.CANCELADA, cancelada));
+        });
+
+        programarEntregaAvisos();
+
+        return true;
     }
 
     public List<Cita> obtenerCitasPorPaciente(String correoElectronico) throws IOException {
-        return obtenerCitas()
-                .stream()
-                .filter(cita -> cita.getPacienteCorreo().equals(correoElectronico))
-                .toList();
+        return citasRepository.buscarPorPaciente(correoElectronico);
     }
 
+    /**
+     * @param especialista Nombre exacto o cédula del especialista
+     */
     public List<Cita> obtenerCitasPorEspecialista(String especialista) throws IOException {
-        return obtenerCitas()
+        // El índice por nombre no distingue mayúsculas; aquí se exige el nombre exacto
+        return citasRepository.buscarPorEspecialista(especialista, especialista)
                 .stream()
-                .filter(cita -> cita.getEspecialista().equals(especialista) ||
-                        (cita.getCedulaEspecialista() != null && cita.getCedulaEspecialista().equals(especialista)))
+                .filter(cita -> especialista.equals(cita.getEspecialista()) || especialista.equals(cita.getCedulaEspecialista()))
                 .toList();
     }
 
@@ -580,51 +311,53 @@ public class CitasService {
      * @throws IllegalStateException Si el nuevo horario choca con otra cita.
      */
     public Cita modificarCitaCompleta(String citaId, Cita citaActualizada) throws IOException, IllegalStateException {
-        List<Cita> citas = obtenerCitas();
+        Optional<Cita> citaExistente = citasRepository.buscarPorId(citaId);
+        if (citaExistente.isEmpty()) {
+            return null;
+        }
 
-        for (int i = 0; i < citas.size(); i++) {
-            if (citas.get(i).getId().equals(citaId)) {
-                Cita citaOriginal = citas.get(i);
+        Cita citaModificada = bloqueosAgenda.ejecutar(citaExistente.get().getCedulaEspecialista(), citaExistente.get().getEspecialista(), () -> {
+            // Se vuelve a leer con la agenda bloqueada por si otra operación la cambió mientras tanto
+            Cita citaOriginal = new Cita(citasRepository.buscarPorId(citaId).orElseThrow());
 
-                // VALIDACIÓN: No se puede modificar una cita cancelada o completada
-                if ("cancelada".equalsIgnoreCase(citaOriginal.getEstado()) || "completada".equalsIgnoreCase(citaOriginal.getEstado())) {
-                    throw new IllegalStateException("No se puede modificar una cita que ya ha sido " + citaOriginal.getEstado().toUpperCase() + ".");
-                }
+            // VALIDACIÓN: No se puede modificar una cita cancelada o completada
+            if ("cancelada".equalsIgnoreCase(citaOriginal.getEstado()) || "completada".equalsIgnoreCase(citaOriginal.getEstado())) {
+                throw new IllegalStateException("No se puede modificar una cita que ya ha sido " + citaOriginal.getEstado().toUpperCase() + ".");
+            }
 
-                // Guardar los valores anteriores para la notificación
-                String fechaAnterior = citaOriginal.getFecha();
-                String horaAnterior = citaOriginal.getHora();
+            // Guardar los valores anteriores para la notificación
+            AvisoCita aviso = new AvisoCita(AvisoCita.Tipo.MODIFICADA, citaOriginal);
+            aviso.setFechaAnterior(citaOriginal.getFecha());
+            aviso.setHoraAnterior(citaOriginal.getHora());
 
-                String especialistaNombre = citaOriginal.getEspecialista();
-                String nuevaFecha = citaActualizada.getFecha();
-                String nuevaHora = citaActualizada.getHora();
+            String especialistaNombre = citaOriginal.getEspecialista();
+            LocalDate nuevaFecha = citaActualizada.getFecha();
+            LocalTime nuevaHora = citaActualizada.getHora();
 
-                if (!isHoraValida(nuevaHora)) {
-                    throw new IllegalStateException("La hora seleccionada no es válida. Las citas deben ser en bloques de una hora desde las 08:00 hasta las 18:00.");
-                }
+            if (nuevaFecha == null) {
+                throw new IllegalStateException("La nueva fecha es obligatoria.");
+            }
 
-                if (!isHorarioDisponible(especialistaNombre, nuevaFecha, nuevaHora, citaId)) {
+            if (!isHoraValida(nuevaHora)) {
+                throw new IllegalStateException("La hora seleccionada no es válida. Las citas deben ser en bloques de una hora desde las 08:00 hasta las 18:00.");
+            }
 
-                    throw new IllegalStateException("El horario solicitado ya está ocupado por otra cita.");
-                }
+            if (!isHorarioDisponible(especialistaNombre, nuevaFecha, nuevaHora, citaId)) {
 
+                throw new IllegalStateException("El horario solicitado ya está ocupado por otra cita.");
+            }
 
-                citaOriginal.setFecha(nuevaFecha);
-                citaOriginal.setHora(nuevaHora);
 
+            citaOriginal.setFecha(nuevaFecha);
+            citaOriginal.setHora(nuevaHora);
+            aviso.setCita(new Cita(citaOriginal));
 
-                guardarCitasAJson(citas);
-                
-                // Generar notificación de modificación para el paciente
-                generarNotificacionModificacionCita(citaOriginal, fechaAnterior, horaAnterior);
-                
-                // Generar notificación de modificación para el especialista
-                generarNotificacionModificacionCitaParaEspecialista(citaOriginal, fechaAnterior, horaAnterior);
-                
-                return citaOriginal;
-            }
-        }
-        return null;
+            return citasRepository.guardar(citaOriginal, aviso);
+        });
+
+        programarEntregaAvisos();
+
+        return citaModificada;
     }
 
     /**
@@ -637,78 +370,88 @@ public class CitasService {
      * @param citaIdExcluir      El ID de la cita que estamos intentando modificar (para no chocar con ella misma).
      * @return true si el horario está disponible, false si está ocupado.
      */
-    public boolean isHorarioDisponible(String especialistaNombre, String nuevaFecha, String nuevaHora, String citaIdExcluir) throws IOException {
-        List<Cita> citas = obtenerCitas();
-
-        // Primero, obtener la cita que vamos a modificar para saber su cedula
-        Optional<Cita> citaAModificar = citas.stream()
-                .filter(cita -> cita.getId().equals(citaIdExcluir))
-                .findFirst();
-
-        Optional<Cita> citaOcupada = citas.stream()
-                .filter(cita ->
-                        !cita.getId().equals(citaIdExcluir) &&
-                                (cita.getCedulaEspecialista() != null && citaAModificar.isPresent() && 
-                                    cita.getCedulaEspecialista().equals(citaAModificar.get().getCedulaEspecialista()) ||
-                                 cita.getCedulaEspecialista() == null && cita.getEspecialista().equals(especialistaNombre)) &&
-                                cita.getFecha().equals(nuevaFecha) &&
-                                cita.getHora().equals(nuevaHora) &&
-                                !cita.getEstado().equals("cancelada")
-                )
-                .findFirst();
-
-        return citaOcupada.isEmpty();
+    public boolean isHorarioDisponible(String especialistaNombre, LocalDate nuevaFecha, LocalTime nuevaHora, String citaIdExcluir) throws IOException {
+        // La cédula se toma de la cita que vamos a modificar
+        String cedulaEspecialista = citasRepository.buscarPorId(citaIdExcluir)
+                .map(Cita::getCedulaEspecialista)
+                .orElse(null);
+
+        Set<String> ocupantes = citasRepository.buscarOcupantes(cedulaEspecialista, especialistaNombre, nuevaFecha, nuevaHora);
+        return ocupantes.stream().allMatch(id -> id.equals(citaIdExcluir));
     }
 
-    public void actualizarEstadosCitas() throws IOException {
-        List<Cita> citas = obtenerCitas();
-        LocalDateTime ahora = LocalDateTime.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-        boolean huboCambios = false;
-
-        for (Cita cita : citas) {
-            if ("pendiente".equalsIgnoreCase(cita.getEstado())) {
-                try {
-                    LocalDateTime fechaCita = LocalDateTime.parse(cita.getFecha() + " " + cita.getHora(), formatter);
-                    if (ahora.isAfter(fechaCita)) {
-                        cita.setEstado("completada");
-                        huboCambios = true;
-                        System.out.println("INFO: Cita " + cita.getId() + " marcada como COMPLETADA automáticamente.");
-                    }
-                } catch (Exception e) {
-                    System.err.println("ERROR: No se pudo procesar la fecha/hora de la cita " + cita.getId() + ": " + e.getMessage());
+    /**
+     * Calcula los bloques de una hora libres (08:00 a 18:00) de un especialista en cada día del rango.
+     * Se resuelve con el mapa de bits de ocupación por día, sin recorrer las citas.
+     *
+     * @param cedulaEspecialista Cédula del especialista (puede ser null)
+     * @param especialista       Nombre completo del especialista
+     * @param desde              Primer día, inclusive
+     * @param hasta              Último día, inclusive
+     */
+    public List<DisponibilidadDia> obtenerDisponibilidad(String cedulaEspecialista, String especialista, LocalDate desde, LocalDate hasta) {
+        List<DisponibilidadDia> dias = new ArrayList<>();
+        for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            int libres = ~citasRepository.horasOcupadas(cedulaEspecialista, especialista, dia) & HORAS_AGENDA;
+
+            List<String> horas = new ArrayList<>(Integer.bitCount(libres));
+            for (int h = HORA_INICIO; h <= HORA_FIN; h++) {
+                if ((libres & (1 << (h - HORA_INICIO))) != 0) {
+                    horas.add(String.format("%02d:00", h));
                 }
             }
+            dias.add(new DisponibilidadDia(dia.toString(), horas));
+        }
+        return dias;
+    }
+
+    /**
+     * Marca como completadas las citas pendientes cuya hora ya pasó.
+     * Solo consulta el inicio del índice de pendientes por fecha, así que no cuesta nada si ninguna venció.
+     * Todas las vencidas se guardan en una sola escritura (un registro del journal y un fsync).
+     */
+    public void actualizarEstadosCitas() throws IOException {
+        List<Cita> vencidas = citasRepository.buscarPendientesVencidas(LocalDateTime.now());
+        if (vencidas.isEmpty()) {
+            return;
         }
 
-        if (huboCambios) {
-            guardarCitasAJson(citas);
+        // Con las agendas bloqueadas para no pisar una reprogramación concurrente
+        List<Cita> completadas = bloqueosAgenda.ejecutar(vencidas, () -> {
+            List<Cita> aGuardar = new ArrayList<>(vencidas.size());
+            for (Cita vencida : vencidas) {
+                Optional<Cita> actual = citasRepository.buscarPorId(vencida.getId());
+                if (actual.isEmpty() || !"pendiente".equalsIgnoreCase(actual.get().getEstado())
+                        || !Objects.equals(actual.get().getFecha(), vencida.getFecha())
+                        || !Objects.equals(actual.get().getHora(), vencida.getHora())) {
+                    continue;
+                }
+                Cita completada = new Cita(actual.get());
+                completada.setEstado("completada");
+                aGuardar.add(completada);
+            }
+            citasRepository.guardarTodas(aGuardar);
+            return aGuardar;
+        });
+        for (Cita completada : completadas) {
+            System.out.println("INFO: Cita " + completada.getId() + " marcada como COMPLETADA automáticamente.");
         }
     }
 
     public List<Cita> obtenerCitasDelEspecialista(String nombreEspecialista, String cedulaEspecialista) throws IOException {
         System.out.println("INFO: Buscando citas para especialista: " + nombreEspecialista + " (Cédula: " + cedulaEspecialista + ")");
         
-        List<Cita> todasLasCitas = obtenerCitas();
-        
-        List<Cita> citasEspecialista = todasLasCitas.stream()
-                .filter(cita -> {
-                    boolean coincideNombre = cita.getEspecialista() != null && cita.getEspecialista().equalsIgnoreCase(nombreEspecialista);
-                    boolean coincideCedula = cita.getCedulaEspecialista() != null && cita.getCedulaEspecialista().equals(cedulaEspecialista);
-                    return coincideNombre || coincideCedula;
-                })
-                .toList();
+        List<Cita> citasEspecialista = citasRepository.buscarPorEspecialista(cedulaEspecialista, nombreEspecialista);
         
         System.out.println("INFO: Se encontraron " + citasEspecialista.size() + " citas para el especialista");
         return citasEspecialista;
     }
 
-    private boolean isHoraValida(String hora) {
-        if (hora == null || !hora.matches("^([01][0-9]|2[0-3]):00$")) {
+    private boolean isHoraValida(LocalTime hora) {
+        if (hora == null || hora.getMinute() != 0 || hora.getSecond() != 0 || hora.getNano() != 0) {
             return false;
         }
-        int h = Integer.parseInt(hora.split(":")[0]);
-        return h >= 8 && h <= 18;
+        return hora.getHour() >= HORA_INICIO && hora.getHour() <= HORA_FIN;
     }
 
 }
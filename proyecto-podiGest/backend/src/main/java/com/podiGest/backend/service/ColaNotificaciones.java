@@ -0,0 +1,77 @@
+package com.podiGest.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cola acotada en la que las operaciones de citas dejan la generación de sus notificaciones,
+ * para que la respuesta HTTP no espere la escritura de notificaciones ni la búsqueda del especialista.
+ *
+ * Un único hilo trabajador procesa las tareas en orden de llegada. Si la cola se llena, la tarea se
+ * ejecuta en el hilo que la encola (contrapresión): la petición se vuelve más lenta, pero ninguna
+ * notificación se pierde. Al detener la aplicación se terminan todas las tareas pendientes antes de
+ * cerrar los repositorios de notificaciones, citas y usuarios.
+ */
+@Component
+// Spring destruye esta cola antes que los beans de los que depende (y antes que sus repositorios), de modo
+// que las tareas pendientes todavía puedan guardar notificaciones, confirmar los avisos de la bandeja de
+// citas y buscar el correo del especialista. No depende de CitasService, que es quien la usa.
+@DependsOn({"notificacionService", "citasRepository", "perfilService"})
+public class ColaNotificaciones {
+
+    private static final long ESPERA_CIERRE_SEGUNDOS = 30;
+
+    private final ThreadPoolExecutor ejecutor;
+
+    public ColaNotificaciones(@Value("${podigest.notificaciones.capacidad-cola:1000}") int capacidad) {
+        AtomicInteger hilos = new AtomicInteger();
+        this.ejecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidad),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "notificaciones-" + hilos.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                // Como CallerRunsPolicy, pero también tras el cierre, para no descartar la tarea
+                (tarea, rechazante) -> tarea.run());
+    }
+
+    /**
+     * Encola la tarea. Los errores se informan en el log; nunca se propagan a quien la encoló.
+     *
+     * @param descripcion Texto para identificar la tarea en el log si falla
+     */
+    public void encolar(String descripcion, Runnable tarea) {
+        Runnable protegida = () -> {
+            try {
+                tarea.run();
+            } catch (RuntimeException e) {
+                System.err.println("ERROR: Falló la tarea de notificación (" + descripcion + "): " + e.getMessage());
+            }
+        };
+        ejecutor.execute(protegida);
+    }
+
+    public int getPendientes() {
+        return ejecutor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void cerrar() throws InterruptedException {
+        int pendientes = getPendientes();
+        ejecutor.shutdown();
+        if (pendientes > 0) {
+            System.out.println("INFO: Esperando " + pendientes + " notificaciones pendientes antes de cerrar");
+        }
+        if (!ejecutor.awaitTermination(ESPERA_CIERRE_SEGUNDOS, TimeUnit.SECONDS)) {
+            System.err.println("ADVERTENCIA: Quedaron " + getPendientes() + " notificaciones sin generar al cerrar");
+        }
+    }
+}
@@ -22,6 +22,7 @@ public class CorsConfig implements WebMvcConfigurer {
                 )
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS") // Permite los métodos HTTP comunes
                 .allowedHeaders("*")
+                .exposedHeaders(SesionesUsuario.CABECERA_TOKEN) // El frontend lee el token de sesión en el login
                 .allowCredentials(true);
     }
 }
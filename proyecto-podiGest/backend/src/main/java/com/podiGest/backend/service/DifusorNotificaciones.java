@@ -0,0 +1,123 @@
+package com.podiGest.backend.service;
+
+import com.podiGest.backend.model.Notificacion;
+import com.podiGest.backend.repository.NotificacionesRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Conexiones Server-Sent Events de /api/notificaciones/stream, agrupadas por correo del destinatario.
+ *
+ * Envía dos tipos de eventos: "notificacion" (una notificación nueva, ya renderizada, incluidos los
+ * recordatorios que se disparan) y "conteo" (el nuevo número de notificaciones no silenciadas).
+ * Las conexiones abiertas no ocupan hilos: el servlet las mantiene en modo asíncrono, y solo se
+ * trabaja cuando hay algo que enviar o en el latido periódico que detecta los clientes desconectados.
+ */
+@Component
+public class DifusorNotificaciones {
+
+    // Al vencer, el navegador (EventSource) se reconecta solo
+    private static final long DURACION_CONEXION_MS = 30 * 60 * 1000L;
+
+    private final NotificacionesRepository notificacionesRepository;
+    private final Map<String, Set<SseEmitter>> conexiones = new ConcurrentHashMap<>();
+
+    public DifusorNotificaciones(NotificacionesRepository notificacionesRepository) {
+        this.notificacionesRepository = notificacionesRepository;
+    }
+
+    /**
+     * Abre una conexión para el usuario y le envía de inmediato su conteo actual.
+     */
+    public SseEmitter suscribir(String correo) {
+        String clave = clave(correo);
+        SseEmitter emisor = new SseEmitter(DURACION_CONEXION_MS);
+        Set<SseEmitter> delUsuario = conexiones.computeIfAbsent(clave, k -> new CopyOnWriteArraySet<>());
+        delUsuario.add(emisor);
+        emisor.onCompletion(() -> quitar(clave, emisor));
+        emisor.onTimeout(() -> quitar(clave, emisor));
+        emisor.onError(error -> quitar(clave, emisor));
+
+        enviar(clave, emisor, SseEmitter.event().name("conteo").data(notificacionesRepository.contarNoSilenciadas(correo)));
+        return emisor;
+    }
+
+    public boolean estaConectado(String correo) {
+        return conexiones.containsKey(clave(correo));
+    }
+
+    /**
+     * Envía la notificación (ya renderizada) y el conteo actualizado a las conexiones de su destinatario.
+     */
+    public void publicarNotificacion(Notificacion notificacion) {
+        String clave = clave(notificacion.getCorreoDestinatario());
+        Set<SseEmitter> delUsuario = conexiones.get(clave);
+        if (delUsuario == null) {
+            return;
+        }
+        for (SseEmitter emisor : delUsuario) {
+            enviar(clave, emisor, SseEmitter.event().name("notificacion").data(notificacion, MediaType.APPLICATION_JSON));
+        }
+        publicarConteo(notificacion.getCorreoDestinatario());
+    }
+
+    public void publicarConteo(String correo) {
+        String clave = clave(correo);
+        Set<SseEmitter> delUsuario = conexiones.get(clave);
+        if (delUsuario == null) {
+            return;
+        }
+        int conteo = notificacionesRepository.contarNoSilenciadas(correo);
+        for (SseEmitter emisor : delUsuario) {
+            enviar(clave, emisor, SseEmitter.event().name("conteo").data(conteo));
+        }
+    }
+
+    /**
+     * Comentario SSE periódico: mantiene viva la conexión a través de proxies y descarta los clientes que ya no están.
+     */
+    @Scheduled(fixedRate = 25000)
+    public void latido() {
+        conexiones.forEach((clave, delUsuario) -> {
+            for (SseEmitter emisor : delUsuario) {
+                enviar(clave, emisor, SseEmitter.event().comment("latido"));
+            }
+        });
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        conexiones.values().forEach(delUsuario -> delUsuario.forEach(SseEmitter::complete));
+        conexiones.clear();
+    }
+
+    private void enviar(String clave, SseEmitter emisor, SseEmitter.SseEventBuilder evento) {
+        try {
+            emisor.send(evento);
+        } catch (IOException | IllegalStateException e) {
+            // Cliente desconectado o conexión ya cerrada
+            quitar(clave, emisor);
+        }
+    }
+
+    private void quitar(String clave, SseEmitter emisor) {
+        conexiones.computeIfPresent(clave, (k, delUsuario) -> {
+            delUsuario.remove(emisor);
+            return delUsuario.isEmpty() ? null : delUsuario;
+        });
+    }
+
+    private static String clave(String correo) {
+        return correo == null ? "" : correo.toLowerCase(Locale.ROOT);
+    }
+}
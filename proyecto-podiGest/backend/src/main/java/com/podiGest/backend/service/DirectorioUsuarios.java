@@ -0,0 +1,188 @@
+package com.podiGest.backend.service;
+
+import com.podiGest.backend.model.Usuario;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Usuarios registrados, con índices hash por correo (sin distinguir mayúsculas), por cédula y, para los
+ * especialistas, por nombre normalizado. Las búsquedas no recorren la lista.
+ *
+ * Los lectores trabajan sobre una instantánea inmutable y nunca se bloquean; cada escritura publica una
+ * instantánea nueva. El correo y la cédula son únicos: los índices rechazan el alta o el cambio que
+ * los repetiría, en lugar de limpiar duplicados después.
+ */
+class DirectorioUsuarios {
+
+    private static final String ROL_ESPECIALISTA = "especialista";
+
+    private final Object bloqueoEscritura = new Object();
+    private volatile Instantanea instantanea;
+
+    /**
+     * Los usuarios con correo o cédula repetidos se descartan (se conserva el primero), con una advertencia.
+     */
+    DirectorioUsuarios(Collection<Usuario> usuarios) {
+        Map<String, Usuario> porCedula = new LinkedHashMap<>();
+        Map<String, Usuario> porCorreo = new HashMap<>();
+        for (Usuario usuario : usuarios) {
+            String correo = clave(usuario.getCorreoElectronico());
+            if (porCedula.containsKey(usuario.getCedula()) || (correo != null && porCorreo.containsKey(correo))) {
+                System.err.println("ADVERTENCIA: Se descartó el usuario duplicado " + usuario.getCorreoElectronico() + " (cédula " + usuario.getCedula() + ")");
+                continue;
+            }
+            porCedula.put(usuario.getCedula(), usuario);
+            if (correo != null) {
+                porCorreo.put(correo, usuario);
+            }
+        }
+        this.instantanea = new Instantanea(porCedula.values());
+    }
+
+    /**
+     * @return Todos los usuarios en orden de registro (lista inmutable)
+     */
+    List<Usuario> listar() {
+        return instantanea.usuarios;
+    }
+
+    Optional<Usuario> buscarPorCorreo(String correo) {
+        String clave = clave(correo);
+        return clave == null ? Optional.empty() : Optional.ofNullable(instantanea.porCorreo.get(clave));
+    }
+
+    Optional<Usuario> buscarPorCedula(String cedula) {
+        return cedula == null ? Optional.empty() : Optional.ofNullable(instantanea.porCedula.get(cedula));
+    }
+
+    List<Usuario> especialistas() {
+        return instantanea.especialistas;
+    }
+
+    /**
+     * Busca un especialista por nombre completo o, si no hay ninguno, por solo el nombre. No distingue
+     * mayúsculas ni cuenta los espacios repetidos.
+     */
+    Optional<Usuario> buscarEspecialistaPorNombre(String nombre) {
+        String clave = normalizarNombre(nombre);
+        if (clave == null) {
+            return Optional.empty();
+        }
+        Usuario usuario = instantanea.especialistasPorNombreCompleto.get(clave);
+        return Optional.ofNullable(usuario != null ? usuario : instantanea.especialistasPorNombre.get(clave));
+    }
+
+    /**
+     * @throws IllegalArgumentException si ya existe un usuario con ese correo o esa cédula
+     */
+    void agregar(Usuario usuario) {
+        synchronized (bloqueoEscritura) {
+            if (instantanea.porCedula.containsKey(usuario.getCedula())) {
+                throw new IllegalArgumentException("Ya existe un usuario registrado con esa cédula.");
+            }
+            validarCorreoLibre(usuario, null);
+            List<Usuario> usuarios = new ArrayList<>(instantanea.usuarios);
+            usuarios.add(usuario);
+            instantanea = new Instantanea(usuarios);
+        }
+    }
+
+    /**
+     * Reemplaza al usuario con esa cédula, conservando su posición.
+     *
+     * @return false si no existe un usuario con esa cédula
+     * @throws IllegalArgumentException si el correo nuevo ya pertenece a otro usuario
+     */
+    boolean reemplazar(String cedula, Usuario usuario) {
+        synchronized (bloqueoEscritura) {
+            if (!instantanea.porCedula.containsKey(cedula)) {
+                return false;
+            }
+            validarCorreoLibre(usuario, cedula);
+            List<Usuario> usuarios = new ArrayList<>(instantanea.usuarios.size());
+            for (Usuario actual : instantanea.usuarios) {
+                usuarios.add(actual.getCedula().equals(cedula) ? usuario : actual);
+            }
+            instantanea = new Instantanea(usuarios);
+            return true;
+        }
+    }
+
+    /**
+     * @return false si no existe un usuario con esa cédula
+     */
+    boolean quitar(String cedula) {
+        synchronized (bloqueoEscritura) {
+            if (!instantanea.porCedula.containsKey(cedula)) {
+                return false;
+            }
+            List<Usuario> usuarios = new ArrayList<>(instantanea.usuarios);
+            usuarios.removeIf(usuario -> usuario.getCedula().equals(cedula));
+            instantanea = new Instantanea(usuarios);
+            return true;
+        }
+    }
+
+    private void validarCorreoLibre(Usuario usuario, String cedulaPropia) {
+        String correo = clave(usuario.getCorreoElectronico());
+        Usuario existente = correo == null ? null : instantanea.porCorreo.get(correo);
+        if (existente != null && !existente.getCedula().equals(cedulaPropia)) {
+            throw new IllegalArgumentException("El correo electrónico ya está registrado por otro usuario.");
+        }
+    }
+
+    private static String clave(String correo) {
+        return correo == null ? null : correo.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalizarNombre(String nombre) {
+        if (nombre == null || nombre.isBlank()) {
+            return null;
+        }
+        return nombre.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Vista inmutable del directorio en un instante dado.
+     */
+    private static final class Instantanea {
+        private final List<Usuario> usuarios;
+        private final Map<String, Usuario> porCedula = new HashMap<>();
+        private final Map<String, Usuario> porCorreo = new HashMap<>();
+        private final List<Usuario> especialistas;
+        // Ante nombres repetidos se queda el primer especialista registrado
+        private final Map<String, Usuario> especialistasPorNombreCompleto = new HashMap<>();
+        private final Map<String, Usuario> especialistasPorNombre = new HashMap<>();
+
+        private Instantanea(Collection<Usuario> usuarios) {
+            this.usuarios = List.copyOf(usuarios);
+            List<Usuario> especialistas = new ArrayList<>();
+            for (Usuario usuario : this.usuarios) {
+                porCedula.put(usuario.getCedula(), usuario);
+                String correo = clave(usuario.getCorreoElectronico());
+                if (correo != null) {
+                    porCorreo.put(correo, usuario);
+                }
+                if (ROL_ESPECIALISTA.equalsIgnoreCase(usuario.getRol())) {
+                    especialistas.add(usuario);
+                    String nombre = normalizarNombre(usuario.getNombre());
+                    String nombreCompleto = normalizarNombre(usuario.getNombre() + " " + usuario.getApellido());
+                    if (nombreCompleto != null) {
+                        especialistasPorNombreCompleto.putIfAbsent(nombreCompleto, usuario);
+                    }
+                    if (nombre != null) {
+                        especialistasPorNombre.putIfAbsent(nombre, usuario);
+                    }
+                }
+            }
+            this.especialistas = List.copyOf(especialistas);
+        }
+    }
+}
@@ -1,193 +1,168 @@
 package com.podiGest.backend.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.podiGest.backend.model.CambiosNotificaciones;
 import com.podiGest.backend.model.Notificacion;
+import com.podiGest.backend.repository.NotificacionesRepository;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 public class NotificacionService {
 
-    private final Path notificacionesPath;
-    private final ObjectMapper objectMapper;
-    private static final String NOTIFICACIONES_JSON_FILE = "notificaciones.json";
+    private final NotificacionesRepository notificacionesRepository;
+    private final AgendaRecordatorios agendaRecordatorios;
+    private final PlantillasNotificacion plantillasNotificacion;
+    private final DifusorNotificaciones difusorNotificaciones;
 
-    public NotificacionService() {
-        this.notificacionesPath = PathConfigService.getSeedFilePath(NOTIFICACIONES_JSON_FILE);
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
-        
-        inicializarNotificaciones();
+    public NotificacionService(NotificacionesRepository notificacionesRepository, TaskScheduler taskScheduler,
+                               PlantillasNotificacion plantillasNotificacion, DifusorNotificaciones difusorNotificaciones) {
+        this.notificacionesRepository = notificacionesRepository;
+        this.plantillasNotificacion = plantillasNotificacion;
+        this.difusorNotificaciones = difusorNotificaciones;
+        this.agendaRecordatorios = new AgendaRecordatorios(taskScheduler, this::dispararRecordatorio);
+        cargarRecordatoriosActivos();
     }
 
-    private void inicializarNotificaciones() {
-        try {
-            if (!Files.exists(notificacionesPath) || Files.size(notificacionesPath) == 0) {
-                List<Notificacion> notificacionesIniciales = cargarDesdeClasspath();
-                if (!notificacionesIniciales.isEmpty()) {
-                    guardarNotificacionesAJson(notificacionesIniciales);
-                }
+    /**
+     * Programa los recordatorios activos guardados; cada fecha se interpreta una sola vez al arrancar.
+     */
+    private void cargarRecordatoriosActivos() {
+        for (Notificacion notificacion : notificacionesRepository.obtenerTodas()) {
+            if (notificacion.isTieneRecordatorio() && notificacion.isRecordatorioActivo()) {
+                programarRecordatorio(notificacion.getId(), notificacion.getFechaRecordatorio());
             }
-        } catch (IOException e) {
-            System.err.println("ERROR: No se pudieron inicializar las notificaciones: " + e.getMessage());
         }
+        System.out.println("INFO: Se programaron " + agendaRecordatorios.getPendientes() + " recordatorios activos");
     }
 
-    private List<Notificacion> cargarDesdeClasspath() {
-        try {
-            Path seedPath = PathConfigService.getSeedFilePath(NOTIFICACIONES_JSON_FILE);
-            if (Files.exists(seedPath)) {
-                String jsonContent = Files.readString(seedPath);
-                return objectMapper.readValue(jsonContent, new TypeReference<List<Notificacion>>() {});
-            }
-        } catch (IOException e) {
-            System.err.println("ADVERTENCIA: No se encontraron notificaciones iniciales en base_de_datos");
+    private void programarRecordatorio(String id, LocalDateTime fechaRecordatorio) {
+        if (fechaRecordatorio == null) {
+            System.err.println("ERROR: No se pudo programar el recordatorio de la notificación " + id + ": no tiene fecha");
+            return;
         }
-        return new ArrayList<>();
+        Instant vence = fechaRecordatorio.atZone(ZoneId.systemDefault()).toInstant();
+        agendaRecordatorios.programar(id, fechaRecordatorio, vence);
     }
 
+    /**
+     * Las notificaciones guardadas como plantilla se devuelven ya renderizadas, en todas las consultas.
+     */
     public List<Notificacion> obtenerNotificaciones() throws IOException {
-        if (!Files.exists(notificacionesPath)) {
-            return List.of();
-        }
-        String jsonContent = Files.readString(notificacionesPath);
-        if (jsonContent.isBlank()) {
-            return List.of();
-        }
-        return objectMapper.readValue(jsonContent, new TypeReference<>() {});
+        return renderizar(notificacionesRepository.obtenerTodas());
     }
 
     public Optional<Notificacion> obtenerNotificacionPorId(String id) throws IOException {
-        return obtenerNotificaciones()
-                .stream()
-                .filter(notificacion -> notificacion.getId().equals(id))
-                .findFirst();
+        return notificacionesRepository.buscarPorId(id).map(plantillasNotificacion::renderizar);
+    }
+
+    public boolean existeNotificacion(String id) {
+        return notificacionesRepository.buscarPorId(id).isPresent();
     }
 
-    private void guardarNotificacionesAJson(List<Notificacion> notificaciones) throws IOException {
-        objectMapper.writerWithDefaultPrettyPrinter().writeValue(notificacionesPath.toFile(), notificaciones);
+    private List<Notificacion> renderizar(List<Notificacion> notificaciones) {
+        return notificaciones.stream().map(plantillasNotificacion::renderizar).toList();
     }
 
     public Notificacion crearNotificacion(Notificacion notificacion) throws IOException {
-        System.out.println("INFO: Creando notificación con ID: " + notificacion.getId());
-        System.out.println("INFO: Ruta del archivo: " + notificacionesPath.toAbsolutePath());
-        
-        List<Notificacion> notificaciones = new ArrayList<>(obtenerNotificaciones());
-        System.out.println("INFO: Notificaciones existentes antes de agregar: " + notificaciones.size());
-        
-        notificaciones.add(notificacion);
-        System.out.println("INFO: Notificaciones después de agregar: " + notificaciones.size());
-        
-        guardarNotificacionesAJson(notificaciones);
-        System.out.println("INFO: Notificación guardada exitosamente en: " + notificacionesPath.toAbsolutePath());
-        
+        notificacionesRepository.crear(notificacion);
+        publicar(notificacion);
+        if (notificacion.isTieneRecordatorio() && notificacion.isRecordatorioActivo()) {
+            programarRecordatorio(notificacion.getId(), notificacion.getFechaRecordatorio());
+        }
+        System.out.println("INFO: Notificación " + notificacion.getId() + " guardada para " + notificacion.getCorreoDestinatario());
         return notificacion;
     }
 
     public List<Notificacion> obtenerNotificacionesPorUsuario(String correoUsuario) throws IOException {
-        List<Notificacion> todasLasNotificaciones = obtenerNotificaciones();
-        System.out.println("INFO: Total de notificaciones en el archivo: " + todasLasNotificaciones.size());
-        
-        List<Notificacion> notificacionesFiltradas = todasLasNotificaciones
-                .stream()
-                .filter(notificacion -> {
-                    boolean coincide = notificacion.getCorreoDestinatario() != null 
-                            && notificacion.getCorreoDestinatario().equalsIgnoreCase(correoUsuario);
-                    if (coincide) {
-                        System.out.println("INFO: Notificación " + notificacion.getId() + " coincide con el usuario " + correoUsuario);
-                    }
-                    return coincide;
-                })
-                .toList();
-        
+        List<Notificacion> notificacionesFiltradas = renderizar(notificacionesRepository.obtenerPorUsuario(correoUsuario));
         System.out.println("INFO: Notificaciones filtradas para " + correoUsuario + ": " + notificacionesFiltradas.size());
         return notificacionesFiltradas;
     }
 
+    /**
+     * Sincronización incremental de la bandeja: solo lo creado o modificado después del cursor.
+     *
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    public CambiosNotificaciones obtenerCambiosNotificaciones(String correoUsuario, String cursor) {
+        CambiosNotificaciones cambios = notificacionesRepository.cambiosDesde(correoUsuario, cursor);
+        cambios.setNotificaciones(renderizar(cambios.getNotificaciones()));
+        return cambios;
+    }
+
+    /**
+     * Envía la notificación nueva a las conexiones en vivo de su destinatario; solo se renderiza si hay alguna.
+     */
+    private void publicar(Notificacion notificacion) {
+        if (difusorNotificaciones.estaConectado(notificacion.getCorreoDestinatario())) {
+            difusorNotificaciones.publicarNotificacion(plantillasNotificacion.renderizar(notificacion));
+        }
+    }
+
+    private void publicarConteo(String notificacionId) {
+        notificacionesRepository.buscarPorId(notificacionId)
+                .ifPresent(notificacion -> difusorNotificaciones.publicarConteo(notificacion.getCorreoDestinatario()));
+    }
+
     public boolean silenciarNotificacion(String id) throws IOException {
         System.out.println("INFO: Intentando silenciar notificación con ID: " + id);
-        
-        List<Notificacion> notificaciones = new ArrayList<>(obtenerNotificaciones());
-        boolean encontrada = false;
-        
-        for (Notificacion notificacion : notificaciones) {
-            if (notificacion.getId().equals(id)) {
-                notificacion.setSilenciada(true);
-                encontrada = true;
-                System.out.println("INFO: Notificación " + id + " marcada como silenciada");
-                break;
-            }
-        }
-        
+
+        boolean encontrada = notificacionesRepository.silenciar(id, true);
+
         if (encontrada) {
-            guardarNotificacionesAJson(notificaciones);
-            System.out.println("INFO: Cambios guardados exitosamente");
+            publicarConteo(id);
+            System.out.println("INFO: Notificación " + id + " marcada como silenciada");
         } else {
             System.out.println("ADVERTENCIA: No se encontró la notificación con ID: " + id);
         }
-        
+
         return encontrada;
     }
 
     public boolean dessilenciarNotificacion(String id) throws IOException {
         System.out.println("INFO: Intentando dessilenciar notificación con ID: " + id);
-        
-        List<Notificacion> notificaciones = new ArrayList<>(obtenerNotificaciones());
-        boolean encontrada = false;
-        
-        for (Notificacion notificacion : notificaciones) {
-            if (notificacion.getId().equals(id)) {
-                notificacion.setSilenciada(false);
-                encontrada = true;
-                System.out.println("INFO: Notificación " + id + " marcada como NO silenciada");
-                break;
-            }
-        }
-        
+
+        boolean encontrada = notificacionesRepository.silenciar(id, false);
+
         if (encontrada) {
-            guardarNotificacionesAJson(notificaciones);
-            System.out.println("INFO: Cambios guardados exitosamente");
+            publicarConteo(id);
+            System.out.println("INFO: Notificación " + id + " marcada como NO silenciada");
         } else {
             System.out.println("ADVERTENCIA: No se encontró la notificación con ID: " + id);
         }
-        
+
         return encontrada;
     }
 
+    /**
+     * Abre la conexión de eventos en vivo (notificaciones nuevas y conteo) del usuario.
+     */
+    public SseEmitter suscribir(String correoUsuario) {
+        return difusorNotificaciones.suscribir(correoUsuario);
+    }
+
     public long contarNotificacionesNoSilenciadas(String correoUsuario) throws IOException {
-        return obtenerNotificacionesPorUsuario(correoUsuario)
-                .stream()
-                .filter(notificacion -> !notificacion.isSilenciada())
-                .count();
+        return notificacionesRepository.contarNoSilenciadas(correoUsuario);
     }
 
     public boolean eliminarTodasNotificacionesPorUsuario(String correoUsuario) throws IOException {
         System.out.println("INFO: Eliminando todas las notificaciones para el usuario: " + correoUsuario);
-        
-        List<Notificacion> todasLasNotificaciones = new ArrayList<>(obtenerNotificaciones());
-        int notificacionesAntesDeEliminar = todasLasNotificaciones.size();
-        
-        List<Notificacion> notificacionesFiltradas = todasLasNotificaciones
-                .stream()
-                .filter(notificacion -> notificacion.getCorreoDestinatario() == null 
-                        || !notificacion.getCorreoDestinatario().equalsIgnoreCase(correoUsuario))
-                .toList();
-        
-        int notificacionesEliminadas = notificacionesAntesDeEliminar - notificacionesFiltradas.size();
-        
+
+        int notificacionesEliminadas = notificacionesRepository.eliminarPorUsuario(correoUsuario);
+
         if (notificacionesEliminadas > 0) {
-            guardarNotificacionesAJson(new ArrayList<>(notificacionesFiltradas));
+            difusorNotificaciones.publicarConteo(correoUsuario);
             System.out.println("INFO: Se eliminaron " + notificacionesEliminadas + " notificaciones del usuario " + correoUsuario);
             return true;
         } else {
@@ -196,180 +171,106 @@ public class NotificacionService {
         }
     }
 
-    public boolean establecerRecordatorio(String id, String fechaRecordatorio) throws IOException {
+    public boolean establecerRecordatorio(String id, LocalDateTime fechaRecordatorio) throws IOException {
         System.out.println("INFO: Estableciendo recordatorio para notificación con ID: " + id + " en la fecha: " + fechaRecordatorio);
-        
-        List<Notificacion> notificaciones = new ArrayList<>(obtenerNotificaciones());
-        boolean encontrada = false;
-        
-        for (Notificacion notificacion : notificaciones) {
-            if (notificacion.getId().equals(id)) {
-                notificacion.setTieneRecordatorio(true);
-                notificacion.setFechaRecordatorio(fechaRecordatorio);
-                notificacion.setRecordatorioActivo(true);
-                encontrada = true;
-                System.out.println("INFO: Recordatorio establecido para la notificación " + id);
-                break;
-            }
-        }
-        
+
+        boolean encontrada = notificacionesRepository.cambiarRecordatorio(id, true, fechaRecordatorio, true);
+
         if (encontrada) {
-            guardarNotificacionesAJson(notificaciones);
-            System.out.println("INFO: Cambios guardados exitosamente");
+            programarRecordatorio(id, fechaRecordatorio);
+            System.out.println("INFO: Recordatorio establecido para la notificación " + id);
         } else {
             System.out.println("ADVERTENCIA: No se encontró la notificación con ID: " + id);
         }
-        
+
         return encontrada;
     }
 
-    public boolean actualizarRecordatorio(String id, String nuevaFechaRecordatorio) throws IOException {
+    public boolean actualizarRecordatorio(String id, LocalDateTime nuevaFechaRecordatorio) throws IOException {
         System.out.println("INFO: Actualizando recordatorio para notificación con ID: " + id + " a la fecha: " + nuevaFechaRecordatorio);
-        
-        List<Notificacion> notificaciones = new ArrayList<>(obtenerNotificaciones());
-        boolean encontrada = false;
-        
-        for (Notificacion notificacion : notificaciones) {
-            if (notificacion.getId().equals(id)) {
-                if (notificacion.isTieneRecordatorio()) {
-                    notificacion.setFechaRecordatorio(nuevaFechaRecordatorio);
-                    notificacion.setRecordatorioActivo(true);
-                    encontrada = true;
-                    System.out.println("INFO: Recordatorio actualizado para la notificación " + id);
-                } else {
-                    System.out.println("ADVERTENCIA: La notificación " + id + " no tiene recordatorio establecido");
-                }
-                break;
-            }
+
+        Optional<Notificacion> notificacion = notificacionesRepository.buscarPorId(id);
+        if (notificacion.isEmpty()) {
+            return false;
         }
-        
+        if (!notificacion.get().isTieneRecordatorio()) {
+            System.out.println("ADVERTENCIA: La notificación " + id + " no tiene recordatorio establecido");
+            return false;
+        }
+
+        boolean encontrada = notificacionesRepository.cambiarRecordatorio(id, null, nuevaFechaRecordatorio, true);
         if (encontrada) {
-            guardarNotificacionesAJson(notificaciones);
-            System.out.println("INFO: Cambios guardados exitosamente");
+            programarRecordatorio(id, nuevaFechaRecordatorio);
+            System.out.println("INFO: Recordatorio actualizado para la notificación " + id);
         }
-        
+
         return encontrada;
     }
 
     public boolean desactivarRecordatorio(String id) throws IOException {
         System.out.println("INFO: Desactivando recordatorio para notificación con ID: " + id);
-        
-        List<Notificacion> notificaciones = new ArrayList<>(obtenerNotificaciones());
-        boolean encontrada = false;
-        
-        for (Notificacion notificacion : notificaciones) {
-            if (notificacion.getId().equals(id)) {
-                notificacion.setRecordatorioActivo(false);
-                encontrada = true;
-                System.out.println("INFO: Recordatorio desactivado para la notificación " + id);
-                break;
-            }
-        }
-        
+
+        boolean encontrada = notificacionesRepository.cambiarRecordatorio(id, null, null, false);
+
         if (encontrada) {
-            guardarNotificacionesAJson(notificaciones);
-            System.out.println("INFO: Cambios guardados exitosamente");
+            System.out.println("INFO: Recordatorio desactivado para la notificación " + id);
         } else {
             System.out.println("ADVERTENCIA: No se encontró la notificación con ID: " + id);
         }
-        
+
         return encontrada;
     }
 
     public List<Notificacion> obtenerNotificacionesConRecordatorioPendiente() throws IOException {
-        List<Notificacion> todasLasNotificaciones = obtenerNotificaciones();
+        List<Notificacion> todasLasNotificaciones = notificacionesRepository.obtenerTodas();
         
         return todasLasNotificaciones
                 .stream()
                 .filter(notificacion -> notificacion.isTieneRecordatorio() && notificacion.isRecordatorioActivo())
+                .map(plantillasNotificacion::renderizar)
                 .toList();
     }
 
-    private LocalDateTime parsearFecha(String fechaString) throws Exception {
-        if (fechaString == null || fechaString.trim().isEmpty()) {
-            throw new IllegalArgumentException("La fecha no puede estar vacía");
+    /**
+     * Procesa de inmediato los recordatorios ya vencidos. Normalmente no hace falta llamarlo:
+     * la agenda despierta sola en el instante del próximo recordatorio.
+     */
+    public void procesarRecordatoriosPendientes() throws IOException {
+        agendaRecordatorios.procesarVencidos();
+    }
+
+    /**
+     * Envía el recordatorio vencido como una nueva notificación y lo desactiva en la original.
+     * Las entradas obsoletas (recordatorio desactivado, cambiado de fecha o notificación eliminada) se descartan.
+     */
+    private void dispararRecordatorio(AgendaRecordatorios.Entrada entrada) {
+        Optional<Notificacion> actual = notificacionesRepository.buscarPorId(entrada.notificacionId());
+        if (actual.isEmpty()) {
+            return;
         }
-        
-        try {
-            return LocalDateTime.parse(fechaString, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-        } catch (Exception e1) {
-            try {
-                return LocalDateTime.parse(fechaString, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-            } catch (Exception e2) {
-                try {
-                    return LocalDateTime.parse(fechaString + ":00", DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-                } catch (Exception e3) {
-                    throw new IllegalArgumentException("Formato de fecha no válido: " + fechaString);
-                }
-            }
+        Notificacion notificacion = actual.get();
+        if (!notificacion.isTieneRecordatorio() || !notificacion.isRecordatorioActivo()
+                || !Objects.equals(notificacion.getFechaRecordatorio(), entrada.fechaRecordatorio())) {
+            return;
         }
-    }
 
-    public void procesarRecordatoriosPendientes() throws IOException {
+        System.out.println("INFO: [RECORDATORIOS] La fecha del recordatorio ha llegado para la notificación " + notificacion.getId());
+
+        Notificacion recordatorio = plantillasNotificacion.crearRecordatorio(notificacion,
+                LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+
+        // Primero el recordatorio y después la desactivación: si la creación falla, la original sigue activa
+        // y el recordatorio se vuelve a disparar al reprogramarse (ej: al arrancar). Como su ID es fijo,
+        // un recordatorio que ya se creó antes de una caída no se duplica.
         try {
-            System.out.println("INFO: [SCHEDULER] Verificando recordatorios pendientes...");
-            
-            List<Notificacion> notificaciones = new ArrayList<>(obtenerNotificaciones());
-            List<Notificacion> nuevosRecordatorios = new ArrayList<>();
-            LocalDateTime ahora = LocalDateTime.now();
-            DateTimeFormatter formatterOutput = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            boolean cambiosRealizados = false;
-            
-            System.out.println("INFO: [SCHEDULER] Hora actual: " + ahora.format(formatterOutput));
-            System.out.println("INFO: [SCHEDULER] Total de notificaciones a verificar: " + notificaciones.size());
-            
-            for (int i = 0; i < notificaciones.size(); i++) {
-                Notificacion notificacion = notificaciones.get(i);
-                
-                if (notificacion != null && notificacion.isTieneRecordatorio() && notificacion.isRecordatorioActivo()) {
-                    System.out.println("INFO: [SCHEDULER] Notificación con recordatorio activo encontrada: " + notificacion.getId());
-                    System.out.println("INFO: [SCHEDULER] Fecha del recordatorio: " + notificacion.getFechaRecordatorio());
-                    
-                    try {
-                        LocalDateTime fechaRecordatorio = parsearFecha(notificacion.getFechaRecordatorio());
-                        System.out.println("INFO: [SCHEDULER] Fecha parseada: " + fechaRecordatorio.format(formatterOutput));
-                        System.out.println("INFO: [SCHEDULER] ¿Ha llegado la fecha? " + (ahora.isAfter(fechaRecordatorio) || ahora.isEqual(fechaRecordatorio)));
-                        
-                        if (ahora.isAfter(fechaRecordatorio) || ahora.isEqual(fechaRecordatorio)) {
-                            System.out.println("INFO: [SCHEDULER] ¡¡¡ LA FECHA DEL RECORDATORIO HA LLEGADO para la notificación " + notificacion.getId() + " !!!");
-                            
-                            Notificacion recordatorio = new Notificacion();
-                            recordatorio.setId("REMINDER-" + UUID.randomUUID().toString());
-                            recordatorio.setFechaEnvio(ahora.format(formatterOutput));
-                            recordatorio.setAsunto("[RECORDATORIO] " + (notificacion.getAsunto() != null ? notificacion.getAsunto() : "Sin asunto"));
-                            recordatorio.setRemitente(notificacion.getRemitente() != null ? notificacion.getRemitente() : "Sistema");
-                            recordatorio.setMensaje("RECORDATORIO: " + (notificacion.getMensaje() != null ? notificacion.getMensaje() : ""));
-                            recordatorio.setCorreoDestinatario(notificacion.getCorreoDestinatario());
-                            recordatorio.setSilenciada(false);
-                            recordatorio.setTieneRecordatorio(false);
-                            recordatorio.setRecordatorioActivo(false);
-                            
-                            nuevosRecordatorios.add(recordatorio);
-                            System.out.println("INFO: [SCHEDULER] Nueva notificación recordatorio creada con ID: " + recordatorio.getId());
-                            
-                            notificacion.setRecordatorioActivo(false);
-                            System.out.println("INFO: [SCHEDULER] Recordatorio de la notificación " + notificacion.getId() + " desactivado");
-                            
-                            cambiosRealizados = true;
-                        }
-                    } catch (Exception e) {
-                        System.err.println("ERROR: [SCHEDULER] No se pudo procesar recordatorio para notificación " + notificacion.getId() + ": " + e.getMessage());
-                    }
-                }
-            }
-            
-            if (cambiosRealizados) {
-                notificaciones.addAll(nuevosRecordatorios);
-                System.out.println("INFO: [SCHEDULER] Guardando " + notificaciones.size() + " notificaciones al archivo...");
-                guardarNotificacionesAJson(notificaciones);
-                System.out.println("INFO: [SCHEDULER] Cambios en notificaciones guardados exitosamente");
-            } else {
-                System.out.println("INFO: [SCHEDULER] No hay recordatorios pendientes para procesar");
+            if (notificacionesRepository.buscarPorId(recordatorio.getId()).isEmpty()) {
+                notificacionesRepository.crear(recordatorio);
+                publicar(recordatorio);
             }
-        } catch (Exception e) {
-            System.err.println("ERROR: [SCHEDULER] Error general en procesarRecordatoriosPendientes: " + e.getMessage());
-            e.printStackTrace();
-            throw new IOException(e);
+            notificacionesRepository.cambiarRecordatorio(notificacion.getId(), null, null, false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        System.out.println("INFO: [RECORDATORIOS] Recordatorio " + recordatorio.getId() + " enviado para la notificación " + notificacion.getId());
     }
 }
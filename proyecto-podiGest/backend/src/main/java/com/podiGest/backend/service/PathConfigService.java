@@ -12,6 +12,8 @@ import java.nio.file.Paths;
 public class PathConfigService {
 
     private static final String DATA_DIR_NAME = "podiGest_data";
+    // Propiedad del sistema con otra carpeta de datos semilla (ej: las pruebas usan una en target/)
+    public static final String PROPIEDAD_DATOS = "podigest.datos";
     private static final Path DATA_DIR;
     private static final Path SEED_DATA_DIR;
 
@@ -85,12 +87,24 @@ public class PathConfigService {
 
     /**
      * Resuelve la ruta de la carpeta base_de_datos buscando la estructura del proyecto.
-     * Primero busca ascendiendo desde el directorio actual hasta encontrar "proyecto-podiGest/backend",
+     * Si la propiedad del sistema {@value #PROPIEDAD_DATOS} indica una carpeta, se usa esa (creándola si no existe).
+     * Si no, primero busca ascendiendo desde el directorio actual hasta encontrar "proyecto-podiGest/backend",
      * luego desciende a "base_de_datos".
      * 
      * @return Path a la carpeta base_de_datos, o el directorio actual si no se encuentra
      */
     private static Path resolveSeedDataDirectory() {
+        String configurada = System.getProperty(PROPIEDAD_DATOS);
+        if (configurada != null && !configurada.isBlank()) {
+            Path configuradaPath = Paths.get(configurada);
+            try {
+                Files.createDirectories(configuradaPath);
+            } catch (IOException e) {
+                System.err.println("ERROR: No se pudo crear la carpeta de datos en: " + configuradaPath);
+            }
+            return configuradaPath;
+        }
+
         // Comienza desde el directorio actual (normalmente donde se ejecuta Maven)
         Path currentDir = Paths.get(System.getProperty("user.dir"));
         
@@ -1,18 +1,14 @@
 package com.podiGest.backend.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.podiGest.backend.model.Usuario;
 import com.podiGest.backend.model.Cita;
+import com.podiGest.backend.repository.AlmacenUsuarios;
 import org.springframework.beans.factory.ObjectProvider;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.Period;
 import java.util.ArrayList;
@@ -22,68 +18,41 @@ import java.util.Optional;
 @Service
 public class PerfilService {
 
-    private List<Usuario> listaUsuarios;
-    private static final String USUARIOS_JSON_FILE = "usuarios.json";
-    private static final String USUARIO_SESION_JSON_FILE = "usuarioInicioSesion.json";
+    private final DirectorioUsuarios directorio;
+    private volatile CatalogoEspecialistas catalogoEspecialistas = CatalogoEspecialistas.vacio();
     private final ObjectMapper mapper;
+    private final AlmacenUsuarios almacen;
+    private final SesionesUsuario sesiones;
     
     private final ObjectProvider<CitasService> citasServiceProvider;
 
-    public PerfilService(ObjectProvider<CitasService> citasServiceProvider) {
+    public PerfilService(ObjectProvider<CitasService> citasServiceProvider, AlmacenUsuarios almacen,
+                         SesionesUsuario sesiones) {
         this.mapper = new ObjectMapper();
         this.mapper.registerModule(new JavaTimeModule());
         this.citasServiceProvider = citasServiceProvider;
+        this.almacen = almacen;
+        this.sesiones = sesiones;
 
-        this.listaUsuarios = cargarUsuariosDesdeJson(USUARIOS_JSON_FILE);
+        this.directorio = new DirectorioUsuarios(cargarUsuarios());
+        actualizarCatalogoEspecialistas();
+        sesiones.cargarGuardadas(directorio::buscarPorCedula);
 
     }
 
-    //metodo para sbaer cuales son los usuarios registrados en el JSON
-    private List<Usuario> cargarUsuariosDesdeJson(String fileName) {
-        Path path = PathConfigService.getSeedFilePath(fileName);
+    //metodo para saber cuales son los usuarios registrados (en usuarios.json o en la base, según el motor)
+    private List<Usuario> cargarUsuarios() {
         try {
-            if (Files.exists(path) && Files.size(path) > 0) {
-                return mapper.readValue(path.toFile(), new TypeReference<List<Usuario>>() {});
-            }
-        } catch (IOException e) {
-            System.err.println("ERROR: No se pudo leer el archivo JSON en: " + path);
-        }
-        // Intenta cargar desde el classpath (ej: src/main/resources) si el archivo externo no existe o está vacío
-        List<Usuario> usuarios = cargarDesdeClasspath(fileName);
-        if (!usuarios.isEmpty()) {
-            try {
-                // Si encontró usuarios en el classpath, los guarda en la carpeta externa
-                guardarUsuariosAJson(usuarios, fileName);
-            } catch (IOException e) {
-                System.err.println("ERROR: No se pudo inicializar el archivo JSON en: " + path);
-            }
-        }
-        return usuarios;
-    }
-
-    private List<Usuario> cargarDesdeClasspath(String resourceName) {
-        try (InputStream inputStream = new ClassPathResource(resourceName).getInputStream()) {
-            return mapper.readValue(inputStream, new TypeReference<List<Usuario>>() {});
+            return almacen.cargar();
         } catch (IOException e) {
-            // No es un error grave, solo significa que no hay un archivo de "semilla" en resources
+            System.err.println("ERROR: No se pudieron cargar los usuarios: " + e.getMessage());
             return new ArrayList<>();
         }
     }
 
-    //metodo para escribir el JSON y guardar el nuevo usuario
-    private void guardarUsuariosAJson(List<Usuario> usuarios, String fileName) throws IOException {
-        Path path = PathConfigService.getSeedFilePath(fileName);
-        // Sobrescribe el archivo con los datos actuales (sin duplicar)
-        mapper.writerWithDefaultPrettyPrinter().writeValue(path.toFile(), usuarios);
-    }
-
-
-
     // metodo para verificar si el usuario ya existe
     public boolean existeUsuario(String correo, String cedula) {
-        return listaUsuarios.stream()
-                .anyMatch(u -> u.getCorreoElectronico() != null && u.getCorreoElectronico().equalsIgnoreCase(correo) ||
-                        u.getCedula() != null && u.getCedula().equalsIgnoreCase(cedula));
+        return directorio.buscarPorCorreo(correo).isPresent() || directorio.buscarPorCedula(cedula).isPresent();
     }
 
     //metodo para verificar si el usuario es o no mayor de edad
@@ -128,16 +97,15 @@ public class PerfilService {
         }
 
         nuevoUsuario.setRol("paciente");
-        listaUsuarios.add(nuevoUsuario);
-        guardarUsuariosAJson(listaUsuarios, USUARIOS_JSON_FILE);
+        // El directorio rechaza el alta si el correo o la cédula ya están registrados
+        directorio.agregar(nuevoUsuario);
+        almacen.guardar(nuevoUsuario, directorio::listar);
 
         return nuevoUsuario;
     }
 
     public Optional<Usuario> validarUsuarioExiste(String correo, String contrasena) {
-        Optional<Usuario> usuarioEncontrado = listaUsuarios.stream()
-                .filter(u -> u.getCorreoElectronico() != null && u.getCorreoElectronico().equalsIgnoreCase(correo))
-                .findFirst();
+        Optional<Usuario> usuarioEncontrado = directorio.buscarPorCorreo(correo);
 
         if (usuarioEncontrado.isPresent()) {
             Usuario usuario = usuarioEncontrado.get();
@@ -150,28 +118,49 @@ public class PerfilService {
     }
 
     /**
-     * Guarda el usuario que acaba de iniciar sesión en un archivo JSON separado.
-     * Este método SOBRESCRIBE el contenido del archivo cada vez que se llama.
+     * Abre una sesión nueva para el usuario que acaba de iniciar sesión.
+     * Cada inicio de sesión tiene su propio token, así que varios usuarios pueden estar conectados a la vez.
      * @param usuario El usuario que ha iniciado sesión.
+     * @return Token de la sesión, que el cliente envía en las siguientes peticiones
      */
-    public void guardarUsuarioSesion(Usuario usuario) {
-        List<Usuario> listaUsuarioSesion = new ArrayList<>();
-        listaUsuarioSesion.add(usuario);
+    public String guardarUsuarioSesion(Usuario usuario) {
+        String token = sesiones.iniciar(usuario);
+        System.out.println("INFO: Sesión iniciada para " + usuario.getCorreoElectronico() + " (" + sesiones.getActivas() + " sesiones activas)");
+        return token;
+    }
 
+    /**
+     * Cierra la sesión de la petición en curso.
+     * @return false si no había una sesión activa
+     */
+    public boolean cerrarSesion() {
+        return sesiones.cerrarActual();
+    }
+
+    public List<Usuario> obtenerEspecialistas() {
+        return directorio.especialistas();
+    }
+
+    /**
+     * @return Catálogo público de especialistas, ya serializado
+     */
+    public CatalogoEspecialistas obtenerCatalogoEspecialistas() {
+        return catalogoEspecialistas;
+    }
+
+    /**
+     * Vuelve a serializar el catálogo. Solo se llama cuando cambia un especialista; si falla se conserva el anterior.
+     */
+    private void actualizarCatalogoEspecialistas() {
         try {
-            Path path = PathConfigService.getSeedFilePath(USUARIO_SESION_JSON_FILE);
-            // Sobrescribe el archivo con los datos actuales (sin duplicar)
-            mapper.writerWithDefaultPrettyPrinter().writeValue(path.toFile(), listaUsuarioSesion);
-            System.out.println("INFO: Usuario de sesión guardado en " + USUARIO_SESION_JSON_FILE);
+            catalogoEspecialistas = CatalogoEspecialistas.de(directorio.especialistas(), mapper);
         } catch (IOException e) {
-            System.err.println("ERROR: No se pudo guardar el archivo de sesión del usuario: " + e.getMessage());
+            System.err.println("ERROR: No se pudo generar el catálogo de especialistas: " + e.getMessage());
         }
     }
 
-    public List<Usuario> obtenerEspecialistas() {
-        return listaUsuarios.stream()
-                .filter(u -> u.getRol() != null && u.getRol().equalsIgnoreCase("especialista"))
-                .toList();
+    private static boolean esEspecialista(Usuario usuario) {
+        return usuario != null && "especialista".equalsIgnoreCase(usuario.getRol());
     }
 
     /**
@@ -180,51 +169,25 @@ public class PerfilService {
      * @return Optional con el correo electrónico si se encuentra el especialista
      */
     public Optional<String> obtenerCorreoEspecialistaPorNombre(String nombreBuscado) {
-        if (nombreBuscado == null || nombreBuscado.trim().isEmpty()) {
-            return Optional.empty();
-        }
-        
-        String nombreBuscadoTrim = nombreBuscado.trim();
-        
-        return listaUsuarios.stream()
-                .filter(u -> u.getRol() != null && u.getRol().equalsIgnoreCase("especialista"))
-                .filter(u -> {
-                    String nombreCompletoUsuario = (u.getNombre() + " " + u.getApellido()).trim();
-                    String soloNombre = u.getNombre().trim();
-                    
-                    // Buscar por nombre completo o solo por nombre
-                    return nombreCompletoUsuario.equalsIgnoreCase(nombreBuscadoTrim) ||
-                           soloNombre.equalsIgnoreCase(nombreBuscadoTrim);
-                })
-                .map(Usuario::getCorreoElectronico)
-                .findFirst();
+        // Buscar por nombre completo o solo por nombre, en el índice de especialistas
+        return directorio.buscarEspecialistaPorNombre(nombreBuscado)
+                .map(Usuario::getCorreoElectronico);
     }
 
     /**
-     * Metodo para leer los datos del usuario activo desde el archivo JSON
-     * (Este es el método que movimos desde ConsultarPerfilService)
+     * Metodo para obtener los datos del usuario de la sesión de la petición en curso
+     * (ver {@link SesionesUsuario}: se resuelve en memoria a partir del token)
      */
     public Optional<Usuario> obtenerPerfilActivo() throws IOException {
+        return sesiones.usuarioActual();
+    }
 
-        // ¡IMPORTANTE! Usamos la misma lógica de ruta que 'guardarUsuarioSesion'
-        Path sesionPath = PathConfigService.getSeedFilePath(USUARIO_SESION_JSON_FILE);
-
-        if (!Files.exists(sesionPath)) {
-            System.err.println("ADVERTENCIA: No se encontró el archivo de sesión en: " + sesionPath);
-            return Optional.empty();
-        }
-        String jsonContent = Files.readString(sesionPath);
-        if (jsonContent.isBlank()) {
-            return Optional.empty();
-        }
-
-        // Usamos el 'mapper' que ya existe en esta clase
-        List<Usuario> sesion = mapper.readValue(jsonContent, new TypeReference<List<Usuario>>() {});
-
-        if (sesion.isEmpty()) {
-            return Optional.empty();
-        }
-        return Optional.of(sesion.get(0));
+    /**
+     * Perfil activo para el flujo de notificaciones: acepta el token también en la URL (ver
+     * {@link SesionesUsuario#usuarioActualDeFlujo()}).
+     */
+    public Optional<Usuario> obtenerPerfilActivoDeFlujo() throws IOException {
+        return sesiones.usuarioActualDeFlujo();
     }
 
 
@@ -261,51 +224,22 @@ public class PerfilService {
         }
 
         // --- VALIDACIÓN 2: CORREO DUPLICADO ---
-        // Buscamos si ALGUIEN MÁS (que no sea yo) ya tiene ese correo
-        boolean correoOcupado = listaUsuarios.stream()
-                .anyMatch(u -> u.getCorreoElectronico().equalsIgnoreCase(usuarioConDatosNuevos.getCorreoElectronico())
-                        && !u.getCedula().equals(cedulaFija)); // Importante: Que no sea mi propia cédula
-
-        if (correoOcupado) {
-            throw new IllegalArgumentException("El correo electrónico ya está registrado por otro usuario.");
-        }
-
-        boolean encontrado = false;
-        int indiceEncontrado = -1;
-
-        // 2. Buscamos al usuario en la lista general para actualizarlo
-        for (int i = 0; i < listaUsuarios.size(); i++) {
-            Usuario u = listaUsuarios.get(i);
-            if (u.getCedula().equals(cedulaFija)) {
-                indiceEncontrado = i;
-                encontrado = true;
-                break;
-            }
-        }
+        // 2. Reemplazamos SOLO al usuario con mi cédula; el directorio rechaza el cambio
+        // si ALGUIEN MÁS (que no sea yo) ya tiene ese correo
+        boolean encontrado = directorio.reemplazar(cedulaFija, usuarioConDatosNuevos);
 
         if (!encontrado) {
             throw new IOException("Error: El usuario no se encuentra en la base de datos.");
         }
-
-        // 3. Reemplazamos SOLO el usuario encontrado
-        listaUsuarios.set(indiceEncontrado, usuarioConDatosNuevos);
-
-        // 4. Limpieza de duplicados por seguridad
-        List<Usuario> sinDuplicados = new ArrayList<>();
-        java.util.Set<String> cedulasVistas = new java.util.HashSet<>();
-        for (Usuario u : listaUsuarios) {
-            if (!cedulasVistas.contains(u.getCedula())) {
-                sinDuplicados.add(u);
-                cedulasVistas.add(u.getCedula());
-            }
+        if (esEspecialista(sesionActual.get()) || esEspecialista(usuarioConDatosNuevos)) {
+            actualizarCatalogoEspecialistas();
         }
-        listaUsuarios = sinDuplicados;
 
-        // 5. Guardamos cambios
-        guardarUsuariosAJson(listaUsuarios, USUARIOS_JSON_FILE);
-        guardarUsuarioSesion(usuarioConDatosNuevos);
+        // 3. Guardamos cambios
+        almacen.guardar(usuarioConDatosNuevos, directorio::listar);
+        sesiones.actualizarUsuario(cedulaFija, usuarioConDatosNuevos);
 
-        // 6. Actualizar citas si es especialista
+        // 4. Actualizar citas si es especialista
         if (usuarioConDatosNuevos.getRol() != null && "especialista".equalsIgnoreCase(usuarioConDatosNuevos.getRol())) {
             actualizarCitasEspecialista(cedulaFija, usuarioConDatosNuevos);
         }
@@ -325,21 +259,21 @@ public class PerfilService {
 
         String cedulaBorrar = sesionActual.get().getCedula();
 
-        // 2. Borrar de la lista en memoria
-        // (Esto elimina al usuario de la lista cargada en RAM)
-        boolean borrado = listaUsuarios.removeIf(u -> u.getCedula().equals(cedulaBorrar));
+        // 2. Borrar del directorio en memoria
+        boolean borrado = directorio.quitar(cedulaBorrar);
 
         if (!borrado) {
             throw new IOException("Error: El usuario no se encuentra en la lista local.");
         }
+        if (esEspecialista(sesionActual.get())) {
+            actualizarCatalogoEspecialistas();
+        }
 
-        // 3. Sobrescribir el archivo usuarios.json con la lista actualizada
-        // USAMOS TU MÉTODO EXISTENTE que ya funciona bien con las fechas
-        guardarUsuariosAJson(listaUsuarios, USUARIOS_JSON_FILE);
+        // 3. Quitarlo del almacenamiento (usuarios.json se reescribe con la lista actualizada)
+        almacen.eliminar(cedulaBorrar, directorio::listar);
 
-        // 4. Borrar el archivo de sesión (Cerrar sesión forzosamente)
-        Path pathSesion = PathConfigService.getSeedFilePath(USUARIO_SESION_JSON_FILE);
-        Files.deleteIfExists(pathSesion);
+        // 4. Cerrar todas sus sesiones (forzosamente)
+        sesiones.cerrarDelUsuario(cedulaBorrar);
     }
     
     // -------------------------------------------------------------------
@@ -353,22 +287,14 @@ public class PerfilService {
         }
         
         try {
-            List<Cita> citas = citasService.obtenerCitas();
             String nombreCompleto = especialista.getNombre() + " " + especialista.getApellido();
-            
-            boolean actualizado = false;
-            for (Cita cita : citas) {
-                // Si la cita pertenece a este especialista (por nombre) y no tiene cedula asignada
-                if (cita.getEspecialista() != null && cita.getEspecialista().equals(nombreCompleto) && 
-                    (cita.getCedulaEspecialista() == null || cita.getCedulaEspecialista().isEmpty())) {
-                    cita.setCedulaEspecialista(cedula);
-                    actualizado = true;
-                    System.out.println("INFO: Actualizada cita " + cita.getId() + " con cedula del especialista");
-                }
+            // Solo las citas de este especialista (por nombre) que no tienen cedula asignada
+            List<Cita> actualizadas = citasService.asignarCedulaEspecialista(nombreCompleto, cedula);
+            for (Cita cita : actualizadas) {
+                System.out.println("INFO: Actualizada cita " + cita.getId() + " con cedula del especialista");
             }
-            
-            if (actualizado) {
-                citasService.guardarCitasAJson(citas);
+
+            if (!actualizadas.isEmpty()) {
                 System.out.println("INFO: Citas del especialista " + nombreCompleto + " actualizadas con cedula: " + cedula);
             }
         } catch (IOException e) {
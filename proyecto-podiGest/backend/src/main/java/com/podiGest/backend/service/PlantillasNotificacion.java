@@ -0,0 +1,315 @@
+package com.podiGest.backend.service;
+
+import com.podiGest.backend.model.AvisoCita;
+import com.podiGest.backend.model.Cita;
+import com.podiGest.backend.model.Notificacion;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Registro de las plantillas de las notificaciones de citas, por tipo de aviso y destinatario.
+ *
+ * Cada texto se compila una sola vez al arrancar en segmentos literales y campos ({@code {paciente}},
+ * {@code {fecha}}, ...), de modo que renderizar una notificación es un único recorrido que copia los
+ * segmentos en un StringBuilder del tamaño exacto, sin volver a interpretar el formato.
+ *
+ * Las notificaciones de citas se guardan solo con el ID de su plantilla y los valores de sus campos;
+ * el asunto y el mensaje se renderizan al entregarlas a un cliente ({@link #renderizar(Notificacion)}).
+ * Por eso el texto de una plantilla existente no debe cambiar de significado: se aplica también a las
+ * notificaciones ya guardadas.
+ *
+ * Los recordatorios de una notificación guardada como plantilla usan la misma plantilla con el prefijo
+ * {@value #PREFIJO_RECORDATORIO} (ej: "recordatorio.cita.agendada.paciente") y los mismos campos.
+ */
+@Component
+public class PlantillasNotificacion {
+
+    public enum Destinatario {
+        PACIENTE, ESPECIALISTA
+    }
+
+    /**
+     * Campos disponibles en las plantillas; se escriben en minúsculas entre llaves (ej: {@code {fecha_anterior}}).
+     */
+    public enum Campo {
+        PACIENTE, ESPECIALISTA, FECHA, HORA, MOTIVO, TELEFONO, FECHA_ANTERIOR, HORA_ANTERIOR;
+
+        private final String clave = name().toLowerCase(Locale.ROOT);
+        private final String marcador = "{" + clave + "}";
+    }
+
+    private static final String REMITENTE_CLINICA = "Clínica Podológica";
+    private static final String REMITENTE_SISTEMA = "Sistema de Gestión de Citas";
+    private static final String REMITENTE_RECORDATORIO = "Sistema";
+    private static final String PREFIJO_RECORDATORIO = "recordatorio.";
+    private static final String ASUNTO_RECORDATORIO = "[RECORDATORIO] ";
+    private static final String MENSAJE_RECORDATORIO = "RECORDATORIO: ";
+    private static final DateTimeFormatter FORMATO_ID_RECORDATORIO = DateTimeFormatter.ofPattern("yyyyMMddHHmm");
+
+    private final Map<AvisoCita.Tipo, Map<Destinatario, Plantilla>> plantillas = new EnumMap<>(AvisoCita.Tipo.class);
+    private final Map<String, Plantilla> porId = new HashMap<>();
+
+    public PlantillasNotificacion() {
+        registrar(AvisoCita.Tipo.AGENDADA, Destinatario.PACIENTE, "NOTIF-", REMITENTE_CLINICA,
+                "Confirmación de cita agendada",
+                "Estimado/a {paciente},\n\n" +
+                "Su cita ha sido agendada exitosamente con los siguientes detalles:\n\n" +
+                "Especialista: {especialista}\n" +
+                "Fecha: {fecha}\n" +
+                "Hora: {hora}\n" +
+                "Motivo: {motivo}\n\n" +
+                "Por favor, llegue 10 minutos antes de su cita.\n" +
+                "Si necesita cancelar o reprogramar, comuníquese con nosotros con anticipación.\n\n" +
+                "Gracias por confiar en nuestros servicios.");
+        registrar(AvisoCita.Tipo.AGENDADA, Destinatario.ESPECIALISTA, "NOTIF-ESP-", REMITENTE_SISTEMA,
+                "Nueva cita agendada - {paciente}",
+                "Estimado/a Dr./Dra. {especialista},\n\n" +
+                "Se ha agendado una nueva cita con usted:\n\n" +
+                "Paciente: {paciente}\n" +
+                "Fecha: {fecha}\n" +
+                "Hora: {hora}\n" +
+                "Motivo de consulta: {motivo}\n" +
+                "Teléfono del paciente: {telefono}\n\n" +
+                "Por favor, revise su agenda y prepárese para la consulta.\n\n" +
+                "Saludos cordiales,\n" +
+                "Sistema de Gestión de Citas");
+        registrar(AvisoCita.Tipo.MODIFICADA, Destinatario.PACIENTE, "NOTIF-MOD-", REMITENTE_CLINICA,
+                "Modificación de cita - Información actualizada",
+                "Estimado/a {paciente},\n\n" +
+                "Le informamos que su cita ha sido modificada.\n\n" +
+                "INFORMACIÓN ANTERIOR:\n" +
+                "Fecha: {fecha_anterior}\n" +
+                "Hora: {hora_anterior}\n\n" +
+                "NUEVA INFORMACIÓN:\n" +
+                "Especialista: {especialista}\n" +
+                "Fecha: {fecha}\n" +
+                "Hora: {hora}\n" +
+                "Motivo: {motivo}\n\n" +
+                "Por favor, tome nota de los nuevos datos y llegue 10 minutos antes de su cita.\n" +
+                "Si tiene alguna duda o necesita realizar cambios adicionales, comuníquese con nosotros.\n\n" +
+                "Gracias por su comprensión.");
+        registrar(AvisoCita.Tipo.MODIFICADA, Destinatario.ESPECIALISTA, "NOTIF-ESP-MOD-", REMITENTE_SISTEMA,
+                "Modificación de cita - {paciente}",
+                "Estimado/a Dr./Dra. {especialista},\n\n" +
+                "Se ha modificado una cita en su agenda:\n\n" +
+                "INFORMACIÓN ANTERIOR:\n" +
+                "Fecha: {fecha_anterior}\n" +
+                "Hora: {hora_anterior}\n\n" +
+                "NUEVA INFORMACIÓN:\n" +
+                "Paciente: {paciente}\n" +
+                "Fecha: {fecha}\n" +
+                "Hora: {hora}\n" +
+                "Motivo de consulta: {motivo}\n" +
+                "Teléfono del paciente: {telefono}\n\n" +
+                "Por favor, tome nota de los cambios en su agenda.\n\n" +
+                "Saludos cordiales,\n" +
+                "Sistema de Gestión de Citas");
+        registrar(AvisoCita.Tipo.CANCELADA, Destinatario.PACIENTE, "NOTIF-CAN-", REMITENTE_CLINICA,
+                "Cancelación de cita",
+                "Estimado/a {paciente},\n\n" +
+                "Le informamos que su cita ha sido cancelada.\n\n" +
+                "DETALLES DE LA CITA CANCELADA:\n" +
+                "Especialista: {especialista}\n" +
+                "Fecha: {fecha}\n" +
+                "Hora: {hora}\n" +
+                "Motivo: {motivo}\n\n" +
+                "Si desea agendar una nueva cita, puede hacerlo a través de nuestro sistema.\n" +
+                "Si tiene alguna duda o necesita asistencia, no dude en contactarnos.\n\n" +
+                "Gracias por su comprensión.");
+        registrar(AvisoCita.Tipo.CANCELADA, Destinatario.ESPECIALISTA, "NOTIF-ESP-CAN-", REMITENTE_SISTEMA,
+                "Cancelación de cita - {paciente}",
+                "Estimado/a Dr./Dra. {especialista},\n\n" +
+                "Se ha cancelado una cita en su agenda:\n\n" +
+                "DETALLES DE LA CITA CANCELADA:\n" +
+                "Paciente: {paciente}\n" +
+                "Fecha: {fecha}\n" +
+                "Hora: {hora}\n" +
+                "Motivo de consulta: {motivo}\n" +
+                "Teléfono del paciente: {telefono}\n\n" +
+                "Por favor, tome nota de que esta cita ha sido eliminada de su agenda.\n\n" +
+                "Saludos cordiales,\n" +
+                "Sistema de Gestión de Citas");
+    }
+
+    private void registrar(AvisoCita.Tipo tipo, Destinatario destinatario, String prefijoId, String remitente,
+                           String asunto, String mensaje) {
+        String id = "cita." + tipo.name().toLowerCase(Locale.ROOT) + "." + destinatario.name().toLowerCase(Locale.ROOT);
+        Plantilla plantilla = new Plantilla(id, prefijoId, remitente, Texto.compilar(asunto), Texto.compilar(mensaje));
+        plantillas.computeIfAbsent(tipo, t -> new EnumMap<>(Destinatario.class)).put(destinatario, plantilla);
+        porId.put(id, plantilla);
+    }
+
+    private Plantilla obtener(AvisoCita.Tipo tipo, Destinatario destinatario) {
+        return plantillas.get(tipo).get(destinatario);
+    }
+
+    /**
+     * Crea la notificación del aviso guardando solo la plantilla y los campos que esta usa.
+     */
+    public Notificacion crear(AvisoCita aviso, Destinatario destinatario, String correoDestinatario, LocalDateTime fechaEnvio) {
+        Plantilla plantilla = obtener(aviso.getTipo(), destinatario);
+        String[] valores = valores(aviso);
+        Map<String, String> parametros = new LinkedHashMap<>();
+        for (Texto texto : List.of(plantilla.asunto(), plantilla.mensaje())) {
+            for (Campo campo : texto.campos) {
+                parametros.put(campo.clave, valores[campo.ordinal()]);
+            }
+        }
+
+        Notificacion notificacion = new Notificacion(plantilla.prefijoId() + aviso.getId(), fechaEnvio,
+                null, plantilla.remitente(), null, correoDestinatario);
+        notificacion.setPlantilla(plantilla.id());
+        notificacion.setParametros(Collections.unmodifiableMap(parametros));
+        return notificacion;
+    }
+
+    /**
+     * Crea el recordatorio de la notificación para su fecha de recordatorio actual. El ID sale de la
+     * notificación y de esa fecha, así que disparar dos veces el mismo recordatorio produce el mismo ID.
+     * Si la original es una plantilla se guarda la referencia; si no, su texto con el prefijo de recordatorio.
+     */
+    public Notificacion crearRecordatorio(Notificacion original, LocalDateTime fechaEnvio) {
+        String id = "REMINDER-" + original.getId() + "-" + original.getFechaRecordatorio().format(FORMATO_ID_RECORDATORIO);
+        Notificacion recordatorio = new Notificacion(id, fechaEnvio, null,
+                original.getRemitente() != null ? original.getRemitente() : REMITENTE_RECORDATORIO,
+                null, original.getCorreoDestinatario());
+        if (original.getPlantilla() != null) {
+            recordatorio.setPlantilla(PREFIJO_RECORDATORIO + original.getPlantilla());
+            recordatorio.setParametros(original.getParametros());
+        } else {
+            recordatorio.setAsunto(ASUNTO_RECORDATORIO + (original.getAsunto() != null ? original.getAsunto() : "Sin asunto"));
+            recordatorio.setMensaje(MENSAJE_RECORDATORIO + (original.getMensaje() != null ? original.getMensaje() : ""));
+        }
+        return recordatorio;
+    }
+
+    /**
+     * @return La notificación con el asunto y el mensaje completos, lista para enviarla a un cliente.
+     *         Las que ya tienen el texto completo (o cuya plantilla no existe) se devuelven sin cambios.
+     */
+    public Notificacion renderizar(Notificacion notificacion) {
+        if (notificacion.getPlantilla() == null) {
+            return notificacion;
+        }
+        boolean esRecordatorio = notificacion.getPlantilla().startsWith(PREFIJO_RECORDATORIO);
+        Plantilla plantilla = porId.get(esRecordatorio
+                ? notificacion.getPlantilla().substring(PREFIJO_RECORDATORIO.length())
+                : notificacion.getPlantilla());
+        if (plantilla == null) {
+            System.err.println("ERROR: La notificación " + notificacion.getId() + " usa una plantilla desconocida: " + notificacion.getPlantilla());
+            return notificacion;
+        }
+        String[] valores = new String[Campo.values().length];
+        Map<String, String> parametros = notificacion.getParametros() == null ? Map.of() : notificacion.getParametros();
+        for (Campo campo : Campo.values()) {
+            valores[campo.ordinal()] = parametros.getOrDefault(campo.clave, "");
+        }
+
+        Notificacion renderizada = new Notificacion(notificacion);
+        String asunto = plantilla.asunto().renderizar(valores);
+        String mensaje = plantilla.mensaje().renderizar(valores);
+        renderizada.setAsunto(esRecordatorio ? ASUNTO_RECORDATORIO + asunto : asunto);
+        renderizada.setMensaje(esRecordatorio ? MENSAJE_RECORDATORIO + mensaje : mensaje);
+        renderizada.setPlantilla(null);
+        renderizada.setParametros(null);
+        return renderizada;
+    }
+
+    /**
+     * @return Valores de cada {@link Campo} para el aviso, indexados por su ordinal
+     */
+    private static String[] valores(AvisoCita aviso) {
+        Cita cita = aviso.getCita();
+        String[] valores = new String[Campo.values().length];
+        valores[Campo.PACIENTE.ordinal()] = String.valueOf(cita.getPacienteNombre());
+        valores[Campo.ESPECIALISTA.ordinal()] = String.valueOf(cita.getEspecialista());
+        valores[Campo.FECHA.ordinal()] = String.valueOf(cita.getFecha());
+        valores[Campo.HORA.ordinal()] = String.valueOf(cita.getHora());
+        valores[Campo.MOTIVO.ordinal()] = String.valueOf(cita.getRazonConsulta());
+        valores[Campo.TELEFONO.ordinal()] = String.valueOf(cita.getPacienteTelefono());
+        valores[Campo.FECHA_ANTERIOR.ordinal()] = String.valueOf(aviso.getFechaAnterior());
+        valores[Campo.HORA_ANTERIOR.ordinal()] = String.valueOf(aviso.getHoraAnterior());
+        return valores;
+    }
+
+    /**
+     * @param id        Clave guardada en {@link Notificacion#getPlantilla()} (ej: "cita.agendada.paciente")
+     * @param prefijoId Prefijo del ID de la notificación (ej: "NOTIF-ESP-"), seguido del ID del aviso
+     */
+    public record Plantilla(String id, String prefijoId, String remitente, Texto asunto, Texto mensaje) {
+    }
+
+    /**
+     * Texto compilado: {@code literales[i]} va antes de {@code campos[i]} y el último literal cierra el texto.
+     */
+    public static final class Texto {
+        private final String[] literales;
+        private final Campo[] campos;
+        private final int longitudLiterales;
+
+        private Texto(String[] literales, Campo[] campos) {
+            this.literales = literales;
+            this.campos = campos;
+            int longitud = 0;
+            for (String literal : literales) {
+                longitud += literal.length();
+            }
+            this.longitudLiterales = longitud;
+        }
+
+        /**
+         * @throws IllegalArgumentException Si el texto usa un campo que no existe
+         */
+        static Texto compilar(String plantilla) {
+            List<String> literales = new ArrayList<>();
+            List<Campo> campos = new ArrayList<>();
+            int desde = 0;
+            int inicio;
+            while ((inicio = plantilla.indexOf('{', desde)) >= 0) {
+                int fin = plantilla.indexOf('}', inicio);
+                if (fin < 0) {
+                    break;
+                }
+                literales.add(plantilla.substring(desde, inicio));
+                campos.add(campo(plantilla.substring(inicio, fin + 1)));
+                desde = fin + 1;
+            }
+            literales.add(plantilla.substring(desde));
+            return new Texto(literales.toArray(new String[0]), campos.toArray(new Campo[0]));
+        }
+
+        private static Campo campo(String marcador) {
+            for (Campo campo : Campo.values()) {
+                if (campo.marcador.equals(marcador)) {
+                    return campo;
+                }
+            }
+            throw new IllegalArgumentException("Campo desconocido en la plantilla de notificación: " + marcador);
+        }
+
+        /**
+         * @param valores Valores indexados por el ordinal de cada {@link Campo}
+         */
+        public String renderizar(String[] valores) {
+            int longitud = longitudLiterales;
+            for (Campo campo : campos) {
+                longitud += valores[campo.ordinal()].length();
+            }
+            StringBuilder texto = new StringBuilder(longitud);
+            for (int i = 0; i < campos.length; i++) {
+                texto.append(literales[i]).append(valores[campos[i].ordinal()]);
+            }
+            return texto.append(literales[campos.length]).toString();
+        }
+    }
+}
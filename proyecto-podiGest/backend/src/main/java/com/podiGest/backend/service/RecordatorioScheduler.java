@@ -11,9 +11,6 @@ import java.time.format.DateTimeFormatter;
 @Component
 public class RecordatorioScheduler {
 
-    @Autowired
-    private NotificacionService notificacionService;
-
     @Autowired
     private CitasService citasService;
 
@@ -28,9 +25,12 @@ public class RecordatorioScheduler {
         
         try {
             // Actualizar estados de citas pasadas
+            // Los recordatorios de notificaciones no se revisan aquí: AgendaRecordatorios despierta en su hora exacta
             citasService.actualizarEstadosCitas();
+
+            // Reintenta los avisos de citas que no se pudieron entregar (o que quedaron pendientes tras un reinicio)
+            citasService.entregarAvisosPendientes();
             
-            notificacionService.procesarRecordatoriosPendientes();
             System.out.println("✓ [SCHEDULER] Proceso completado exitosamente");
         } catch (IOException e) {
             System.err.println("✗ [SCHEDULER] IOException al procesar recordatorios: " + e.getMessage());
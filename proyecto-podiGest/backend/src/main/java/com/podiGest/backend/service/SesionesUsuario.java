@@ -0,0 +1,222 @@
+package com.podiGest.backend.service;
+
+import com.podiGest.backend.model.SesionGuardada;
+import com.podiGest.backend.model.Usuario;
+import com.podiGest.backend.repository.AlmacenSesiones;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Sesiones de usuario en memoria, identificadas por un token aleatorio que se entrega al iniciar sesión.
+ * Reemplaza al archivo único usuarioInicioSesion.json: cada usuario tiene su propia sesión, y resolverla
+ * en una petición es una búsqueda en un mapa concurrente, sin leer disco.
+ *
+ * El token se envía en la cabecera {@value #CABECERA_TOKEN} (o como {@code Authorization: Bearer}). EventSource
+ * no permite cabeceras, así que el flujo de notificaciones también lo acepta en el parámetro
+ * {@value #PARAMETRO_TOKEN} ({@link #usuarioActualDeFlujo()}); el resto de los endpoints exige la cabecera, para que
+ * el token no quede en URLs que se guardan en logs e historiales. Una petición sin token no tiene sesión:
+ * los controladores responden 401.
+ *
+ * Cada uso renueva el vencimiento de la sesión; las vencidas se descartan periódicamente. Al detener la
+ * aplicación las sesiones vigentes pueden guardarse ({@link AlmacenSesiones}) para recuperarlas al arrancar;
+ * solo se guarda la cédula de cada sesión y el usuario se vuelve a tomar de los usuarios registrados.
+ */
+@Component
+public class SesionesUsuario {
+
+    public static final String CABECERA_TOKEN = "X-Session-Token";
+    public static final String PARAMETRO_TOKEN = "sesion";
+    private static final String PREFIJO_BEARER = "Bearer ";
+
+    private final Map<String, Sesion> sesiones = new ConcurrentHashMap<>();
+    private final SecureRandom aleatorio = new SecureRandom();
+    private final AlmacenSesiones almacen;
+    private final long duracionMs;
+    private final boolean persistir;
+
+    public SesionesUsuario(AlmacenSesiones almacen,
+                           @Value("${podigest.sesiones.duracion-minutos:480}") long duracionMinutos,
+                           @Value("${podigest.sesiones.persistir:true}") boolean persistir) {
+        this.almacen = almacen;
+        this.duracionMs = duracionMinutos * 60 * 1000L;
+        this.persistir = persistir;
+    }
+
+    /**
+     * Crea una sesión nueva para el usuario; sus otras sesiones (ej: en otro navegador) siguen vigentes.
+     *
+     * @return Token de la sesión
+     */
+    public String iniciar(Usuario usuario) {
+        byte[] bytes = new byte[32];
+        aleatorio.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        Sesion sesion = new Sesion();
+        sesion.setUsuario(usuario);
+        sesion.setVence(System.currentTimeMillis() + duracionMs);
+        sesiones.put(token, sesion);
+        return token;
+    }
+
+    /**
+     * @return Usuario de la sesión de la petición HTTP en curso, o vacío si no hay sesión vigente
+     */
+    public Optional<Usuario> usuarioActual() {
+        String token = tokenDeLaPeticion(false);
+        return token == null ? Optional.empty() : usuario(token);
+    }
+
+    /**
+     * Como {@link #usuarioActual()}, pero también acepta el token en el parámetro {@value #PARAMETRO_TOKEN}.
+     * Solo para el flujo Server-Sent Events, que el navegador abre con EventSource sin poder enviar cabeceras.
+     */
+    public Optional<Usuario> usuarioActualDeFlujo() {
+        String token = tokenDeLaPeticion(true);
+        return token == null ? Optional.empty() : usuario(token);
+    }
+
+    /**
+     * @return Usuario de la sesión, renovando su vencimiento, o vacío si no existe o ya venció
+     */
+    public Optional<Usuario> usuario(String token) {
+        Sesion sesion = sesiones.get(token);
+        if (sesion == null) {
+            return Optional.empty();
+        }
+        long ahora = System.currentTimeMillis();
+        if (sesion.getVence() < ahora) {
+            sesiones.remove(token, sesion);
+            return Optional.empty();
+        }
+        sesion.setVence(ahora + duracionMs);
+        return Optional.of(sesion.getUsuario());
+    }
+
+    /**
+     * Cierra la sesión de la petición en curso.
+     *
+     * @return false si la petición no tenía una sesión vigente
+     */
+    public boolean cerrarActual() {
+        String token = tokenDeLaPeticion(false);
+        return token != null && sesiones.remove(token) != null;
+    }
+
+    /**
+     * Reemplaza los datos del usuario en todas sus sesiones (ej: tras modificar el perfil).
+     */
+    public void actualizarUsuario(String cedula, Usuario usuario) {
+        sesiones.values().forEach(sesion -> {
+            if (cedula.equals(sesion.getUsuario().getCedula())) {
+                sesion.setUsuario(usuario);
+            }
+        });
+    }
+
+    /**
+     * Cierra todas las sesiones del usuario (ej: al eliminar su cuenta).
+     */
+    public void cerrarDelUsuario(String cedula) {
+        sesiones.values().removeIf(sesion -> cedula.equals(sesion.getUsuario().getCedula()));
+    }
+
+    public int getActivas() {
+        return sesiones.size();
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public void descartarVencidas() {
+        long ahora = System.currentTimeMillis();
+        sesiones.values().removeIf(sesion -> sesion.getVence() < ahora);
+    }
+
+    private static String tokenDeLaPeticion(boolean admitirParametro) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes atributos)) {
+            return null;
+        }
+        HttpServletRequest peticion = atributos.getRequest();
+        String token = peticion.getHeader(CABECERA_TOKEN);
+        if (token == null) {
+            String autorizacion = peticion.getHeader("Authorization");
+            if (autorizacion != null && autorizacion.startsWith(PREFIJO_BEARER)) {
+                token = autorizacion.substring(PREFIJO_BEARER.length());
+            }
+        }
+        if (token == null && admitirParametro) {
+            token = peticion.getParameter(PARAMETRO_TOKEN);
+        }
+        return token == null || token.isBlank() ? null : token.trim();
+    }
+
+    /**
+     * Recupera las sesiones guardadas al detener la aplicación. Lo llama {@link PerfilService} una vez cargados
+     * los usuarios; las sesiones de usuarios que ya no existen se descartan.
+     *
+     * @param buscarPorCedula Usuario registrado con esa cédula
+     */
+    void cargarGuardadas(Function<String, Optional<Usuario>> buscarPorCedula) {
+        if (!persistir) {
+            return;
+        }
+        try {
+            List<SesionGuardada> guardadas = almacen.cargar();
+            long ahora = System.currentTimeMillis();
+            for (SesionGuardada guardada : guardadas) {
+                Optional<Usuario> usuario = buscarPorCedula.apply(guardada.getCedula());
+                if (guardada.getVence() >= ahora && usuario.isPresent()) {
+                    Sesion sesion = new Sesion();
+                    sesion.setUsuario(usuario.get());
+                    sesion.setVence(guardada.getVence());
+                    sesiones.put(guardada.getToken(), sesion);
+                }
+            }
+            System.out.println("INFO: Se recuperaron " + sesiones.size() + " sesiones vigentes");
+        } catch (IOException e) {
+            System.err.println("ERROR: No se pudieron cargar las sesiones guardadas: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        if (!persistir) {
+            return;
+        }
+        descartarVencidas();
+        List<SesionGuardada> guardadas = new ArrayList<>();
+        sesiones.forEach((token, sesion) -> {
+            SesionGuardada guardada = new SesionGuardada();
+            guardada.setToken(token);
+            guardada.setCedula(sesion.getUsuario().getCedula());
+            guardada.setVence(sesion.getVence());
+            guardadas.add(guardada);
+        });
+        try {
+            almacen.guardar(guardadas);
+            System.out.println("INFO: Se guardaron " + guardadas.size() + " sesiones vigentes");
+        } catch (IOException e) {
+            System.err.println("ERROR: No se pudieron guardar las sesiones: " + e.getMessage());
+        }
+    }
+
+    @Data
+    private static class Sesion {
+        private volatile Usuario usuario;
+        private volatile long vence;
+    }
+}
@@ -0,0 +1,93 @@
+package com.podiGest.backend.repository;
+
+import com.podiGest.backend.model.Cita;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactacionCitasTests {
+
+    @TempDir
+    Path carpeta;
+
+    @Test
+    void compactarVuelcaLosMesesModificadosYVaciaElJournal() throws IOException {
+        AlmacenCitasJson almacen = nuevoAlmacen();
+        CitasRepository repositorio = new CitasRepository(almacen, 3);
+        repositorio.guardar(cita("CITA-1", LocalDate.of(2027, 3, 10)));
+        repositorio.guardar(cita("CITA-2", LocalDate.of(2027, 4, 5)));
+        assertTrue(Files.size(carpeta.resolve("citas.journal")) > 0);
+
+        repositorio.compactar();
+
+        assertEquals(0, Files.size(carpeta.resolve("citas.journal")));
+        assertTrue(Files.exists(carpeta.resolve("citas/2027-03.json")));
+        assertTrue(Files.exists(carpeta.resolve("citas/2027-04.json")));
+        assertEquals(List.of("CITA-1"), almacen.leerParticion("2027-03").stream().map(Cita::getId).toList());
+        repositorio.cerrar();
+
+        CitasRepository reabierto = new CitasRepository(nuevoAlmacen(), 3);
+        assertEquals(List.of("CITA-1", "CITA-2"), reabierto.obtenerTodas().stream().map(Cita::getId).toList());
+        reabierto.cerrar();
+    }
+
+    @Test
+    void reproduceElJournalSiElProcesoMuereSinCompactar() throws IOException {
+        AlmacenCitasJson almacen = nuevoAlmacen();
+        CitasRepository repositorio = new CitasRepository(almacen, 3);
+        repositorio.guardar(cita("CITA-1", LocalDate.of(2027, 3, 10)));
+        Cita cancelada = cita("CITA-1", LocalDate.of(2027, 3, 10));
+        cancelada.setEstado("cancelada");
+        repositorio.guardar(cancelada);
+        // Sin compactar ni volcar nada: solo queda el journal
+        almacen.cerrar();
+
+        CitasRepository reabierto = new CitasRepository(nuevoAlmacen(), 3);
+        Cita recuperada = reabierto.buscarPorId("CITA-1").orElseThrow();
+        assertEquals("cancelada", recuperada.getEstado());
+        assertEquals(2, recuperada.getSecuencia());
+        reabierto.cerrar();
+    }
+
+    @Test
+    void terminaLaCompactacionInterrumpidaAlArrancar() throws IOException {
+        AlmacenCitasJson almacen = nuevoAlmacen();
+        CitasRepository repositorio = new CitasRepository(almacen, 3);
+        repositorio.guardar(cita("CITA-1", LocalDate.of(2027, 3, 10)));
+        repositorio.guardar(cita("CITA-2", LocalDate.of(2027, 3, 11)));
+        // El proceso muere después de rotar el journal y antes de escribir las particiones
+        assertTrue(almacen.rotar());
+        almacen.cerrar();
+        Path compactando = carpeta.resolve("citas.journal.compactando");
+        assertTrue(Files.exists(compactando));
+
+        CitasRepository reabierto = new CitasRepository(nuevoAlmacen(), 3);
+
+        assertFalse(Files.exists(compactando));
+        assertTrue(Files.exists(carpeta.resolve("citas/2027-03.json")));
+        assertEquals(2, reabierto.obtenerTodas().size());
+        reabierto.cerrar();
+        assertEquals(List.of("CITA-1", "CITA-2"),
+                nuevoAlmacen().leerParticion("2027-03").stream().map(Cita::getId).toList());
+    }
+
+    private AlmacenCitasJson nuevoAlmacen() {
+        return new AlmacenCitasJson(carpeta, ConfiguracionAlmacenamiento.crearMapper(), new PersistenciaAtomica(0));
+    }
+
+    static Cita cita(String id, LocalDate fecha) {
+        return new Cita(id, "Paciente", "paciente@correo.com", "0999999999", "Ana Gomez", "1111",
+                "Podologia", fecha, LocalTime.of(9, 0), "Control", "pendiente", Instant.parse("2026-10-01T00:00:00Z"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.podiGest.backend.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalTests {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final PersistenciaAtomica persistencia = new PersistenciaAtomica(0);
+
+    @TempDir
+    Path carpeta;
+
+    @Test
+    void reproduceLosRegistrosEnElOrdenEnQueSeEscribieron() throws IOException {
+        Path ruta = carpeta.resolve("prueba.journal");
+        Journal journal = persistencia.crearJournal(ruta, mapper);
+        journal.abrir(Registro.class);
+        journal.agregar(new Registro(1));
+        journal.agregar(new Registro(2));
+        journal.agregar(new Registro(3));
+        journal.cerrar();
+
+        Journal reabierto = persistencia.crearJournal(ruta, mapper);
+        List<Registro> registros = reabierto.abrir(Registro.class);
+        reabierto.cerrar();
+
+        assertEquals(List.of(1, 2, 3), registros.stream().map(registro -> registro.numero).toList());
+    }
+
+    @Test
+    void descartaElRegistroIncompletoDelFinalYRecortaElArchivo() throws IOException {
+        Path ruta = carpeta.resolve("prueba.journal");
+        Journal journal = persistencia.crearJournal(ruta, mapper);
+        journal.abrir(Registro.class);
+        journal.agregar(new Registro(1));
+        journal.agregar(new Registro(2));
+        journal.cerrar();
+        long longitudValida = Files.size(ruta);
+        // El proceso murió a mitad de la escritura del tercer registro
+        Files.write(ruta, "{\"numero\":3".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        Journal reabierto = persistencia.crearJournal(ruta, mapper);
+        List<Registro> registros = reabierto.abrir(Registro.class);
+        assertEquals(List.of(1, 2), registros.stream().map(registro -> registro.numero).toList());
+        assertEquals(longitudValida, Files.size(ruta));
+
+        // Lo que se agregue después queda a continuación del último registro válido
+        reabierto.agregar(new Registro(4));
+        reabierto.cerrar();
+        Journal otraVez = persistencia.crearJournal(ruta, mapper);
+        assertEquals(List.of(1, 2, 4), otraVez.abrir(Registro.class).stream().map(registro -> registro.numero).toList());
+        otraVez.cerrar();
+    }
+
+    @Test
+    void dejaDeLeerEnUnRegistroCorrupto() throws IOException {
+        Path ruta = carpeta.resolve("prueba.journal");
+        Files.writeString(ruta, "{\"numero\":1}\n{no es json}\n{\"numero\":3}\n");
+
+        Journal journal = persistencia.crearJournal(ruta, mapper);
+        List<Registro> registros = journal.abrir(Registro.class);
+        journal.cerrar();
+
+        assertEquals(List.of(1), registros.stream().map(registro -> registro.numero).toList());
+    }
+
+    @Test
+    void rotarMueveLosRegistrosYSigueSobreUnJournalVacio() throws IOException {
+        Path ruta = carpeta.resolve("prueba.journal");
+        Path rotado = carpeta.resolve("prueba.journal.compactando");
+        Journal journal = persistencia.crearJournal(ruta, mapper);
+        journal.abrir(Registro.class);
+        journal.agregar(new Registro(1));
+        journal.agregar(new Registro(2));
+
+        journal.rotar(rotado);
+        assertEquals(0, journal.getRegistros());
+        journal.agregar(new Registro(3));
+        journal.cerrar();
+
+        assertTrue(Files.exists(rotado));
+        assertEquals(List.of(1, 2), journal.leerRegistros(rotado, Registro.class).stream().map(registro -> registro.numero).toList());
+        Journal reabierto = persistencia.crearJournal(ruta, mapper);
+        assertEquals(List.of(3), reabierto.abrir(Registro.class).stream().map(registro -> registro.numero).toList());
+        reabierto.cerrar();
+        assertFalse(journal.leerRegistros(carpeta.resolve("no-existe.journal"), Registro.class).iterator().hasNext());
+    }
+
+    static class Registro {
+        public int numero;
+
+        Registro() {
+        }
+
+        Registro(int numero) {
+            this.numero = numero;
+        }
+    }
+}
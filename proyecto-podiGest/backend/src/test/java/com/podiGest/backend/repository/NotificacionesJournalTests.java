@@ -0,0 +1,84 @@
+package com.podiGest.backend.repository;
+
+import com.podiGest.backend.model.Notificacion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NotificacionesJournalTests {
+
+    @TempDir
+    Path carpeta;
+
+    @Test
+    void reproduceAltasYCambiosDelJournalAlArrancar() throws IOException {
+        AlmacenConJournal<Notificacion, NotificacionesRepository.RegistroNotificacion> almacen = nuevoAlmacen();
+        NotificacionesRepository repositorio = new NotificacionesRepository(almacen);
+        repositorio.crear(notificacion("NOTIF-1", "ana@correo.com"));
+        repositorio.crear(notificacion("NOTIF-2", "ana@correo.com"));
+        repositorio.crear(notificacion("NOTIF-3", "luis@correo.com"));
+        repositorio.silenciar("NOTIF-1", true);
+        repositorio.eliminarPorUsuario("luis@correo.com");
+        // Sin compactar: el estado solo está en el journal
+        almacen.cerrar();
+
+        NotificacionesRepository reabierto = new NotificacionesRepository(nuevoAlmacen());
+        assertEquals(List.of("NOTIF-1", "NOTIF-2"), reabierto.obtenerTodas().stream().map(Notificacion::getId).toList());
+        assertTrue(reabierto.buscarPorId("NOTIF-1").orElseThrow().isSilenciada());
+        assertEquals(1, reabierto.contarNoSilenciadas("ana@correo.com"));
+        reabierto.cerrar();
+    }
+
+    @Test
+    void compactarVuelcaElEstadoYVaciaElJournal() throws IOException {
+        NotificacionesRepository repositorio = new NotificacionesRepository(nuevoAlmacen());
+        repositorio.crear(notificacion("NOTIF-1", "ana@correo.com"));
+        repositorio.silenciar("NOTIF-1", true);
+
+        repositorio.compactar();
+
+        assertEquals(0, Files.size(carpeta.resolve("notificaciones.journal")));
+        assertTrue(Files.readString(carpeta.resolve("notificaciones.json")).contains("NOTIF-1"));
+        repositorio.cerrar();
+        NotificacionesRepository reabierto = new NotificacionesRepository(nuevoAlmacen());
+        assertTrue(reabierto.buscarPorId("NOTIF-1").orElseThrow().isSilenciada());
+        reabierto.cerrar();
+    }
+
+    @Test
+    void terminaLaCompactacionInterrumpidaAlArrancar() throws IOException {
+        AlmacenConJournal<Notificacion, NotificacionesRepository.RegistroNotificacion> almacen = nuevoAlmacen();
+        NotificacionesRepository repositorio = new NotificacionesRepository(almacen);
+        repositorio.crear(notificacion("NOTIF-1", "ana@correo.com"));
+        // El proceso muere después de rotar el journal y antes de escribir notificaciones.json
+        assertTrue(almacen.rotar());
+        repositorio.crear(notificacion("NOTIF-2", "ana@correo.com"));
+        almacen.cerrar();
+
+        NotificacionesRepository reabierto = new NotificacionesRepository(nuevoAlmacen());
+        assertEquals(List.of("NOTIF-1", "NOTIF-2"), reabierto.obtenerTodas().stream().map(Notificacion::getId).toList());
+        reabierto.compactar();
+        assertFalse(Files.exists(carpeta.resolve("notificaciones.journal.compactando")));
+        reabierto.cerrar();
+        NotificacionesRepository otraVez = new NotificacionesRepository(nuevoAlmacen());
+        assertEquals(2, otraVez.obtenerTodas().size());
+        otraVez.cerrar();
+    }
+
+    private AlmacenConJournal<Notificacion, NotificacionesRepository.RegistroNotificacion> nuevoAlmacen() {
+        return ConfiguracionAlmacenamiento.notificacionesJson(carpeta, new PersistenciaAtomica(0));
+    }
+
+    private static Notificacion notificacion(String id, String correo) {
+        return new Notificacion(id, LocalDateTime.of(2026, 10, 1, 9, 0), "Asunto", "Sistema", "Mensaje", correo);
+    }
+}
@@ -0,0 +1,119 @@
+package com.podiGest.backend.repository;
+
+import com.podiGest.backend.model.Cita;
+import com.podiGest.backend.model.ConsultaCitas;
+import com.podiGest.backend.model.PaginaCitas;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaginacionCitasTests {
+
+    private final IndiceOrdenado porEspecialista = new IndiceOrdenado(Cita::getEspecialista);
+    private final IndiceOrdenado porCedula = new IndiceOrdenado(Cita::getCedulaEspecialista);
+
+    @BeforeEach
+    void indexar() {
+        // Diez citas del 1 al 10 de marzo; las pares están canceladas y las últimas tres no tienen cédula
+        for (int dia = 1; dia <= 10; dia++) {
+            Cita cita = new Cita("CITA-" + dia, "Paciente", "paciente@correo.com", null, "Ana Gomez",
+                    dia <= 7 ? "1111" : null, "Podologia", LocalDate.of(2027, 3, dia), LocalTime.of(9, 0), "Control",
+                    dia % 2 == 0 ? "cancelada" : "pendiente", Instant.parse("2026-10-01T00:00:00Z"));
+            porEspecialista.agregar(cita);
+            porCedula.agregar(cita);
+        }
+    }
+
+    @Test
+    void recorreTodasLasPaginasEnOrdenSinRepetir() {
+        assertEquals(ids(1, 10), recorrer(consulta(null, 3)));
+        ConsultaCitas descendente = consulta(null, 3);
+        descendente.setOrden("desc");
+        assertEquals(ids(10, 1), recorrer(descendente));
+    }
+
+    @Test
+    void filtraPorEstadoEnTodasLasPaginas() {
+        ConsultaCitas pendientes = consulta(null, 2);
+        pendientes.setEstado("pendiente");
+        assertEquals(List.of("CITA-1", "CITA-3", "CITA-5", "CITA-7", "CITA-9"), recorrer(pendientes));
+    }
+
+    @Test
+    void uneLasFuentesSinDuplicarLasCitasQueEstanEnAmbas() {
+        List<String> ids = new ArrayList<>();
+        ConsultaCitas consulta = consulta(null, 4);
+        do {
+            PaginaCitas pagina = IndiceOrdenado.consultar(List.of(fuente(porCedula, "1111"), fuente(porEspecialista, "Ana Gomez")), consulta);
+            pagina.getCitas().forEach(cita -> ids.add(cita.getId()));
+            consulta.setCursor(pagina.getSiguienteCursor());
+        } while (consulta.getCursor() != null);
+        assertEquals(ids(1, 10), ids);
+    }
+
+    @Test
+    void elCursorSeAjustaAlRangoDeFechas() {
+        PaginaCitas primera = IndiceOrdenado.consultar(List.of(fuente(porEspecialista, "Ana Gomez")), consulta(null, 2));
+        String cursorDelDia2 = primera.getSiguienteCursor();
+
+        // Un cursor anterior al rango no recorta nada
+        ConsultaCitas desdeElDia5 = consulta(cursorDelDia2, 2);
+        desdeElDia5.setDesde("2027-03-05");
+        assertEquals(ids(5, 10), recorrer(desdeElDia5));
+
+        // Uno posterior al rango deja la página vacía
+        ConsultaCitas hastaElDia1 = consulta(cursorDelDia2, 2);
+        hastaElDia1.setHasta("2027-03-01");
+        PaginaCitas vacia = IndiceOrdenado.consultar(List.of(fuente(porEspecialista, "Ana Gomez")), hastaElDia1);
+        assertTrue(vacia.getCitas().isEmpty());
+        assertNull(vacia.getSiguienteCursor());
+    }
+
+    @Test
+    void rechazaUnCursorQueNoEsBase64() {
+        assertThrows(IllegalArgumentException.class,
+                () -> IndiceOrdenado.consultar(List.of(fuente(porEspecialista, "Ana Gomez")), consulta("no es un cursor!", 2)));
+    }
+
+    private List<String> recorrer(ConsultaCitas consulta) {
+        List<String> ids = new ArrayList<>();
+        do {
+            PaginaCitas pagina = IndiceOrdenado.consultar(List.of(fuente(porEspecialista, "Ana Gomez")), consulta);
+            assertTrue(pagina.getCitas().size() <= consulta.getLimite());
+            pagina.getCitas().forEach(cita -> ids.add(cita.getId()));
+            consulta.setCursor(pagina.getSiguienteCursor());
+        } while (consulta.getCursor() != null);
+        return ids;
+    }
+
+    private static NavigableMap<String, Cita> fuente(IndiceOrdenado indice, String clave) {
+        return indice.obtener(clave);
+    }
+
+    private static ConsultaCitas consulta(String cursor, int limite) {
+        ConsultaCitas consulta = new ConsultaCitas();
+        consulta.setCursor(cursor);
+        consulta.setLimite(limite);
+        return consulta;
+    }
+
+    private static List<String> ids(int desde, int hasta) {
+        List<String> ids = new ArrayList<>();
+        int paso = desde <= hasta ? 1 : -1;
+        for (int dia = desde; dia != hasta + paso; dia += paso) {
+            ids.add("CITA-" + dia);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,189 @@
+package com.podiGest.backend.repository;
+
+import com.podiGest.backend.model.Cita;
+import com.podiGest.backend.model.ConsultaCitas;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParticionesCitasTests {
+
+    // Meses fuera de la ventana activa (podigest.citas.meses-activos=3)
+    private static final YearMonth ENERO = YearMonth.now().minusMonths(12);
+    private static final YearMonth FEBRERO = ENERO.plusMonths(1);
+    private static final YearMonth MARZO = ENERO.plusMonths(2);
+    private static final YearMonth ACTUAL = YearMonth.now();
+
+    @TempDir
+    Path carpeta;
+
+    @BeforeEach
+    void guardarHistorial() throws IOException {
+        AlmacenCitasJson almacen = new AlmacenCitasJson(carpeta, ConfiguracionAlmacenamiento.crearMapper(), new PersistenciaAtomica(0));
+        almacen.cargar();
+        Map<String, List<Cita>> particiones = new TreeMap<>();
+        particiones.put(ENERO.toString(), List.of(cita("CITA-E1", ENERO, "ana@correo.com", "Ana Gomez", "1111")));
+        particiones.put(FEBRERO.toString(), List.of(cita("CITA-F1", FEBRERO, "luis@correo.com", "Ana Gomez", "1111"),
+                cita("CITA-F2", FEBRERO, "luis@correo.com", "Pedro Ruiz", "2222")));
+        particiones.put(MARZO.toString(), List.of(cita("CITA-M1", MARZO, "luis@correo.com", "Pedro Ruiz", "2222")));
+        particiones.put(ACTUAL.toString(), List.of(cita("CITA-A1", ACTUAL, "ana@correo.com", "Pedro Ruiz", "2222")));
+        almacen.volcarParticiones(particiones);
+        almacen.cerrar();
+    }
+
+    @Test
+    void alArrancarSoloLeeLaVentanaActiva() {
+        AlmacenRegistrado almacen = nuevoAlmacen();
+        CitasRepository repositorio = new CitasRepository(almacen, 3);
+
+        assertEquals(Set.of(ACTUAL.toString()), almacen.leidos);
+        assertTrue(repositorio.buscarPorId("CITA-A1").isPresent());
+    }
+
+    @Test
+    void lasBusquedasLeenSoloLosMesesQueContienenCoincidencias() {
+        AlmacenRegistrado almacen = nuevoAlmacen();
+        CitasRepository repositorio = new CitasRepository(almacen, 3);
+        almacen.leidos.clear();
+
+        assertEquals("CITA-F2", repositorio.buscarPorId("CITA-F2").orElseThrow().getId());
+        assertEquals(Set.of(FEBRERO.toString()), almacen.leidos);
+
+        assertTrue(repositorio.buscarPorId("CITA-NO-EXISTE").isEmpty());
+        assertEquals(Set.of(FEBRERO.toString()), almacen.leidos);
+
+        assertEquals(List.of("CITA-E1", "CITA-A1"), ids(repositorio.buscarPorPaciente("ana@correo.com")));
+        assertEquals(Set.of(ENERO.toString(), FEBRERO.toString()), almacen.leidos);
+
+        // Por nombre sin distinguir mayúsculas: marzo es el único mes de Pedro Ruiz que faltaba
+        assertEquals(List.of("CITA-F2", "CITA-M1", "CITA-A1"), ids(repositorio.buscarPorEspecialista(null, "pedro ruiz")));
+        assertEquals(Set.of(ENERO.toString(), FEBRERO.toString(), MARZO.toString()), almacen.leidos);
+    }
+
+    @Test
+    void lasConsultasPorRangoLeenSoloLosMesesDelRango() {
+        AlmacenRegistrado almacen = nuevoAlmacen();
+        CitasRepository repositorio = new CitasRepository(almacen, 3);
+        almacen.leidos.clear();
+
+        ConsultaCitas consulta = new ConsultaCitas();
+        consulta.setDesde(MARZO.atDay(1).toString());
+        assertEquals(List.of("CITA-M1", "CITA-A1"), ids(repositorio.consultarTodas(consulta).getCitas()));
+        assertEquals(Set.of(MARZO.toString()), almacen.leidos);
+
+        repositorio.horasOcupadas("1111", "Ana Gomez", ENERO.atDay(10));
+        assertEquals(Set.of(ENERO.toString(), MARZO.toString()), almacen.leidos);
+
+        assertEquals(5, repositorio.obtenerTodas().size());
+        assertEquals(Set.of(ENERO.toString(), FEBRERO.toString(), MARZO.toString()), almacen.leidos);
+    }
+
+    @Test
+    void escribirEnUnMesSinCargarLoLeePrimeroParaNoPerderSusCitas() throws IOException {
+        CitasRepository repositorio = new CitasRepository(nuevoAlmacen(), 3);
+        repositorio.guardar(cita("CITA-F3", FEBRERO, "ana@correo.com", "Ana Gomez", "1111"));
+        repositorio.compactar();
+        repositorio.cerrar();
+
+        assertEquals(List.of("CITA-F1", "CITA-F2", "CITA-F3"), ids(nuevoAlmacen().leerParticion(FEBRERO.toString())));
+    }
+
+    @Test
+    void elIndiceGuardaSoloElResumenYLasClavesVanPorMes() throws IOException {
+        String indice = Files.readString(carpeta.resolve("citas/particiones.json"));
+        assertFalse(indice.contains("CITA-F1"));
+        assertFalse(indice.contains("luis@correo.com"));
+        assertTrue(Files.readString(carpeta.resolve("citas/claves/" + FEBRERO + ".json")).contains("CITA-F1"));
+
+        // Volcar un mes reescribe solo sus claves
+        Files.delete(carpeta.resolve("citas/claves/" + ENERO + ".json"));
+        AlmacenCitasJson almacen = nuevoAlmacen();
+        almacen.cargar();
+        almacen.volcarParticiones(Map.of(MARZO.toString(), List.of()));
+        almacen.cerrar();
+
+        assertFalse(Files.exists(carpeta.resolve("citas/claves/" + ENERO + ".json")));
+        assertFalse(Files.exists(carpeta.resolve("citas/claves/" + MARZO + ".json")));
+        assertTrue(Files.exists(carpeta.resolve("citas/claves/" + FEBRERO + ".json")));
+    }
+
+    @Test
+    void generaLasClavesQueFaltanConElIndiceDeVersionesAnteriores() throws IOException {
+        // Índice de versiones anteriores, con las claves dentro y sin la carpeta citas/claves
+        Files.writeString(carpeta.resolve("citas/particiones.json"), "{"
+                + "\"" + ENERO + "\":{\"citas\":1,\"pendientes\":0,\"secuenciaMaxima\":1,\"ids\":[\"CITA-E1\"]},"
+                + "\"" + FEBRERO + "\":{\"citas\":2,\"pendientes\":0,\"secuenciaMaxima\":1},"
+                + "\"" + MARZO + "\":{\"citas\":1,\"pendientes\":0,\"secuenciaMaxima\":1},"
+                + "\"" + ACTUAL + "\":{\"citas\":1,\"pendientes\":0,\"secuenciaMaxima\":1}}");
+        for (YearMonth mes : List.of(ENERO, FEBRERO, MARZO, ACTUAL)) {
+            Files.delete(carpeta.resolve("citas/claves/" + mes + ".json"));
+        }
+        AlmacenRegistrado almacen = nuevoAlmacen();
+        CitasRepository repositorio = new CitasRepository(almacen, 3);
+
+        assertEquals(Set.of(FEBRERO.toString(), MARZO.toString()), almacen.particionesDePaciente("luis@correo.com"));
+        assertEquals(List.of("CITA-F1", "CITA-F2", "CITA-M1"), ids(repositorio.buscarPorPaciente("luis@correo.com")));
+        assertTrue(Files.exists(carpeta.resolve("citas/claves/" + ENERO + ".json")));
+
+        // Con las claves ya generadas, otro almacén no vuelve a leer las particiones para buscar
+        AlmacenRegistrado siguiente = nuevoAlmacen();
+        siguiente.cargar();
+        assertEquals(Set.of(ENERO.toString(), ACTUAL.toString()), siguiente.particionesDePaciente("ana@correo.com"));
+        assertTrue(siguiente.leidos.isEmpty());
+    }
+
+    private AlmacenRegistrado nuevoAlmacen() {
+        return new AlmacenRegistrado(carpeta);
+    }
+
+    private static List<String> ids(List<Cita> citas) {
+        List<String> ids = new ArrayList<>();
+        citas.forEach(cita -> ids.add(cita.getId()));
+        return ids;
+    }
+
+    private static Cita cita(String id, YearMonth mes, String paciente, String especialista, String cedula) {
+        Cita cita = new Cita(id, "Paciente", paciente, null, especialista, cedula, "Podologia", mes.atDay(10),
+                LocalTime.of(9 + Integer.parseInt(id.substring(id.length() - 1)), 0), "Control", "completada",
+                Instant.parse("2025-01-01T00:00:00Z"));
+        cita.setSecuencia(1);
+        return cita;
+    }
+
+    /**
+     * Motor JSON que registra qué particiones se leyeron.
+     */
+    private static final class AlmacenRegistrado extends AlmacenCitasJson {
+
+        private final Set<String> leidos = new TreeSet<>();
+
+        private AlmacenRegistrado(Path carpeta) {
+            super(carpeta, ConfiguracionAlmacenamiento.crearMapper(), new PersistenciaAtomica(0));
+        }
+
+        @Override
+        public List<Cita> leerParticion(String mes) throws IOException {
+            synchronized (leidos) {
+                leidos.add(mes);
+            }
+            return super.leerParticion(mes);
+        }
+    }
+}
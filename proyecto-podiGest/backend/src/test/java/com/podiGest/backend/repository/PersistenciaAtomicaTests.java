@@ -0,0 +1,112 @@
+package com.podiGest.backend.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PersistenciaAtomicaTests {
+
+    @TempDir
+    Path carpeta;
+
+    @Test
+    void reemplazaElContenidoSinDejarTemporales() throws IOException {
+        PersistenciaAtomica persistencia = new PersistenciaAtomica(0);
+        Path destino = carpeta.resolve("datos.json");
+
+        persistencia.escribir(destino, bytes("[1]"));
+        persistencia.escribir(destino, bytes("[1,2]"));
+
+        assertEquals("[1,2]", Files.readString(destino));
+        try (var archivos = Files.list(carpeta)) {
+            assertEquals(List.of(destino), archivos.toList());
+        }
+    }
+
+    @Test
+    void conservaLosPermisosDelArchivoReemplazado() throws IOException {
+        assumeTrue(Files.getFileStore(carpeta).supportsFileAttributeView(PosixFileAttributeView.class));
+        PersistenciaAtomica persistencia = new PersistenciaAtomica(0);
+        Path destino = carpeta.resolve("datos.json");
+        Files.writeString(destino, "[]");
+        Set<PosixFilePermission> permisos = PosixFilePermissions.fromString("rw-rw-r--");
+        Files.setPosixFilePermissions(destino, permisos);
+
+        persistencia.escribir(destino, bytes("[1]"));
+
+        assertEquals(permisos, Files.getPosixFilePermissions(destino));
+    }
+
+    @Test
+    void unArchivoNuevoTieneLosPermisosPorDefectoDelProceso() throws IOException {
+        assumeTrue(Files.getFileStore(carpeta).supportsFileAttributeView(PosixFileAttributeView.class));
+        PersistenciaAtomica persistencia = new PersistenciaAtomica(0);
+        Path referencia = Files.writeString(carpeta.resolve("referencia.json"), "[]");
+        Path destino = carpeta.resolve("datos.json");
+
+        persistencia.escribir(destino, bytes("[1]"));
+
+        // Los mismos que cualquier archivo creado normalmente (umask), no los 0600 de un temporal
+        assertEquals(Files.getPosixFilePermissions(referencia), Files.getPosixFilePermissions(destino));
+    }
+
+    @Test
+    void agrupaLasEscriturasConcurrentesDelMismoArchivo() throws Exception {
+        PersistenciaAtomica persistencia = new PersistenciaAtomica(200);
+        Path destino = carpeta.resolve("datos.json");
+        int escritores = 8;
+        AtomicInteger generados = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(escritores);
+        try {
+            List<Future<?>> escrituras = new ArrayList<>();
+            for (int i = 0; i < escritores; i++) {
+                String contenido = "[" + i + "]";
+                escrituras.add(hilos.submit(() -> {
+                    largada.await();
+                    persistencia.escribir(destino, () -> {
+                        generados.incrementAndGet();
+                        return bytes(contenido);
+                    });
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> escritura : escrituras) {
+                escritura.get();
+            }
+        } finally {
+            hilos.shutdownNow();
+        }
+
+        // Todos quedan liberados, pero solo se generó y escribió el último contenido de cada ventana
+        assertTrue(generados.get() < escritores, "se generaron " + generados.get() + " contenidos");
+        assertTrue(Files.readString(destino).matches("\\[[0-7]]"));
+        try (var archivos = Files.list(carpeta)) {
+            assertEquals(List.of(destino), archivos.toList());
+        }
+    }
+
+    private static byte[] bytes(String texto) {
+        return texto.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,182 @@
+package com.podiGest.backend.service;
+
+import com.podiGest.backend.model.Cita;
+import com.podiGest.backend.repository.AlmacenCitasJson;
+import com.podiGest.backend.repository.CitasRepository;
+import com.podiGest.backend.repository.ConfiguracionAlmacenamiento;
+import com.podiGest.backend.repository.PersistenciaAtomica;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Agendamiento concurrente con los bloqueos por especialista: la verificación del horario y el guardado
+ * deben ser atómicos para cada agenda.
+ */
+class AgendaConcurrenteTests {
+
+    private static final LocalDate FECHA = LocalDate.of(2027, 3, 10);
+    private static final LocalTime HORA = LocalTime.of(10, 0);
+
+    @TempDir
+    Path carpeta;
+
+    private CitasRepository citasRepository;
+    private ColaNotificaciones colaNotificaciones;
+    private CitasService citasService;
+
+    @BeforeEach
+    void crearServicio() {
+        citasRepository = new CitasRepository(new AlmacenCitasJson(carpeta, ConfiguracionAlmacenamiento.crearMapper(),
+                new PersistenciaAtomica(0)), 3);
+        colaNotificaciones = new ColaNotificaciones(1000);
+        PerfilService perfilService = mock(PerfilService.class);
+        when(perfilService.obtenerCorreoEspecialistaPorNombre(anyString())).thenReturn(Optional.of("especialista@clinica.com"));
+        citasService = new CitasService(citasRepository, mock(NotificacionService.class), perfilService,
+                new BloqueosAgenda(), colaNotificaciones, new PlantillasNotificacion());
+    }
+
+    @AfterEach
+    void cerrar() throws Exception {
+        colaNotificaciones.cerrar();
+        citasRepository.cerrar();
+    }
+
+    @Test
+    void soloUnaDeLasReservasSimultaneasDelMismoHorarioSeGuarda() throws Exception {
+        List<Callable<Cita>> reservas = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            Cita cita = cita("CITA-" + i, "Ana Gomez", "1111");
+            reservas.add(() -> citasService.guardarCita(cita));
+        }
+
+        List<Throwable> errores = new ArrayList<>();
+        int guardadas = 0;
+        for (Future<Cita> reserva : ejecutarALaVez(reservas)) {
+            try {
+                reserva.get();
+                guardadas++;
+            } catch (ExecutionException e) {
+                errores.add(e.getCause());
+            }
+        }
+
+        assertEquals(1, guardadas);
+        errores.forEach(error -> assertInstanceOf(IOException.class, error));
+        assertEquals(1, citasRepository.buscarOcupantes("1111", "Ana Gomez", FECHA, HORA).size());
+        assertEquals(1, citasRepository.obtenerTodas().size());
+    }
+
+    @Test
+    void especialistasDistintosReservanElMismoHorarioSinBloquearse() throws Exception {
+        List<Callable<Cita>> reservas = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            Cita cita = cita("CITA-" + i, "Especialista " + i, "CED-" + i);
+            reservas.add(() -> citasService.guardarCita(cita));
+        }
+
+        for (Future<Cita> reserva : ejecutarALaVez(reservas)) {
+            reserva.get();
+        }
+
+        assertEquals(16, citasRepository.obtenerTodas().size());
+    }
+
+    @Test
+    void lasCitasAntiguasSinCedulaTambienOcupanElHorario() throws Exception {
+        // Una cita guardada antes de registrar cédulas se identifica solo por el nombre
+        citasRepository.guardar(cita("CITA-ANTIGUA", "Ana Gomez", null));
+
+        ExecutionException error = null;
+        try {
+            ejecutarALaVez(List.of(() -> citasService.guardarCita(cita("CITA-NUEVA", "Ana Gomez", "1111")))).get(0).get();
+        } catch (ExecutionException e) {
+            error = e;
+        }
+
+        assertInstanceOf(IOException.class, error == null ? null : error.getCause());
+        assertEquals(1, citasRepository.obtenerTodas().size());
+    }
+
+    @Test
+    void unaCitaNuevaConElIdDeOtraNoLaReemplaza() throws Exception {
+        citasService.guardarCita(cita("CITA-1", "Ana Gomez", "1111"));
+
+        // Otro especialista y horario libre, pero el ID ya pertenece a la cita de Ana Gomez
+        assertThrows(IllegalStateException.class,
+                () -> citasService.guardarCita(cita("CITA-1", "Luis Perez", "2222")));
+
+        assertEquals("Ana Gomez", citasRepository.buscarPorId("CITA-1").orElseThrow().getEspecialista());
+        assertEquals(1, citasRepository.obtenerTodas().size());
+    }
+
+    @Test
+    void asignarLaCedulaNoTocaLasCitasQueYaLaTienenNiLasDeOtroEspecialista() throws Exception {
+        citasRepository.guardar(cita("CITA-1", "Ana Gomez", null));
+        Cita conOtraHora = cita("CITA-2", "Ana Gomez", "9999");
+        conOtraHora.setHora(LocalTime.of(11, 0));
+        citasRepository.guardar(conOtraHora);
+        citasRepository.guardar(cita("CITA-3", "Luis Perez", null));
+
+        List<Cita> actualizadas = citasService.asignarCedulaEspecialista("Ana Gomez", "1111");
+
+        assertEquals(List.of("CITA-1"), actualizadas.stream().map(Cita::getId).toList());
+        assertEquals("1111", citasRepository.buscarPorId("CITA-1").orElseThrow().getCedulaEspecialista());
+        assertEquals("9999", citasRepository.buscarPorId("CITA-2").orElseThrow().getCedulaEspecialista());
+        assertNull(citasRepository.buscarPorId("CITA-3").orElseThrow().getCedulaEspecialista());
+    }
+
+    private static <T> List<Future<T>> ejecutarALaVez(List<Callable<T>> tareas) throws InterruptedException {
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(tareas.size());
+        try {
+            List<Future<T>> resultados = new ArrayList<>();
+            for (Callable<T> tarea : tareas) {
+                resultados.add(hilos.submit(() -> {
+                    largada.await();
+                    return tarea.call();
+                }));
+            }
+            largada.countDown();
+            for (Future<T> resultado : resultados) {
+                try {
+                    resultado.get();
+                } catch (ExecutionException e) {
+                    // Cada prueba revisa sus errores
+                }
+            }
+            return resultados;
+        } finally {
+            hilos.shutdown();
+        }
+    }
+
+    private static Cita cita(String id, String especialista, String cedulaEspecialista) {
+        return new Cita(id, "Paciente", "paciente@correo.com", "0999999999", especialista, cedulaEspecialista,
+                "Podologia", FECHA, HORA, "Control", "pendiente", Instant.parse("2026-10-01T00:00:00Z"));
+    }
+}
@@ -0,0 +1,125 @@
+package com.podiGest.backend.service;
+
+import com.podiGest.backend.model.AvisoCita;
+import com.podiGest.backend.model.Cita;
+import com.podiGest.backend.model.Notificacion;
+import com.podiGest.backend.repository.AlmacenCitasJson;
+import com.podiGest.backend.repository.CitasRepository;
+import com.podiGest.backend.repository.ConfiguracionAlmacenamiento;
+import com.podiGest.backend.repository.PersistenciaAtomica;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatcher;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BandejaAvisosTests {
+
+    private static final String ESPECIALISTA = "especialista@clinica.com";
+
+    @TempDir
+    Path carpeta;
+
+    @Test
+    void elAvisoSigueEnLaBandejaTrasReiniciarYCompactarHastaConfirmarse() throws IOException {
+        AlmacenCitasJson almacen = nuevoAlmacen();
+        CitasRepository repositorio = new CitasRepository(almacen, 3);
+        Cita cita = cita();
+        AvisoCita aviso = new AvisoCita(AvisoCita.Tipo.AGENDADA, cita);
+        repositorio.guardar(cita, aviso);
+        // El proceso muere antes de entregar el aviso
+        almacen.cerrar();
+
+        CitasRepository reabierto = new CitasRepository(nuevoAlmacen(), 3);
+        assertEquals(List.of(aviso.getId()), idsPendientes(reabierto));
+        // La compactación no lo pierde aunque las particiones solo guarden citas
+        reabierto.compactar();
+        reabierto.cerrar();
+
+        CitasRepository compactado = new CitasRepository(nuevoAlmacen(), 3);
+        assertEquals(List.of(aviso.getId()), idsPendientes(compactado));
+        compactado.confirmarAviso(aviso.getId());
+        compactado.cerrar();
+
+        CitasRepository confirmado = new CitasRepository(nuevoAlmacen(), 3);
+        assertTrue(confirmado.avisosPendientes().isEmpty());
+        confirmado.cerrar();
+    }
+
+    @Test
+    void unaEntregaFallidaSeReintentaSinDuplicarLoYaCreado() throws IOException {
+        CitasRepository repositorio = new CitasRepository(nuevoAlmacen(), 3);
+        NotificacionService notificacionService = mock(NotificacionService.class);
+        PerfilService perfilService = mock(PerfilService.class);
+        when(perfilService.obtenerCorreoEspecialistaPorNombre(anyString())).thenReturn(Optional.of(ESPECIALISTA));
+        // La notificación del paciente se guarda y la del especialista falla la primera vez
+        Set<String> creadas = new HashSet<>();
+        AtomicBoolean fallar = new AtomicBoolean(true);
+        when(notificacionService.existeNotificacion(anyString())).thenAnswer(invocacion -> creadas.contains(invocacion.<String>getArgument(0)));
+        when(notificacionService.crearNotificacion(any())).thenAnswer(invocacion -> {
+            Notificacion notificacion = invocacion.getArgument(0);
+            if (ESPECIALISTA.equals(notificacion.getCorreoDestinatario()) && fallar.getAndSet(false)) {
+                throw new IOException("disco lleno");
+            }
+            creadas.add(notificacion.getId());
+            return notificacion;
+        });
+        CitasService citasService = new CitasService(repositorio, notificacionService, perfilService,
+                new BloqueosAgenda(), new ColaNotificaciones(1), new PlantillasNotificacion());
+        Cita cita = cita();
+        repositorio.guardar(cita, new AvisoCita(AvisoCita.Tipo.AGENDADA, cita));
+
+        citasService.entregarAvisosPendientes();
+        assertEquals(1, repositorio.avisosPendientes().size());
+        assertEquals(1, creadas.size());
+
+        // En el reintento la del paciente ya existe: solo se vuelve a intentar la del especialista
+        citasService.entregarAvisosPendientes();
+        assertTrue(repositorio.avisosPendientes().isEmpty());
+        assertEquals(2, creadas.size());
+        verify(notificacionService, times(1)).crearNotificacion(argThat(para("paciente@correo.com")));
+        verify(notificacionService, times(2)).crearNotificacion(argThat(para(ESPECIALISTA)));
+
+        // Ya confirmado, no se vuelve a entregar
+        citasService.entregarAvisosPendientes();
+        verify(notificacionService, times(3)).crearNotificacion(any());
+        repositorio.cerrar();
+    }
+
+    private static ArgumentMatcher<Notificacion> para(String correo) {
+        return notificacion -> notificacion != null && correo.equals(notificacion.getCorreoDestinatario());
+    }
+
+    private static List<String> idsPendientes(CitasRepository repositorio) {
+        return repositorio.avisosPendientes().stream().map(AvisoCita::getId).toList();
+    }
+
+    private AlmacenCitasJson nuevoAlmacen() {
+        return new AlmacenCitasJson(carpeta, ConfiguracionAlmacenamiento.crearMapper(), new PersistenciaAtomica(0));
+    }
+
+    private static Cita cita() {
+        return new Cita("CITA-1", "Paciente", "paciente@correo.com", "0999999999", "Ana Gomez", "1111",
+                "Podologia", LocalDate.of(2027, 3, 10), LocalTime.of(10, 0), "Control", "pendiente",
+                Instant.parse("2026-10-01T00:00:00Z"));
+    }
+}
@@ -1,8 +1,16 @@
 import { ref } from 'vue'
-import { fetchNotificationCount } from '../services/notificationsService'
+import {
+  clearNotificationCache,
+  fetchNotificationCount,
+  subscribeToNotifications,
+  type NotificationSummary
+} from '../services/notificationsService'
 
 // Estado global compartido
 const notificationCount = ref(0)
+// Última notificación recibida en vivo; las vistas que muestran la lista la agregan
+const latestNotification = ref<NotificationSummary | null>(null)
+let closeStream: (() => void) | null = null
 const isLoading = ref(false)
 const isMuted = ref(false)
 
@@ -30,6 +38,27 @@ export function useNotificationCount() {
     }
   }
 
+  // Reemplaza el sondeo periódico: el backend envía el conteo y las notificaciones nuevas al producirse
+  const startLiveUpdates = () => {
+    if (closeStream) {
+      return
+    }
+    closeStream = subscribeToNotifications({
+      onCount: (count) => {
+        notificationCount.value = count
+      },
+      onNotification: (notification) => {
+        latestNotification.value = notification
+      }
+    })
+  }
+
+  const stopLiveUpdates = () => {
+    closeStream?.()
+    closeStream = null
+    clearNotificationCache()
+  }
+
   const resetCount = () => {
     notificationCount.value = 0
   }
@@ -59,7 +88,10 @@ export function useNotificationCount() {
     notificationCount,
     isLoading,
     isMuted,
+    latestNotification,
     loadNotificationCount,
+    startLiveUpdates,
+    stopLiveUpdates,
     resetCount,
     decrementCount,
     incrementCount,
@@ -4,6 +4,9 @@ import { createApp } from 'vue'
 import './style.css' // O el nombre de tu archivo CSS global
 import App from './App.vue'
 import router from './router' // <-- 1. Importa la configuración
+import { installSessionToken } from './services/sessionService'
+
+installSessionToken() // Envía el token de sesión en cada petición al backend
 
 const app = createApp(App)
 
@@ -11,6 +11,8 @@ export interface Cita {
   razonConsulta: string
   estado: string
   fechaCreacion: string
+  // Secuencia del último cambio de la cita, asignada por el backend
+  secuencia?: number
 }
 
 const API_URL = 'http://localhost:8080/api/citas'
@@ -113,6 +115,77 @@ export const obtenerCitas = async (): Promise<Cita[]> => {
   }
 }
 
+export interface CambiosCitas {
+  citas: Cita[]
+  secuencia: number
+  hayMas: boolean
+}
+
+// Mayor secuencia de una lista de citas: desde ahí se piden solo los cambios posteriores
+export const ultimaSecuencia = (citas: Cita[]): number =>
+  citas.reduce((maxima, cita) => Math.max(maxima, cita.secuencia ?? 0), 0)
+
+// Cambios de las citas del especialista en sesión posteriores a la secuencia 'desde', leyendo todas las páginas.
+// Devuelve null si no se pudieron obtener.
+export const obtenerCambiosCitasPropias = async (desde: number): Promise<CambiosCitas | null> => {
+  try {
+    const cambios: CambiosCitas = { citas: [], secuencia: desde, hayMas: true }
+    while (cambios.hayMas) {
+      const response = await fetch(`${API_URL}/propias/cambios?desde=${cambios.secuencia}`, { cache: 'no-store' })
+      if (!response.ok) {
+        throw new Error(`Error al obtener cambios de citas: ${response.status}`)
+      }
+      const pagina: CambiosCitas = await response.json()
+      cambios.citas.push(...pagina.citas)
+      cambios.secuencia = pagina.secuencia
+      cambios.hayMas = pagina.hayMas
+    }
+    return cambios
+  } catch (error) {
+    console.error('No fue posible obtener los cambios de citas', error)
+    return null
+  }
+}
+
+// Reemplaza en la lista las citas cambiadas (por ID) y agrega las nuevas; las que ya no cumplen 'incluir' se quitan
+export const aplicarCambiosCitas = (
+  actuales: Cita[],
+  cambios: Cita[],
+  incluir: (cita: Cita) => boolean = () => true,
+): Cita[] => {
+  const porId = new Map(actuales.map(cita => [cita.id, cita]))
+  for (const cita of cambios) {
+    if (incluir(cita)) {
+      porId.set(cita.id, cita)
+    } else {
+      porId.delete(cita.id)
+    }
+  }
+  return [...porId.values()]
+}
+
+export interface DisponibilidadDia {
+  fecha: string
+  horasLibres: string[]
+}
+
+export const obtenerDisponibilidad = async (
+  especialista: string,
+  cedulaEspecialista: string,
+  desde: string,
+  hasta: string = desde,
+): Promise<DisponibilidadDia[]> => {
+  const params = new URLSearchParams({ especialista, desde, hasta })
+  if (cedulaEspecialista) {
+    params.append('cedula', cedulaEspecialista)
+  }
+  const response = await fetch(`${API_URL}/disponibilidad?${params.toString()}`)
+  if (!response.ok) {
+    throw new Error(`Error al obtener disponibilidad: ${response.status} ${response.statusText}`)
+  }
+  return await response.json()
+}
+
 export const obtenerCitasPorPaciente = async (correoElectronico: string): Promise<Cita[]> => {
   try {
     const citas = await obtenerCitas()
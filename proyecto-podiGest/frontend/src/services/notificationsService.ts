@@ -1,3 +1,5 @@
+import { withSessionToken } from './sessionService'
+
 export interface NotificationSummary {
   id: string
   fechaEnvio: string
@@ -28,6 +30,45 @@ export const fetchNotifications = async (): Promise<NotificationSummary[]> => {
   }
 }
 
+export interface NotificationChanges {
+  notificaciones: NotificationSummary[]
+  cursor: string
+  // true cuando la lista es la bandeja completa y reemplaza a la guardada
+  completa: boolean
+}
+
+// Copia local de la bandeja del usuario y cursor de la última sincronización
+let inboxCache: { cursor: string, items: Map<string, NotificationSummary> } | null = null
+
+// Obtiene la bandeja del usuario pidiendo al backend solo lo creado o modificado desde la última vez
+export const syncNotifications = async (): Promise<NotificationSummary[]> => {
+  try {
+    const response = await fetch(`${API_URL}?since=${encodeURIComponent(inboxCache?.cursor ?? '')}`)
+
+    if (!response.ok) {
+      // Cursor rechazado o sesión cambiada: la próxima vez se pide la bandeja completa
+      inboxCache = null
+      throw new Error(`Error al sincronizar notificaciones: ${response.status}`)
+    }
+
+    const changes: NotificationChanges = await response.json()
+    const items = changes.completa || !inboxCache ? new Map<string, NotificationSummary>() : inboxCache.items
+    for (const notification of changes.notificaciones) {
+      items.set(notification.id, notification)
+    }
+    inboxCache = { cursor: changes.cursor, items }
+    return [...items.values()]
+  } catch (error) {
+    console.error('No fue posible sincronizar las notificaciones', error)
+    return []
+  }
+}
+
+// Descarta la copia local de la bandeja (al cerrar sesión)
+export const clearNotificationCache = () => {
+  inboxCache = null
+}
+
 // Obtiene una notificación específica por ID
 export const fetchNotificationById = async (id: string): Promise<NotificationSummary | null> => {
   try {
@@ -102,6 +143,26 @@ export const fetchNotificationCount = async (): Promise<number> => {
   }
 }
 
+export interface NotificationStreamHandlers {
+  onCount?: (count: number) => void
+  onNotification?: (notification: NotificationSummary) => void
+}
+
+// Abre el flujo de eventos en vivo (notificaciones nuevas y conteo); devuelve la función para cerrarlo.
+// EventSource se reconecta solo si la conexión se corta.
+export const subscribeToNotifications = (handlers: NotificationStreamHandlers): (() => void) => {
+  const source = new EventSource(withSessionToken(`${API_URL}/stream`))
+
+  source.addEventListener('conteo', (event) => {
+    handlers.onCount?.(Number((event as MessageEvent).data))
+  })
+  source.addEventListener('notificacion', (event) => {
+    handlers.onNotification?.(JSON.parse((event as MessageEvent).data))
+  })
+
+  return () => source.close()
+}
+
 // Elimina todas las notificaciones del usuario
 export const deleteAllNotifications = async (): Promise<boolean> => {
   try {
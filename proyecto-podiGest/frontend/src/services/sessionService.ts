@@ -0,0 +1,51 @@
+const API_BASE = 'http://localhost:8080/api'
+const TOKEN_HEADER = 'X-Session-Token'
+const TOKEN_KEY = 'sessionToken'
+
+export const getSessionToken = (): string | null => localStorage.getItem(TOKEN_KEY)
+
+// Agrega el token de sesión a todas las peticiones al backend y guarda el que devuelve el login.
+// Se instala una sola vez al arrancar la aplicación, así las vistas siguen usando fetch directamente.
+export const installSessionToken = () => {
+  const originalFetch = window.fetch.bind(window)
+
+  window.fetch = async (input: RequestInfo | URL, init?: RequestInit): Promise<Response> => {
+    const url = input instanceof Request ? input.url : input.toString()
+    if (!url.startsWith(API_BASE)) {
+      return originalFetch(input, init)
+    }
+
+    const token = getSessionToken()
+    const headers = new Headers(init?.headers ?? (input instanceof Request ? input.headers : undefined))
+    if (token && !headers.has(TOKEN_HEADER)) {
+      headers.set(TOKEN_HEADER, token)
+    }
+
+    const response = await originalFetch(input, { ...init, headers })
+    const newToken = response.headers.get(TOKEN_HEADER)
+    if (newToken) {
+      localStorage.setItem(TOKEN_KEY, newToken)
+    }
+    return response
+  }
+}
+
+// EventSource no permite cabeceras: el token va como parámetro de la URL
+export const withSessionToken = (url: string): string => {
+  const token = getSessionToken()
+  if (!token) {
+    return url
+  }
+  return `${url}${url.includes('?') ? '&' : '?'}sesion=${encodeURIComponent(token)}`
+}
+
+// Cierra la sesión en el backend y olvida el token
+export const logout = async (): Promise<void> => {
+  try {
+    await fetch(`${API_BASE}/usuarios/logout`, { method: 'POST' })
+  } catch (error) {
+    console.error('No fue posible cerrar la sesión', error)
+  } finally {
+    localStorage.removeItem(TOKEN_KEY)
+  }
+}